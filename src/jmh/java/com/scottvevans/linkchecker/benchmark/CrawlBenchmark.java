@@ -0,0 +1,84 @@
+package com.scottvevans.linkchecker.benchmark;
+
+import com.scottvevans.linkchecker.model.CrawlerReport;
+import com.scottvevans.linkchecker.service.impl.CrawlerImpl;
+import com.scottvevans.linkchecker.service.impl.JsoupHtmlParserImpl;
+import com.scottvevans.linkchecker.service.impl.StreamingHtmlParserImpl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end crawl of a generated site served by a local MockWebServer: every page links to fanout child pages
+ * plus the root and its parent, so the crawl exercises deduplication as well as fetching and parsing.
+ * Sample time mode reports the latency percentiles of a whole crawl.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CrawlBenchmark {
+  @Param({ "5", "20" })
+  private int fanout;
+
+  @Param({ "2", "3" })
+  private int depth;
+
+  @Param({ "jsoup", "streaming" })
+  private String parser;
+
+  private MockWebServer server;
+  private String rootURI;
+
+  @Setup(Level.Trial)
+  public void startServer() throws IOException {
+    server = new MockWebServer();
+    server.setDispatcher(new SiteDispatcher(fanout));
+    server.start();
+    rootURI = server.url("/p").toString();
+  }
+
+  @TearDown(Level.Trial)
+  public void stopServer() throws IOException {
+    server.shutdown();
+  }
+
+  /** A new crawler for every crawl, so the link status cache does not turn later crawls into cache lookups */
+  @Benchmark
+  public CrawlerReport crawl() {
+    var crawler = new CrawlerImpl("jsoup".equals(parser) ? new JsoupHtmlParserImpl() : new StreamingHtmlParserImpl());
+    return crawler.crawl(depth, rootURI).block();
+  }
+
+  /** Serves /p and every /p/i/j/... path as a page linking to its fanout children */
+  private static class SiteDispatcher extends Dispatcher {
+    private final int fanout;
+
+    private SiteDispatcher(int fanout) {
+      this.fanout = fanout;
+    }
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) {
+      var path = request.getPath();
+      var html = new StringBuilder("<html><head><title>").append(path).append("</title></head><body>");
+      html.append("<a href=\"/p\">home</a>");
+      int parent = path.lastIndexOf('/');
+      if (parent > 0) html.append("<a href=\"").append(path, 0, parent).append("\">up</a>");
+      for (int i = 0; i < fanout; i++) {
+        html.append("<p><a href=\"").append(path).append('/').append(i).append("\">child ").append(i).append("</a></p>");
+      }
+      html.append("</body></html>");
+      return new MockResponse()
+          .setHeader("Content-Type", "text/html; charset=utf-8")
+          .setBody(html.toString());
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package com.scottvevans.linkchecker.benchmark;
+
+import com.scottvevans.linkchecker.config.HttpClientConfig;
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import com.scottvevans.linkchecker.model.CrawlerReport;
+import com.scottvevans.linkchecker.service.Crawler;
+import com.scottvevans.linkchecker.service.impl.BlockingCrawler;
+import com.scottvevans.linkchecker.service.impl.CrawlMetrics;
+import com.scottvevans.linkchecker.service.impl.CrawlerImpl;
+import com.scottvevans.linkchecker.service.impl.HostScheduler;
+import com.scottvevans.linkchecker.service.impl.InFlightRequests;
+import com.scottvevans.linkchecker.service.impl.InMemoryCrawlStateStore;
+import com.scottvevans.linkchecker.service.impl.LinkStatusCache;
+import com.scottvevans.linkchecker.service.impl.ParseScheduler;
+import com.scottvevans.linkchecker.service.impl.RedirectMap;
+import com.scottvevans.linkchecker.service.impl.RobotsCache;
+import com.scottvevans.linkchecker.service.impl.StreamingHtmlParserImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.openjdk.jmh.annotations.*;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The reactive and blocking fetch engines side by side, crawling the same generated site of about 1k, 10k and
+ * 100k pages served by a local MockWebServer. Each page links to ten children plus the root, so the site is a
+ * tree as deep as the crawl; every crawl is timed once, whole. Each trial builds its engine once and disposes of
+ * its threads and connections when done, with the link status cache off so every crawl fetches every page.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EngineBenchmark {
+  private static final int FANOUT = 10;
+
+  @Param({ "1000", "10000", "100000" })
+  private int pages;
+
+  @Param({ "reactive", "blocking" })
+  private String engine;
+
+  private MockWebServer server;
+  private String rootURI;
+  private int depth;
+  private ConnectionProvider connectionProvider;
+  private ParseScheduler parseScheduler;
+  private BlockingCrawler blockingCrawler;
+  private Crawler crawler;
+
+  @Setup(Level.Trial)
+  public void start() throws IOException {
+    server = new MockWebServer();
+    server.setDispatcher(new TreeDispatcher());
+    server.start();
+    rootURI = server.url("/p").toString();
+    depth = (int) Math.round(Math.log10(pages));
+
+    // one host, so its limit is the engines' concurrency rather than the politeness default
+    var properties = new LinkCheckerProperties();
+    properties.getFetch().setPerHostConcurrency(64);
+    properties.getFetch().setMaxInFlight(256);
+    properties.getFetch().setBlockingThreads(256);
+    properties.getCache().setEnabled(false);
+
+    var parser = new StreamingHtmlParserImpl();
+    var registry = new SimpleMeterRegistry();
+    parseScheduler = new ParseScheduler(properties, registry);
+    var scheduler = new HostScheduler(properties, registry);
+    var cache = new LinkStatusCache(properties, registry);
+    var robots = new RobotsCache(properties, registry);
+    var redirects = new RedirectMap(properties, registry);
+    var inFlight = new InFlightRequests(registry);
+    var stateStore = new InMemoryCrawlStateStore(properties);
+    var metrics = new CrawlMetrics(properties, registry);
+    if ("reactive".equals(engine)) {
+      connectionProvider = HttpClientConfig.connectionProvider(properties.getHttp());
+      crawler = new CrawlerImpl(parser, properties, scheduler, cache, robots, redirects, inFlight, stateStore,
+          metrics, parseScheduler, HttpClientConfig.httpClient(properties.getHttp(), connectionProvider));
+    } else {
+      blockingCrawler = new BlockingCrawler(parser, properties, scheduler, cache, robots, redirects, inFlight,
+          stateStore, metrics, parseScheduler);
+      crawler = blockingCrawler;
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void stop() throws IOException {
+    if (connectionProvider != null) connectionProvider.dispose();
+    if (blockingCrawler != null) blockingCrawler.close();
+    parseScheduler.close();
+    server.shutdown();
+  }
+
+  @Benchmark
+  public CrawlerReport crawl() {
+    return crawler.crawl(depth, rootURI).block();
+  }
+
+  /** Serves /p and every /p/i/j/... path as a page linking to the root and its ten children */
+  private static class TreeDispatcher extends Dispatcher {
+    @Override
+    public MockResponse dispatch(RecordedRequest request) {
+      var path = request.getPath();
+      var html = new StringBuilder("<html><head><title>").append(path).append("</title></head><body>");
+      html.append("<a href=\"/p\">home</a>");
+      for (int i = 0; i < FANOUT; i++) {
+        html.append("<p><a href=\"").append(path).append('/').append(i).append("\">child ").append(i)
+            .append("</a></p>");
+      }
+      html.append("</body></html>");
+      return new MockResponse()
+          .setHeader("Content-Type", "text/html; charset=utf-8")
+          .setBody(html.toString());
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package com.scottvevans.linkchecker.benchmark;
+
+import com.scottvevans.linkchecker.service.impl.CompactUriQueue;
+import com.scottvevans.linkchecker.service.impl.FingerprintTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retained heap per URI of the visited set and the queue of URIs waiting to be fetched, as String keyed
+ * collections and in the compact forms the crawl frontier uses. Each URI is built afresh, as parsing a page
+ * would, so the collections that keep the String pay for it. The footprint is measured as the growth of the
+ * heap after a full gc, reported in the bytesPerUri secondary result; single shot time reports the cost of
+ * building each one.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+@State(Scope.Benchmark)
+public class FrontierFootprintBenchmark {
+  private static final String PREFIX = "https://www.acme.com/docs/guide/section-";
+
+  @Param({ "100000", "1000000" })
+  private int uris;
+
+  /** Heap retained by the collection built in an iteration, per URI */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Footprint {
+    public double bytesPerUri;
+  }
+
+  /** The frontier's previous visited set: each URI String mapped to an entry object */
+  @Benchmark
+  public Object visitedStringMap(Footprint footprint) {
+    long before = usedHeap();
+    var visited = new HashMap<String, int[]>();
+    for (int i = 0; i < uris; i++) {
+      visited.put(uri(i), new int[] { 1, 7 });
+    }
+    footprint.bytesPerUri = (usedHeap() - before) / (double) uris;
+    return visited;
+  }
+
+  @Benchmark
+  public Object visitedFingerprintTable(Footprint footprint) {
+    long before = usedHeap();
+    var visited = new FingerprintTable();
+    for (int i = 0; i < uris; i++) {
+      visited.put(FingerprintTable.fingerprint(uri(i)), (byte) 1);
+    }
+    footprint.bytesPerUri = (usedHeap() - before) / (double) uris;
+    return visited;
+  }
+
+  @Benchmark
+  public Object queuedStringDeque(Footprint footprint) {
+    long before = usedHeap();
+    var queued = new ArrayDeque<String>();
+    for (int i = 0; i < uris; i++) {
+      queued.add(uri(i));
+    }
+    footprint.bytesPerUri = (usedHeap() - before) / (double) uris;
+    return queued;
+  }
+
+  @Benchmark
+  public Object queuedCompactQueue(Footprint footprint) {
+    long before = usedHeap();
+    var queued = new CompactUriQueue();
+    for (int i = 0; i < uris; i++) {
+      queued.add(uri(i), 1);
+    }
+    footprint.bytesPerUri = (usedHeap() - before) / (double) uris;
+    return queued;
+  }
+
+  private static String uri(int i) {
+    return PREFIX + (i / 100) + "/page-" + i + ".html";
+  }
+
+  private static long usedHeap() {
+    var runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
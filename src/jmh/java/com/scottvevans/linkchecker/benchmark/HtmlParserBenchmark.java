@@ -0,0 +1,79 @@
+package com.scottvevans.linkchecker.benchmark;
+
+import com.scottvevans.linkchecker.service.HtmlParser;
+import com.scottvevans.linkchecker.service.impl.JsoupHtmlParserImpl;
+import com.scottvevans.linkchecker.service.impl.StreamingHtmlParserImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/** Link extraction from a page of the given number of links, by each HtmlParser implementation */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HtmlParserBenchmark {
+  private static final String BASE_URI = "https://www.acme.com/docs/";
+  private static final int CHUNK_SIZE = 8 * 1024;
+
+  @Param({ "100", "1000", "10000" })
+  private int links;
+
+  private String html;
+  private byte[] bytes;
+  private HtmlParser jsoup;
+  private HtmlParser streaming;
+  private DefaultDataBufferFactory bufferFactory;
+
+  @Setup
+  public void setUp() {
+    html = Pages.page(BASE_URI, links);
+    bytes = html.getBytes(StandardCharsets.UTF_8);
+    jsoup = new JsoupHtmlParserImpl();
+    streaming = new StreamingHtmlParserImpl();
+    bufferFactory = new DefaultDataBufferFactory();
+  }
+
+  /** The body as a response would deliver it, in 8KB buffers */
+  private Flux<DataBuffer> body() {
+    List<DataBuffer> buffers = new ArrayList<>();
+    for (int i = 0; i < bytes.length; i += CHUNK_SIZE) {
+      buffers.add(bufferFactory.wrap(bytes).slice(i, Math.min(CHUNK_SIZE, bytes.length - i)));
+    }
+    return Flux.fromIterable(buffers);
+  }
+
+  @Benchmark
+  public List<String> jsoupFindLinks() {
+    return jsoup.findLinks(BASE_URI, html);
+  }
+
+  @Benchmark
+  public Set<String> jsoupFindUniqueLinks() {
+    return jsoup.findUniqueLinks(BASE_URI, html);
+  }
+
+  @Benchmark
+  public Set<String> jsoupFindUniqueLinksFromBody() {
+    return jsoup.findUniqueLinks(BASE_URI, body(), StandardCharsets.UTF_8, Integer.MAX_VALUE).block();
+  }
+
+  @Benchmark
+  public List<String> streamingFindLinks() {
+    return streaming.findLinks(BASE_URI, html);
+  }
+
+  @Benchmark
+  public Set<String> streamingFindUniqueLinksFromBody() {
+    return streaming.findUniqueLinks(BASE_URI, body(), StandardCharsets.UTF_8, Integer.MAX_VALUE).block();
+  }
+}
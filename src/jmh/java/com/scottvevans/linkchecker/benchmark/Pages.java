@@ -0,0 +1,35 @@
+package com.scottvevans.linkchecker.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Generates html pages of a given size for the benchmarks */
+class Pages {
+  private Pages() {}
+
+  /** A page with the given number of links, a mix of relative, absolute, fragment and query string links */
+  static String page(String baseURI, int links) {
+    var html = new StringBuilder();
+    html.append("<!DOCTYPE html><html><head><title>benchmark page</title>");
+    html.append("<script>var links = '<a href=\"script.html\">';</script>");
+    html.append("</head><body><div class=\"nav\">");
+    for (var link : links(baseURI, links)) {
+      html.append("<p>Some text around <a class=\"link\" href=\"").append(link).append("\">link text</a>.</p>\n");
+    }
+    html.append("</div></body></html>");
+    return html.toString();
+  }
+
+  static List<String> links(String baseURI, int count) {
+    List<String> links = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      switch (i % 4) {
+        case 0: links.add("page-" + i + ".html"); break;
+        case 1: links.add(baseURI + "section/" + i + "/#content"); break;
+        case 2: links.add("/search?q=" + i + "&sort=desc&page=2&lang=en#results"); break;
+        default: links.add("https://external-" + (i % 10) + ".example.com/path/" + i); break;
+      }
+    }
+    return links;
+  }
+}
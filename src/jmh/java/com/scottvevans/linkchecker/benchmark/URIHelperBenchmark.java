@@ -0,0 +1,57 @@
+package com.scottvevans.linkchecker.benchmark;
+
+import com.scottvevans.linkchecker.util.URIHelper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/** Normalization of the kinds of URIs found on typical pages */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class URIHelperBenchmark {
+  private static final List<String> URIS = List.of(
+      "https://www.acme.com/docs/getting-started.html",
+      "https://www.acme.com/docs/#main-content",
+      "https://www.acme.com/search?q=links&sort=desc&page=2&lang=en",
+      "https://www.acme.com/search?lang=en&page=2&q=links&sort=desc#results",
+      "https://www.acme.com/search?=invalid&&utm_source=&q=links");
+
+  @Param({ "0", "1", "2", "3", "4" })
+  private int uriIndex;
+
+  private String uri;
+  private String queryString;
+
+  @Setup
+  public void setUp() {
+    uri = URIS.get(uriIndex);
+    int index = uri.indexOf('?');
+    queryString = index == -1 ? "" : URIHelper.removeFragment(uri.substring(index + 1));
+  }
+
+  @Benchmark
+  public String normalizeURI() {
+    return URIHelper.normalizeURI(uri);
+  }
+
+  @Benchmark
+  public Optional<String> getSortedQueryString() {
+    return URIHelper.getSortedQueryString(queryString);
+  }
+
+  /** All of the URIs together, as a page of mixed links would present them */
+  @Benchmark
+  @OperationsPerInvocation(5)
+  public void normalizeMixedURIs(Blackhole blackhole) {
+    for (var mixed : URIS) {
+      blackhole.consume(URIHelper.normalizeURI(mixed));
+    }
+  }
+}
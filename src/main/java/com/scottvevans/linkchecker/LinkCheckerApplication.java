@@ -2,8 +2,10 @@ package com.scottvevans.linkchecker;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class LinkCheckerApplication {
 	public static void main(String[] args) {
 		SpringApplication.run(LinkCheckerApplication.class, args);
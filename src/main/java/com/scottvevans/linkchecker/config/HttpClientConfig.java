@@ -0,0 +1,68 @@
+package com.scottvevans.linkchecker.config;
+
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.handler.timeout.WriteTimeoutHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The pooled Reactor Netty HttpClient used for all outbound page requests. The pool is per remote host, so
+ * its limits apply to each host separately; the read and write timeouts apply while a request is in progress.
+ * It is also the connector of the WebClient.Builder Spring Boot configures, so other outbound requests, between
+ * the nodes of a cluster, share its pool and settings.
+ */
+@Configuration
+public class HttpClientConfig {
+  static final String POOL_NAME = "linkchecker";
+
+  @Bean(destroyMethod = "dispose")
+  public ConnectionProvider crawlerConnectionProvider(LinkCheckerProperties properties) {
+    return connectionProvider(properties.getHttp());
+  }
+
+  @Bean
+  public HttpClient crawlerHttpClient(LinkCheckerProperties properties, ConnectionProvider crawlerConnectionProvider) {
+    return httpClient(properties.getHttp(), crawlerConnectionProvider);
+  }
+
+  @Bean
+  public ClientHttpConnector crawlerClientHttpConnector(HttpClient crawlerHttpClient) {
+    return new ReactorClientHttpConnector(crawlerHttpClient);
+  }
+
+  public static ConnectionProvider connectionProvider(LinkCheckerProperties.Http http) {
+    return ConnectionProvider.builder(POOL_NAME)
+        .maxConnections(http.getMaxConnectionsPerHost())
+        .pendingAcquireMaxCount(http.getPendingAcquireMaxCount())
+        .pendingAcquireTimeout(http.getPendingAcquireTimeout())
+        .maxIdleTime(http.getMaxIdleTime())
+        .maxLifeTime(http.getMaxLifeTime())
+        .metrics(http.isMetrics())
+        .build();
+  }
+
+  public static HttpClient httpClient(LinkCheckerProperties.Http http, ConnectionProvider connectionProvider) {
+    long readTimeoutMillis = http.getReadTimeout().toMillis();
+    long writeTimeoutMillis = http.getWriteTimeout().toMillis();
+    return HttpClient.create(connectionProvider)
+        .tcpConfiguration(tcpClient -> tcpClient
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) http.getConnectTimeout().toMillis())
+            .option(ChannelOption.SO_KEEPALIVE, true))
+        // handlers added per request are removed when the connection goes back to the pool
+        .doOnRequest((request, connection) -> connection
+            .addHandlerLast(new ReadTimeoutHandler(readTimeoutMillis, TimeUnit.MILLISECONDS))
+            .addHandlerLast(new WriteTimeoutHandler(writeTimeoutMillis, TimeUnit.MILLISECONDS)))
+        .protocol(http.getProtocols().toArray(HttpProtocol[]::new))
+        .compress(http.isCompress())
+        // crawled uris are unbounded, so they are not used as a metric tag
+        .metrics(http.isMetrics(), uri -> "crawled");
+  }
+}
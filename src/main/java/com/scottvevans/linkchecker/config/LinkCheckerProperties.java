@@ -0,0 +1,250 @@
+package com.scottvevans.linkchecker.config;
+
+import com.scottvevans.linkchecker.model.CrawlScope;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import reactor.netty.http.HttpProtocol;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/** Tunable settings for the crawler, bound from the linkchecker.* application properties */
+@Data
+@ConfigurationProperties(prefix = "linkchecker")
+public class LinkCheckerProperties {
+  private final Fetch fetch = new Fetch();
+  private final AdaptiveConcurrency adaptiveConcurrency = new AdaptiveConcurrency();
+  private final Retry retry = new Retry();
+  private final Redirects redirects = new Redirects();
+  private final Cache cache = new Cache();
+  private final Robots robots = new Robots();
+  private final Http http = new Http();
+  private final State state = new State();
+  private final Jobs jobs = new Jobs();
+  private final Batch batch = new Batch();
+  private final Cluster cluster = new Cluster();
+  /** links crawls expand by default, the rest only checked for their status; crawls may give their own */
+  private final CrawlScope scope = new CrawlScope();
+  private final Report report = new Report();
+  private final Metrics metrics = new Metrics();
+  private final Parse parse = new Parse();
+
+  /** Limits on outbound page requests */
+  @Data
+  public static class Fetch {
+    /** maximum concurrent requests to any single host */
+    private int perHostConcurrency = 4;
+    /** minimum time between the start of two requests to the same host */
+    private Duration perHostMinDelay = Duration.ZERO;
+    /** maximum concurrent requests across all hosts */
+    private int maxInFlight = 256;
+    /** maximum fetches each crawl hands to the scheduler at once, the rest of its frontier waiting compactly */
+    private int frontierWindow = 1024;
+    /** probe pages that will not be expanded, and links that look like non-html files, with HEAD instead of GET */
+    private boolean headRequests = false;
+    /** revalidate pages fetched before with If-None-Match and If-Modified-Since, reusing their links on 304 */
+    private boolean conditionalRequests = true;
+    /**
+     * reactive, or blocking to send requests with java.net.http, blocking a thread of a pool for each; only the
+     * transport differs, the crawl around it runs on Reactor either way
+     */
+    private String engine = "reactive";
+    /** threads of the blocking engine, the most requests it sends and bodies it reads at once */
+    private int blockingThreads = 256;
+    /** requests and body reads waiting for a thread of the blocking engine at most, beyond which they fail */
+    private int blockingQueueCapacity = 256;
+  }
+
+  /**
+   * Concurrency per host adapted to the host's latency and errors, in place of the fixed perHostConcurrency, which
+   * each host starts at
+   */
+  @Data
+  public static class AdaptiveConcurrency {
+    private boolean enabled = false;
+    private int minLimit = 1;
+    /** highest limit of any host, which is never above http.maxConnectionsPerHost either */
+    private int maxLimit = 64;
+    /** smoothed latency above this multiple of a host's lowest is taken as the host slowing under our load */
+    private double latencyTolerance = 2.0;
+    /** fraction of the limit kept after a timeout, connection failure, 429 or 503 */
+    private double backoffRatio = 0.5;
+  }
+
+  /** Fetching a page again after a timeout, a connection failure or a status servers answer when busy */
+  @Data
+  public static class Retry {
+    /** attempts at each fetch, including the first; 1 for no retries */
+    private int maxAttempts = 1;
+    /** backoff before the first retry, multiplied for each later one */
+    private Duration initialBackoff = Duration.ofMillis(500);
+    private double multiplier = 2;
+    private Duration maxBackoff = Duration.ofSeconds(10);
+    /** fraction of each backoff taken off at random, so retries of many fetches do not arrive together */
+    private double jitter = 0.5;
+    /** longest Retry-After waited for; a server asking for longer is not retried */
+    private Duration maxRetryAfter = Duration.ofSeconds(60);
+    /** statuses retried, as well as timeouts and connection failures */
+    private List<Integer> statuses = List.of(429, 502, 503, 504);
+  }
+
+  /** Redirects followed within a fetch, rather than each hop taking a level of the crawl */
+  @Data
+  public static class Redirects {
+    private boolean follow = false;
+    /** most redirects followed from a page before giving up on it */
+    private int maxHops = 10;
+    /** URIs whose redirect chains are remembered, so later links to them go straight to where the chain ended */
+    private int maxKnown = 100_000;
+    /** time a redirect chain is remembered for */
+    private Duration ttl = Duration.ofMinutes(10);
+  }
+
+  /** Link status cache shared by all crawls, with a time to live per class of status */
+  @Data
+  public static class Cache {
+    private boolean enabled = true;
+    /** upper bound on the estimated heap used by cached responses and their links */
+    private DataSize maximumMemory = DataSize.ofMegabytes(64);
+    /** time to live of 2xx responses */
+    private Duration successTtl = Duration.ofMinutes(10);
+    /** time to live of 3xx responses */
+    private Duration redirectTtl = Duration.ofMinutes(10);
+    /** time to live of 4xx and 5xx responses */
+    private Duration errorTtl = Duration.ofMinutes(2);
+    /** time to live of requests that failed without a status, reported as -1 */
+    private Duration failureTtl = Duration.ofSeconds(30);
+  }
+
+  /** robots.txt rules obeyed by crawls, fetched once per host and cached */
+  @Data
+  public static class Robots {
+    private boolean enabled = false;
+    /** product token the crawler identifies itself with, in its requests and when choosing robots.txt groups */
+    private String userAgent = "linkchecker";
+    /** time to live of the rules of a host, or of its lack of a robots.txt */
+    private Duration ttl = Duration.ofHours(24);
+    /** time to live of the allow all assumed when a robots.txt could not be retrieved for an error */
+    private Duration errorTtl = Duration.ofMinutes(10);
+    /** hosts whose rules are cached, least recently used first to be forgotten */
+    private int maxHosts = 10_000;
+    /** upper bound on the Crawl-delay of a host, so one robots.txt cannot stall a crawl */
+    private Duration maxCrawlDelay = Duration.ofSeconds(30);
+  }
+
+  /** Connection pool, timeouts and protocols of the http client used to fetch pages */
+  @Data
+  public static class Http {
+    /** maximum pooled connections to any single host */
+    private int maxConnectionsPerHost = 8;
+    /** maximum requests waiting for a pooled connection to a host before they fail */
+    private int pendingAcquireMaxCount = 512;
+    /** maximum time a request waits for a pooled connection */
+    private Duration pendingAcquireTimeout = Duration.ofSeconds(30);
+    /** time after which an idle pooled connection is closed */
+    private Duration maxIdleTime = Duration.ofSeconds(30);
+    /** time after which a pooled connection is closed once idle, however much it is used */
+    private Duration maxLifeTime = Duration.ofMinutes(5);
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    /** maximum time from sending a request to receiving the response status and headers */
+    private Duration responseTimeout = Duration.ofSeconds(15);
+    /** maximum time without receiving any data while a request is in progress */
+    private Duration readTimeout = Duration.ofSeconds(15);
+    /** maximum time to write a request */
+    private Duration writeTimeout = Duration.ofSeconds(10);
+    /** protocols to negotiate, H2 over TLS and H2C over cleartext in addition to HTTP11 */
+    private List<HttpProtocol> protocols = List.of(HttpProtocol.HTTP11);
+    /** request gzip and deflate compressed responses */
+    private boolean compress = true;
+    /** record connection pool and request metrics */
+    private boolean metrics = true;
+  }
+
+  /** Where crawl progress and page validators are recorded */
+  @Data
+  public static class State {
+    /** memory, or file to keep them across restarts */
+    private String store = "memory";
+    /** directory of the file store */
+    private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "linkchecker");
+    /** completed crawls kept for their results, oldest first to be forgotten */
+    private int maxRetainedCrawls = 100;
+    /** pages whose validators are kept, oldest first to be forgotten */
+    private int maxValidators = 100_000;
+  }
+
+  /** Crawls submitted to run in the background, polled for their progress and report */
+  @Data
+  public static class Jobs {
+    /** crawls running at once, later ones wait in a queue */
+    private int maxConcurrentCrawls = 4;
+    /** crawls waiting to start before further submissions are rejected */
+    private int maxQueuedCrawls = 100;
+    /** finished jobs kept with their reports, oldest first to be forgotten */
+    private int maxRetainedJobs = 100;
+  }
+
+  /** Roots checked together in one batch, sharing their fetches */
+  @Data
+  public static class Batch {
+    /** roots of a batch crawled at once, the rest starting as they finish */
+    private int maxConcurrentRoots = 8;
+  }
+
+  /**
+   * Instances of the service crawling together, each owning the hosts a consistent hash ring assigns it, and
+   * exchanging the links they find over http
+   */
+  @Data
+  public static class Cluster {
+    private boolean enabled = false;
+    /** base uri the other nodes reach this one at, one of the nodes */
+    private String self;
+    /** base uris of every node, this one included, listed the same on all of them */
+    private List<String> nodes = List.of();
+    /** points each node has on the hash ring; more spread hosts more evenly */
+    private int virtualNodes = 128;
+    /** links and results sent to another node at once */
+    private int batchSize = 512;
+    /** longest a found link or result waits for its batch to fill before it is sent */
+    private Duration batchDelay = Duration.ofMillis(20);
+    /** maximum time for another node to answer a batch */
+    private Duration requestTimeout = Duration.ofSeconds(30);
+    /**
+     * longest a partition of a crawl coordinated by another node is kept without links arriving or fetches
+     * completing, should the coordinator never release it
+     */
+    private Duration partitionIdleTimeout = Duration.ofMinutes(10);
+  }
+
+  /** Responses kept in crawl reports; their statistics always count every response */
+  @Data
+  public static class Report {
+    public enum Responses { ALL, NOT_OK, NONE }
+
+    /** all responses, only those not 2xx or 304, or none */
+    private Responses responses = Responses.ALL;
+    /** most responses kept, preferring those not ok and then the slowest; 0 for no limit */
+    private int maxResponses = 0;
+  }
+
+  /** Meters of the crawl hot paths, exported with the rest at /actuator/metrics and /actuator/prometheus */
+  @Data
+  public static class Metrics {
+    /** tag fetch timers with the host; turn off for crawls spanning so many hosts the series would be too many */
+    private boolean hostTags = true;
+  }
+
+  /** Threads the html of fetched pages is parsed on, off the event loops that receive it */
+  @Data
+  public static class Parse {
+    /** parse on a pool of its own rather than on the event loop thread that received the body */
+    private boolean dedicatedScheduler = false;
+    /** threads of the pool; 0 for one per core */
+    private int threads = 0;
+    /** parse tasks queued for a thread at most, and so pages parsed at once, the rest waiting to be read */
+    private int queueCapacity = 256;
+  }
+}
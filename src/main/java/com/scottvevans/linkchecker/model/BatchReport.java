@@ -0,0 +1,17 @@
+package com.scottvevans.linkchecker.model;
+
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/** One CrawlerReport per root of a batch, and the broken links of all of them merged by URI */
+@Data
+@RequiredArgsConstructor
+public class BatchReport {
+  private final long elaspedTimeInMillis;
+  /** distinct URIs fetched for the whole batch, however many of its roots reached them */
+  private final int uniqueURIsFetched;
+  private final List<CrawlerReport> reports;
+  private final List<BrokenLink> brokenLinks;
+}
@@ -0,0 +1,20 @@
+package com.scottvevans.linkchecker.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/** The roots to check together in one batch */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchRequest {
+  @NotEmpty(message = "roots are required")
+  @Size(max = 1000, message = "at most 1000 roots can be checked in a batch")
+  private List<@Valid CrawlRequest> roots;
+}
@@ -0,0 +1,16 @@
+package com.scottvevans.linkchecker.model;
+
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Set;
+
+/** A URI that failed or answered 4xx or 5xx, with every root of a batch whose crawl reached it */
+@Data
+@RequiredArgsConstructor
+public class BrokenLink {
+  private final String uri;
+  private final int httpStatus;
+  private final String message;
+  private final Set<String> rootURIs;
+}
@@ -0,0 +1,23 @@
+package com.scottvevans.linkchecker.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Links of a clustered crawl sent to the node owning their hosts, with what the node needs to crawl them: the
+ * coordinator to report to, and the crawl's root, depth and scope
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterLinks {
+  private String coordinator;
+  private String rootURI;
+  private int maxDepth;
+  private CrawlScope scope;
+  /** each link with the depth it was found at */
+  private Map<String, Integer> links;
+}
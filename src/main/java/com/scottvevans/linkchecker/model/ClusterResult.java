@@ -0,0 +1,49 @@
+package com.scottvevans.linkchecker.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Set;
+
+/** A PageResponse fetched by a node of a clustered crawl, as sent to its coordinator, without its links */
+@Data
+@NoArgsConstructor
+public class ClusterResult {
+  private String uri;
+  private int httpStatus;
+  private String message;
+  private String method;
+  private long fetchTimeInMillis;
+  private int retries;
+  private List<RedirectHop> redirects;
+  private String redirectedURI;
+  private int depth;
+  /** a page fetched again for its links after it was reached by a shorter path, so not reported again */
+  private boolean refetch;
+
+  public static ClusterResult of(PageResponse response, int depth, boolean refetch) {
+    var result = new ClusterResult();
+    result.setUri(response.getUri());
+    result.setHttpStatus(response.getHttpStatus());
+    result.setMessage(response.getMessage());
+    result.setMethod(response.getMethod());
+    result.setFetchTimeInMillis(response.getFetchTimeInMillis());
+    result.setRetries(response.getRetries());
+    result.setRedirects(response.getRedirects().isEmpty() ? null : response.getRedirects());
+    result.setRedirectedURI(response.getRedirectedURI());
+    result.setDepth(depth);
+    result.setRefetch(refetch);
+    return result;
+  }
+
+  public PageResponse toPageResponse() {
+    var response = new PageResponse(uri, httpStatus, message, Set.of());
+    if (method != null) response.setMethod(method);
+    response.setFetchTimeInMillis(fetchTimeInMillis);
+    response.setRetries(retries);
+    if (redirects != null) response.setRedirects(redirects);
+    response.setRedirectedURI(redirectedURI);
+    return response;
+  }
+}
@@ -0,0 +1,19 @@
+package com.scottvevans.linkchecker.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A batch sent by a node to the coordinator of a clustered crawl: the pages it has fetched, and how many new
+ * pages it has accepted to fetch, so the coordinator knows when no page remains anywhere
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterResults {
+  private int accepted;
+  private List<ClusterResult> results;
+}
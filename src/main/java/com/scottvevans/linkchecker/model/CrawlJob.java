@@ -0,0 +1,25 @@
+package com.scottvevans.linkchecker.model;
+
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Map;
+
+/** Snapshot of an asynchronous crawl job and its progress so far */
+@Data
+@RequiredArgsConstructor
+public class CrawlJob {
+  public enum Status { QUEUED, RUNNING, COMPLETED, CANCELLED, FAILED }
+
+  private final String id;
+  private final String rootURI;
+  private final int depth;
+  private final Status status;
+  private final long elaspedTimeInMillis;
+  private final int pagesCrawled;
+  /** uris discovered and waiting for, or in the middle of, a fetch */
+  private final int frontierSize;
+  private final Map<Integer, Integer> statusCounts;
+  /** reason the job failed, otherwise null */
+  private final String message;
+}
@@ -0,0 +1,29 @@
+package com.scottvevans.linkchecker.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+
+/** A root URI to crawl and the depth to crawl it to, one of the roots of a batch */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CrawlRequest {
+  @NotBlank(message = "uri is required")
+  private String uri;
+  @Min(value = 1, message = "depth must be a positive number <= 5")
+  @Max(value = 5, message = "depth must be a positive number <= 5")
+  private int depth;
+  /** links crawled from this root, or the configured default scope when not given */
+  @Valid
+  private CrawlScope scope;
+
+  public CrawlRequest(String uri, int depth) {
+    this(uri, depth, null);
+  }
+}
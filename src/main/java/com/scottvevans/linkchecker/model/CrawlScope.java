@@ -0,0 +1,47 @@
+package com.scottvevans.linkchecker.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Which of the links a crawl finds are part of the site being checked. Those in scope are fetched and expanded;
+ * those out of scope are only checked for their status, with HEAD where possible, and never parsed for links.
+ *
+ * A link is in scope when it matches the mode or any of the include patterns, and none of the exclude patterns.
+ * The root of a crawl is always in scope.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CrawlScope {
+  /** patterns a scope may give of each kind, as every pattern is tried on every link a crawl discovers */
+  public static final int MAX_PATTERNS = 16;
+  public static final int MAX_PATTERN_LENGTH = 256;
+  public static final String PATTERNS_MESSAGE = "include and exclude take at most " + MAX_PATTERNS
+      + " patterns of at most " + MAX_PATTERN_LENGTH + " characters each";
+
+  public enum Mode {
+    /** links to the root's host */
+    HOST,
+    /** links to the root's registrable domain, e.g. docs.acme.co.uk from www.acme.co.uk */
+    DOMAIN,
+    /** links to the root's host under the directory of the root's path */
+    PREFIX,
+    /** only the links matching an include pattern */
+    NONE,
+    /** every link, crawling whatever sites the pages link to */
+    ALL
+  }
+
+  private Mode mode = Mode.HOST;
+  /** regular expressions found anywhere in a link that bring it in scope */
+  @Size(max = MAX_PATTERNS, message = PATTERNS_MESSAGE)
+  private List<@Size(max = MAX_PATTERN_LENGTH, message = PATTERNS_MESSAGE) String> include = List.of();
+  /** regular expressions found anywhere in a link that take it out of scope */
+  @Size(max = MAX_PATTERNS, message = PATTERNS_MESSAGE)
+  private List<@Size(max = MAX_PATTERN_LENGTH, message = PATTERNS_MESSAGE) String> exclude = List.of();
+}
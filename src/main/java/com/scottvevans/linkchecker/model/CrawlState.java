@@ -0,0 +1,39 @@
+package com.scottvevans.linkchecker.model;
+
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Recorded progress of a crawl: its frontier and visited set as discovery depths, and the responses so far */
+@Data
+@RequiredArgsConstructor
+public class CrawlState {
+  private final String crawlId;
+  private final String rootURI;
+  private final int maxDepth;
+  private boolean completed;
+  /** shortest depth each uri has been discovered at; uris without a response are still to be fetched */
+  private final Map<String, Integer> depths = new LinkedHashMap<>();
+  /** latest response of each fetched uri, including its links */
+  private final Map<String, PageResponse> responses = new LinkedHashMap<>();
+
+  /** Records a discovery, keeping the shortest depth */
+  public void discovered(String uri, int depth) {
+    depths.merge(uri, depth, Math::min);
+  }
+
+  public void fetched(PageResponse response) {
+    responses.put(response.getUri(), response);
+  }
+
+  /** A snapshot that does not change as this state is recorded further */
+  public CrawlState copy() {
+    var copy = new CrawlState(crawlId, rootURI, maxDepth);
+    copy.completed = completed;
+    copy.depths.putAll(depths);
+    copy.responses.putAll(responses);
+    return copy;
+  }
+}
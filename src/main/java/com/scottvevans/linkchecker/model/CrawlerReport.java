@@ -6,6 +6,10 @@ import lombok.RequiredArgsConstructor;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Statistics of a crawl, counted as its responses arrived, and the responses themselves, all of them unless the
+ * report was configured to keep only some
+ */
 @Data
 @RequiredArgsConstructor
 public class CrawlerReport {
@@ -15,4 +19,9 @@ public class CrawlerReport {
   private final int totalPagesCrawled;
   private final Map<Integer, Integer> statusCounts;
   private final List<PageResponse> responses;
+  private Map<String, Integer> hostCounts;
+  private Map<Integer, Integer> depthCounts;
+  private LatencySummary latency;
+  /** responses counted in the statistics but not kept in responses */
+  private int responsesOmitted;
 }
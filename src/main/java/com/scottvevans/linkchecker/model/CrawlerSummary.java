@@ -0,0 +1,17 @@
+package com.scottvevans.linkchecker.model;
+
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Map;
+
+/** Closing statistics of a streamed crawl, the CrawlerReport without the individual responses */
+@Data
+@RequiredArgsConstructor
+public class CrawlerSummary {
+  private final String rootURI;
+  private final int depth;
+  private final long elaspedTimeInMillis;
+  private final int totalPagesCrawled;
+  private final Map<Integer, Integer> statusCounts;
+}
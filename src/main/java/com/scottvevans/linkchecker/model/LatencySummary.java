@@ -0,0 +1,25 @@
+package com.scottvevans.linkchecker.model;
+
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Fetch times of the pages of a crawl as a histogram with fixed bucket bounds. Percentiles are estimated as the
+ * upper bound of the bucket they fall in, never more than the maximum.
+ */
+@Data
+@RequiredArgsConstructor
+public class LatencySummary {
+  private final long count;
+  private final long meanMillis;
+  private final long maxMillis;
+  private final long p50Millis;
+  private final long p90Millis;
+  private final long p99Millis;
+  /** inclusive upper bounds of the buckets */
+  private final List<Long> bucketBoundsMillis;
+  /** fetches in each bucket, with one more bucket than bounds for those slower than the last bound */
+  private final List<Long> bucketCounts;
+}
@@ -2,16 +2,59 @@ package com.scottvevans.linkchecker.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.RequiredArgsConstructor;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Set;
 
 @Data
 @RequiredArgsConstructor
 public class PageResponse {
+  /** status of a page not fetched because the robots.txt of its host disallows it */
+  public static final int DISALLOWED_BY_ROBOTS = -2;
+
   private final String uri;
   private final int httpStatus;
   private final String message;
   @JsonIgnore
   private final Set<String> links;
+  /** request method used, HEAD when the page was only probed for its status */
+  @EqualsAndHashCode.Exclude
+  private String method = "GET";
+  /** true when the page is html but was only probed, so its links were not retrieved */
+  @JsonIgnore
+  @EqualsAndHashCode.Exclude
+  private boolean linksOmitted;
+  /** times the page was fetched again after a transient failure before this response */
+  @EqualsAndHashCode.Exclude
+  private int retries;
+  /** set when the failure is transient, so the page may be fetched again, no sooner than this */
+  @JsonIgnore
+  @EqualsAndHashCode.Exclude
+  private Duration retryAfter;
+  /** redirects followed from this uri to the page this is the response of, in order; empty when not redirected */
+  @EqualsAndHashCode.Exclude
+  private List<RedirectHop> redirects = List.of();
+  /** the page the redirects ended at, null when not redirected */
+  @EqualsAndHashCode.Exclude
+  private String redirectedURI;
+  /** time from sending the request that produced this response to its completion, even when later cached */
+  @EqualsAndHashCode.Exclude
+  private long fetchTimeInMillis;
+
+  /** This response reported under an equivalent URI, such as one differing only by fragment or query order */
+  public PageResponse forURI(String uri) {
+    if (this.uri.equals(uri)) return this;
+    var response = new PageResponse(uri, httpStatus, message, links);
+    response.setMethod(method);
+    response.setLinksOmitted(linksOmitted);
+    response.setFetchTimeInMillis(fetchTimeInMillis);
+    response.setRetries(retries);
+    response.setRetryAfter(retryAfter);
+    response.setRedirects(redirects);
+    response.setRedirectedURI(redirectedURI);
+    return response;
+  }
 }
@@ -0,0 +1,15 @@
+package com.scottvevans.linkchecker.model;
+
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Set;
+
+/** Cache validators of the last successful fetch of a page, with the links found in it then */
+@Data
+@RequiredArgsConstructor
+public class PageValidators {
+  private final String etag;
+  private final String lastModified;
+  private final Set<String> links;
+}
@@ -0,0 +1,14 @@
+package com.scottvevans.linkchecker.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** A URI that redirected a fetch on to another, with the status it redirected with */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RedirectHop {
+  private String uri;
+  private int httpStatus;
+}
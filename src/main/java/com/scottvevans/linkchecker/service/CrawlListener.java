@@ -0,0 +1,23 @@
+package com.scottvevans.linkchecker.service;
+
+import com.scottvevans.linkchecker.model.PageResponse;
+
+/**
+ * Observes a crawl as it progresses, in the order things happen. Called while the frontier is updated, so
+ * implementations must be quick and must not block.
+ */
+public interface CrawlListener {
+  CrawlListener NONE = new CrawlListener() {};
+
+  /** A URI discovered for the first time, or again at a shorter depth than before */
+  default void discovered(String uri, int depth) {}
+
+  /** Every fetch, including refetches of pages already reported to retrieve their links */
+  default void fetched(PageResponse response) {}
+
+  /** Each response the crawl emits, once per unique URI, with the depth it was found at */
+  default void reported(PageResponse response, int depth) {}
+
+  /** The number of URIs queued or being fetched, whenever it may have changed */
+  default void frontierChanged(int size) {}
+}
@@ -0,0 +1,40 @@
+package com.scottvevans.linkchecker.service;
+
+import com.scottvevans.linkchecker.model.CrawlState;
+import com.scottvevans.linkchecker.model.PageResponse;
+import com.scottvevans.linkchecker.model.PageValidators;
+
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Records the progress of crawls by id so they can be resumed, and the validators of fetched pages so later
+ * crawls can revalidate them instead of downloading them again
+ */
+public interface CrawlStateStore {
+  Pattern CRAWL_ID_PATTERN = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+  /** The recorded state of the crawl, starting to record a new one with the given root and depth if there is none */
+  CrawlState open(String crawlId, String rootURI, int maxDepth);
+
+  Optional<CrawlState> find(String crawlId);
+
+  void discovered(String crawlId, String uri, int depth);
+
+  void fetched(String crawlId, PageResponse response);
+
+  void completed(String crawlId);
+
+  void delete(String crawlId);
+
+  /** Validators are keyed by normalized URI, independently of any crawl */
+  Optional<PageValidators> getValidators(String uri);
+
+  void putValidators(String uri, PageValidators validators);
+
+  static String requireValidCrawlId(String crawlId) {
+    if (crawlId == null || !CRAWL_ID_PATTERN.matcher(crawlId).matches())
+      throw new IllegalArgumentException("crawlId must be 1 to 64 letters, digits, '-' or '_'");
+    return crawlId;
+  }
+}
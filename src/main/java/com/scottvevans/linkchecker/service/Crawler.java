@@ -1,9 +1,37 @@
 package com.scottvevans.linkchecker.service;
 
+import com.scottvevans.linkchecker.model.BatchReport;
+import com.scottvevans.linkchecker.model.CrawlRequest;
+import com.scottvevans.linkchecker.model.CrawlScope;
 import com.scottvevans.linkchecker.model.CrawlerReport;
+import com.scottvevans.linkchecker.model.PageResponse;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 /** Crawls an absolute URI looking for links and validating them in to a maximum depth */
 public interface Crawler {
   Mono<CrawlerReport> crawl(int maxDepth, String uri);
+
+  /** Crawls only the links in scope, checking the status of the others without expanding them */
+  Mono<CrawlerReport> crawl(int maxDepth, String uri, CrawlScope scope);
+
+  /**
+   * Crawls each root to its own depth, fetching a URI reached from several roots only once, and reports on each
+   * root separately as well as on the broken links of all of them together
+   */
+  Mono<BatchReport> crawl(List<CrawlRequest> roots);
+
+  /** Emits the PageResponse of each unique URI as soon as it completes, without retaining them */
+  Flux<PageResponse> stream(int maxDepth, String uri);
+
+  /** Like stream, notifying the listener of discoveries, fetches and the size of the frontier as they happen */
+  Flux<PageResponse> stream(int maxDepth, String uri, CrawlListener listener);
+
+  /**
+   * Like stream, but records the progress of the crawl under the given id; if a crawl with this id was recorded
+   * before, it is resumed instead, emitting the responses it already has and fetching only what remains
+   */
+  Flux<PageResponse> stream(String crawlId, int maxDepth, String uri);
 }
@@ -1,17 +1,51 @@
 package com.scottvevans.linkchecker.service;
 
 import com.scottvevans.linkchecker.util.URIHelper;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.nio.charset.Charset;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /** Scans html content for links */
 public interface HtmlParser {
+  /** time to normalize the links of each page, recorded in the global registry Spring Boot adds its own to */
+  String NORMALIZE_METRIC = "linkchecker.parse.normalize";
 
   /** Given a list of links from an implementation, normalizes them into a set of unique URIs */
   default Set<String> findUniqueLinks(String uri, String html) {
-    final List<String> links = findLinks(uri, html);
+    return toUniqueLinks(uri, findLinks(uri, html));
+  }
+
+  /**
+   * Finds the unique links in a response body of at most maxBytes. By default the body is buffered into a String;
+   * implementations able to scan the body as it arrives should override this.
+   */
+  default Mono<Set<String>> findUniqueLinks(String uri, Flux<DataBuffer> body, Charset charset, int maxBytes) {
+    return DataBufferUtils.join(body, maxBytes)
+        .map(buffer -> {
+          try {
+            return buffer.toString(charset);
+          } finally {
+            DataBufferUtils.release(buffer);
+          }
+        })
+        .defaultIfEmpty("")
+        .map(html -> findUniqueLinks(uri, html));
+  }
+
+  /** Find all a href links in the html, including internal and external links */
+  List<String> findLinks(String uri, String html);
+
+  /** Normalizes links into a set of unique URIs, excluding the page's own URI */
+  static Set<String> toUniqueLinks(String uri, List<String> links) {
+    long start = System.nanoTime();
     final Set<String> set = new LinkedHashSet<>();
 
     for (var link: links) {
@@ -20,9 +54,7 @@ public interface HtmlParser {
 
     set.remove(URIHelper.normalizeURI(uri));
 
+    Metrics.timer(NORMALIZE_METRIC).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
     return set;
   }
-
-  /** Find all a href links in the html, including internal and external links */
-  List<String> findLinks(String uri, String html);
 }
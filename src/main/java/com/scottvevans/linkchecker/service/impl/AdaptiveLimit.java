@@ -0,0 +1,76 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+
+/**
+ * Concurrency limit of one host adapted to how it answers, in the manner of TCP Vegas. The latency of each request
+ * is compared with the lowest seen, the host's latency without load. Each request moves the limit a fifth of the
+ * way to an estimate: while the smoothed latency stays within the tolerance of the baseline, one more than the limit
+ * if the request found at least half of it in use, so the limit grows by a fifth per such request; as latency rises
+ * beyond that, the limit scaled down in proportion. A timeout, connection failure or a status asking us to slow
+ * down cuts the limit by the backoff ratio at once.
+ *
+ * Not thread safe; the host scheduler updates it under its lock.
+ */
+final class AdaptiveLimit {
+  /** weight of each new latency in the smoothed latency */
+  private static final double LATENCY_SMOOTHING = 0.2;
+  /** rate the baseline latency follows higher latencies, so it tracks a host whose latency without load changes */
+  private static final double BASELINE_DRIFT = 0.01;
+  /** weight of each new estimate in the limit, so a single slow request does not halve it */
+  private static final double LIMIT_SMOOTHING = 0.2;
+  private static final double MIN_GRADIENT = 0.5;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final double latencyTolerance;
+  private final double backoffRatio;
+  private double limit;
+  private double smoothedNanos = -1;
+  private double baselineNanos = -1;
+  private long lastCutNanos;
+  private boolean cut;
+
+  AdaptiveLimit(int initialLimit, LinkCheckerProperties.AdaptiveConcurrency settings) {
+    this(initialLimit, settings.getMaxLimit(), settings);
+  }
+
+  /** Creates a limit never above the given maximum, nor the configured one */
+  AdaptiveLimit(int initialLimit, int maxLimit, LinkCheckerProperties.AdaptiveConcurrency settings) {
+    this.maxLimit = Math.min(maxLimit, settings.getMaxLimit());
+    this.minLimit = Math.min(settings.getMinLimit(), this.maxLimit);
+    this.latencyTolerance = settings.getLatencyTolerance();
+    this.backoffRatio = settings.getBackoffRatio();
+    this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+  }
+
+  int get() {
+    return (int) limit;
+  }
+
+  /**
+   * Adapts the limit to a request that ran between the given nano times, with the given number of requests to the
+   * host in flight including it, and whether its outcome showed the host overloaded. Requests started before the
+   * last cut do not cut the limit again, so a burst of failures cuts it once.
+   */
+  void onSample(long startNanos, long endNanos, int inFlight, boolean overloaded) {
+    if (overloaded) {
+      if (cut && startNanos - lastCutNanos < 0) return;
+      limit = Math.max(minLimit, limit * backoffRatio);
+      lastCutNanos = endNanos;
+      cut = true;
+      return;
+    }
+    long latencyNanos = endNanos - startNanos;
+    smoothedNanos = smoothedNanos < 0
+        ? latencyNanos
+        : smoothedNanos + LATENCY_SMOOTHING * (latencyNanos - smoothedNanos);
+    baselineNanos = baselineNanos < 0 || latencyNanos < baselineNanos
+        ? latencyNanos
+        : baselineNanos + BASELINE_DRIFT * (latencyNanos - baselineNanos);
+
+    double gradient = Math.max(MIN_GRADIENT, Math.min(1, latencyTolerance * baselineNanos / smoothedNanos));
+    double estimate = limit * gradient + (gradient == 1 && inFlight * 2 >= limit ? 1 : 0);
+    limit = Math.max(minLimit, Math.min(maxLimit, limit + LIMIT_SMOOTHING * (estimate - limit)));
+  }
+}
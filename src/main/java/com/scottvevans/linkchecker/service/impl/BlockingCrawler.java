@@ -0,0 +1,65 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import com.scottvevans.linkchecker.service.CrawlStateStore;
+import com.scottvevans.linkchecker.service.HtmlParser;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+
+/**
+ * Crawler sending its requests with java.net.http, each request and each read of a body blocking a thread of a
+ * bounded pool. Only the transport is replaced: the frontier, scheduling, caches, robots.txt, retries, redirects and
+ * parsing are the reactive crawler's and still run on Reactor, so both engines find the same pages and only the
+ * exchange of each request differs. Selected with linkchecker.fetch.engine=blocking, which makes it the crawler
+ * cluster mode fetches through as well.
+ *
+ * A crawl cancelled while fetching leaves its fetches to finish, for any crawl joining them and for the cache, so
+ * an interrupted request never stands in for a page's response.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "linkchecker.fetch.engine", havingValue = "blocking")
+public class BlockingCrawler extends CrawlerImpl {
+  private final BlockingHttpConnector connector;
+
+  /** Creates a crawler with its own caches, scheduler and in memory state store, not registering any metrics */
+  public BlockingCrawler(HtmlParser parser, LinkCheckerProperties properties) {
+    this(parser, properties, new SimpleMeterRegistry());
+  }
+
+  public BlockingCrawler(HtmlParser parser, LinkCheckerProperties properties, MeterRegistry registry) {
+    this(parser, properties, new HostScheduler(properties, registry), new LinkStatusCache(properties, registry),
+        new RobotsCache(properties, registry), new RedirectMap(properties, registry), new InFlightRequests(registry),
+        new InMemoryCrawlStateStore(properties), new CrawlMetrics(properties, registry),
+        new ParseScheduler(properties, registry));
+  }
+
+  @Autowired
+  public BlockingCrawler(HtmlParser parser, LinkCheckerProperties properties, HostScheduler scheduler,
+                         LinkStatusCache cache, RobotsCache robots, RedirectMap redirects, InFlightRequests inFlight,
+                         CrawlStateStore stateStore, CrawlMetrics metrics, ParseScheduler parseScheduler) {
+    this(parser, properties, scheduler, cache, robots, redirects, inFlight, stateStore, metrics, parseScheduler,
+        new BlockingHttpConnector(properties.getHttp(), properties.getFetch().getBlockingThreads(),
+            properties.getFetch().getBlockingQueueCapacity()));
+  }
+
+  private BlockingCrawler(HtmlParser parser, LinkCheckerProperties properties, HostScheduler scheduler,
+                          LinkStatusCache cache, RobotsCache robots, RedirectMap redirects, InFlightRequests inFlight,
+                          CrawlStateStore stateStore, CrawlMetrics metrics, ParseScheduler parseScheduler,
+                          BlockingHttpConnector connector) {
+    super(parser, properties, scheduler, cache, robots, redirects, inFlight, stateStore, metrics, parseScheduler,
+        connector);
+    this.connector = connector;
+  }
+
+  @PreDestroy
+  public void close() {
+    connector.close();
+  }
+}
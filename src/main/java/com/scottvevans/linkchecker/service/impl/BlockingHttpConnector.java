@@ -0,0 +1,288 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.client.reactive.AbstractClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpResponse;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.HttpProtocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Sends requests with java.net.http, each request and each read of a response body blocking a thread of a bounded
+ * pool, configured from the same http settings as the Reactor Netty client: HTTP/2 when the protocols include H2
+ * or H2C, compressed responses when compress is set, and the connect, response and read timeouts.
+ *
+ * Requests and body reads beyond the threads wait in a bounded queue, and fail with RejectedExecutionException once
+ * it is full rather than piling up.
+ *
+ * Cancelling a request or its body interrupts the thread blocked on it. The interrupt is confined to that task, as
+ * the pool clears it before the thread's next task, and whatever the interrupted call returns or throws is dropped
+ * rather than published, so a cancelled request never stands in for the response of one.
+ */
+class BlockingHttpConnector implements ClientHttpConnector {
+  private static final int BUFFER_SIZE = 8192;
+  /** headers java.net.http sets itself and refuses to be given */
+  private static final Set<String> RESTRICTED_HEADERS =
+      Set.of("connection", "content-length", "date", "expect", "from", "host", "upgrade", "via", "warning");
+
+  private final HttpClient httpClient;
+  private final ThreadPoolExecutor executor;
+  private final Scheduler scheduler;
+  private final DataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+  private final Duration responseTimeout;
+  private final Duration readTimeout;
+  private final boolean compress;
+
+  BlockingHttpConnector(LinkCheckerProperties.Http http, int threads, int queueCapacity) {
+    if (threads < 1) throw new IllegalArgumentException("blockingThreads must be a positive integer");
+    if (queueCapacity < 1) throw new IllegalArgumentException("blockingQueueCapacity must be a positive integer");
+    boolean h2 = http.getProtocols().contains(HttpProtocol.H2) || http.getProtocols().contains(HttpProtocol.H2C);
+    this.httpClient = HttpClient.newBuilder()
+        .version(h2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+        .followRedirects(HttpClient.Redirect.NEVER)
+        .connectTimeout(http.getConnectTimeout())
+        .build();
+    this.responseTimeout = http.getResponseTimeout();
+    this.readTimeout = http.getReadTimeout();
+    this.compress = http.isCompress();
+
+    var threadCount = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        runnable -> {
+          var thread = new Thread(runnable, "blocking-fetch-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+    executor.allowCoreThreadTimeOut(true);
+    this.scheduler = Schedulers.fromExecutorService(executor);
+  }
+
+  void close() {
+    executor.shutdownNow();
+  }
+
+  @Override
+  public Mono<ClientHttpResponse> connect(HttpMethod method, URI uri,
+                                          Function<? super ClientHttpRequest, Mono<Void>> requestCallback) {
+    var request = new BlockingRequest(method, uri);
+    return requestCallback.apply(request)
+        .then(call(() -> send(request), BlockingResponse::close))
+        .cast(ClientHttpResponse.class);
+  }
+
+  private BlockingResponse send(BlockingRequest request) throws IOException, InterruptedException {
+    var builder = HttpRequest.newBuilder(request.getURI())
+        .method(request.getMethod().name(), request.body.length == 0
+            ? HttpRequest.BodyPublishers.noBody()
+            : HttpRequest.BodyPublishers.ofByteArray(request.body))
+        .timeout(responseTimeout);
+    request.getHeaders().forEach((name, values) -> {
+      if (!RESTRICTED_HEADERS.contains(name.toLowerCase())) values.forEach(value -> builder.header(name, value));
+    });
+    if (compress && !request.getHeaders().containsKey(HttpHeaders.ACCEPT_ENCODING))
+      builder.header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+    return new BlockingResponse(httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream()));
+  }
+
+  /**
+   * Runs a blocking call on a thread of the pool, interrupting it when cancelled, or fails when the queue is full.
+   * Once cancelled, what the call returns is discarded and what it throws is ignored, as nobody is waiting for either.
+   */
+  private <T> Mono<T> call(Callable<T> call, Consumer<T> discard) {
+    return Mono.create(sink -> {
+      var settled = new AtomicBoolean();
+      Future<?> task;
+      try {
+        task = executor.submit(() -> {
+          try {
+            var result = call.call();
+            if (settled.compareAndSet(false, true)) sink.success(result);
+            else discard.accept(result);
+          } catch (Exception ex) {
+            if (settled.compareAndSet(false, true)) sink.error(ex);
+          }
+        });
+      } catch (RejectedExecutionException ex) {
+        sink.error(ex);
+        return;
+      }
+      sink.onCancel(() -> {
+        if (settled.compareAndSet(false, true)) task.cancel(true);
+      });
+    });
+  }
+
+  /** A request whose headers and body are collected to send with java.net.http once it is committed */
+  private class BlockingRequest extends AbstractClientHttpRequest {
+    private final HttpMethod method;
+    private final URI uri;
+    private byte[] body = new byte[0];
+
+    private BlockingRequest(HttpMethod method, URI uri) {
+      this.method = method;
+      this.uri = uri;
+    }
+
+    @Override
+    public HttpMethod getMethod() {
+      return method;
+    }
+
+    @Override
+    public URI getURI() {
+      return uri;
+    }
+
+    @Override
+    public DataBufferFactory bufferFactory() {
+      return bufferFactory;
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+      return DataBufferUtils.join(body)
+          .doOnNext(buffer -> {
+            this.body = new byte[buffer.readableByteCount()];
+            buffer.read(this.body);
+            DataBufferUtils.release(buffer);
+          })
+          .then(doCommit());
+    }
+
+    @Override
+    public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+      return writeWith(Flux.from(body).flatMap(buffers -> buffers));
+    }
+
+    @Override
+    public Mono<Void> setComplete() {
+      return doCommit();
+    }
+
+    @Override
+    protected void applyHeaders() {
+      // copied to the java.net.http request as it is built
+    }
+
+    @Override
+    protected void applyCookies() {
+      var cookies = getCookies().values().stream().flatMap(List::stream).map(HttpCookie::toString)
+          .collect(joining("; "));
+      if (!cookies.isEmpty()) getHeaders().set(HttpHeaders.COOKIE, cookies);
+    }
+  }
+
+  /**
+   * A response whose body is read on the pool as it is requested, failing once the read timeout passes without
+   * any of it arriving, and decoded when it was compressed
+   */
+  private class BlockingResponse implements ClientHttpResponse {
+    private final HttpResponse<InputStream> response;
+    private final HttpHeaders headers = new HttpHeaders();
+    private final String encoding;
+
+    private BlockingResponse(HttpResponse<InputStream> response) {
+      this.response = response;
+      response.headers().map().forEach(headers::addAll);
+      var contentEncoding = headers.getFirst(HttpHeaders.CONTENT_ENCODING);
+      if (compress && ("gzip".equalsIgnoreCase(contentEncoding) || "deflate".equalsIgnoreCase(contentEncoding))) {
+        this.encoding = contentEncoding.toLowerCase();
+        // the body is decoded as it is read, so its length is no longer known
+        headers.remove(HttpHeaders.CONTENT_ENCODING);
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+      } else {
+        this.encoding = null;
+      }
+    }
+
+    @Override
+    public HttpStatus getStatusCode() {
+      return HttpStatus.valueOf(response.statusCode());
+    }
+
+    @Override
+    public int getRawStatusCode() {
+      return response.statusCode();
+    }
+
+    @Override
+    public MultiValueMap<String, ResponseCookie> getCookies() {
+      // the crawler keeps no cookies
+      return new LinkedMultiValueMap<>();
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      return headers;
+    }
+
+    @Override
+    public Flux<DataBuffer> getBody() {
+      return DataBufferUtils.readInputStream(this::open, bufferFactory, BUFFER_SIZE)
+          .subscribeOn(scheduler)
+          .timeout(readTimeout)
+          // a body cancelled before the pool got to open it, as one being discarded is, still frees its connection
+          .doFinally(signal -> close());
+    }
+
+    /** The body, decoded when it was compressed; an empty one, as of a HEAD request, is left as it is */
+    private InputStream open() throws IOException {
+      if (encoding == null) return response.body();
+      var body = new PushbackInputStream(response.body());
+      int first = body.read();
+      if (first == -1) return body;
+      body.unread(first);
+      return encoding.equals("gzip") ? new GZIPInputStream(body, BUFFER_SIZE) : new InflaterInputStream(body);
+    }
+
+    private void close() {
+      try {
+        response.body().close();
+      } catch (IOException ex) {
+        // the connection is dropped either way
+      }
+    }
+  }
+}
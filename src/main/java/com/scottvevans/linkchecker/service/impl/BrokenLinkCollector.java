@@ -0,0 +1,42 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.model.BrokenLink;
+import com.scottvevans.linkchecker.model.PageResponse;
+import com.scottvevans.linkchecker.util.URIHelper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The failed and 4xx or 5xx responses of a batch's crawls as they are reported, merged by normalized URI with the
+ * roots whose crawls reached them, however few responses the reports themselves keep
+ */
+final class BrokenLinkCollector {
+  // guarded by this
+  private final Map<String, PageResponse> broken = new TreeMap<>();
+  private final Map<String, Set<String>> rootURIs = new HashMap<>();
+
+  static boolean isBroken(PageResponse response) {
+    return response.getHttpStatus() == -1 || response.getHttpStatus() >= 400;
+  }
+
+  synchronized void add(String rootURI, PageResponse response) {
+    if (!isBroken(response)) return;
+    var key = URIHelper.normalizeURI(response.getUri());
+    broken.putIfAbsent(key, response);
+    rootURIs.computeIfAbsent(key, k -> new TreeSet<>()).add(rootURI);
+  }
+
+  /** The broken links in normalized URI order */
+  synchronized List<BrokenLink> toBrokenLinks() {
+    List<BrokenLink> brokenLinks = new ArrayList<>(broken.size());
+    broken.forEach((key, response) -> brokenLinks.add(new BrokenLink(response.getUri(), response.getHttpStatus(),
+        response.getMessage(), rootURIs.get(key))));
+    return brokenLinks;
+  }
+}
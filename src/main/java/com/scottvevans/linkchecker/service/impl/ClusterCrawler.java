@@ -0,0 +1,436 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import com.scottvevans.linkchecker.model.ClusterLinks;
+import com.scottvevans.linkchecker.model.ClusterResult;
+import com.scottvevans.linkchecker.model.ClusterResults;
+import com.scottvevans.linkchecker.model.CrawlScope;
+import com.scottvevans.linkchecker.model.CrawlerReport;
+import com.scottvevans.linkchecker.model.PageResponse;
+import com.scottvevans.linkchecker.util.URIHelper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.scottvevans.linkchecker.service.impl.FingerprintTable.fingerprint;
+
+/**
+ * Crawls spread over several instances of the service. Each host belongs to one node, chosen by a consistent hash
+ * ring every node builds from the same list, and each node keeps the partition of a crawl's frontier holding its
+ * hosts: it fetches them, politely as their only fetcher, and sends the links it finds to the nodes owning their
+ * hosts in batches over http. The node a crawl was started on coordinates it, merging the results every node
+ * sends it into the report.
+ *
+ * The coordinator counts the pages pending anywhere in the crawl. A node accepting new links registers them with
+ * the coordinator before acknowledging them, and reports a page only once the links it found have been
+ * acknowledged, so the count cannot reach zero while any page remains. Links a node cannot be reached for are
+ * reported as failed pages, and links the coordinator could not be told of are admitted again if sent again.
+ *
+ * The coordinator releases the partitions of a crawl on every node once it ends; a partition of a crawl coordinated
+ * elsewhere that has been idle for the partition idle timeout is released too, should that never happen.
+ *
+ * There is no broker: a cluster is a few instances listing each other, on one host or many, and the endpoints
+ * the nodes use are meant for the cluster's own network.
+ */
+@Service
+@ConditionalOnProperty(name = "linkchecker.cluster.enabled", havingValue = "true")
+@Slf4j
+public class ClusterCrawler {
+  static final String LINKS_PATH = "/cluster/crawls/{crawlId}/links";
+  static final String RESULTS_PATH = "/cluster/crawls/{crawlId}/results";
+  static final String CRAWL_PATH = "/cluster/crawls/{crawlId}";
+  private static final int NEEDS_LINKS = 1;
+  private static final int REFETCH = 2;
+  private static final int DEPTH_SHIFT = 2;
+  /** depths take three bits of an entry's state */
+  private static final int DEPTH_MASK = 7;
+  private static final int FETCHING = 1 << 3;
+  /** state of a page whose admission was reverted, admitted again as if it had never been */
+  private static final byte REVERTED = 1 << 4;
+  /** crawls released here, so late batches for them do not start them again */
+  private static final int MAX_RELEASED = 1024;
+
+  private final CrawlFrontier.Fetcher fetcher;
+  private final String self;
+  private final List<String> nodes;
+  private final HashRing ring;
+  private final int batchSize;
+  private final Duration batchDelay;
+  private final Duration requestTimeout;
+  private final long partitionIdleNanos;
+  private final int window;
+  private final CrawlScope defaultScope;
+  private final LinkCheckerProperties.Report reportSettings;
+  private final WebClient webClient;
+  private final Disposable idleSweep;
+  private final ConcurrentMap<String, Partition> partitions = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, CoordinatedCrawl> coordinated = new ConcurrentHashMap<>();
+  private final Set<String> released = Collections.synchronizedSet(Collections.newSetFromMap(
+      new LinkedHashMap<String, Boolean>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+          return size() > MAX_RELEASED;
+        }
+      }));
+
+  @Autowired
+  public ClusterCrawler(CrawlerImpl crawler, LinkCheckerProperties properties, WebClient.Builder webClientBuilder) {
+    this(crawler::fetch, properties, webClientBuilder);
+  }
+
+  ClusterCrawler(CrawlFrontier.Fetcher fetcher, LinkCheckerProperties properties, WebClient.Builder webClientBuilder) {
+    var cluster = properties.getCluster();
+    if (cluster.getSelf() == null || !cluster.getNodes().contains(cluster.getSelf()))
+      throw new IllegalArgumentException("cluster self must be one of the cluster nodes");
+    if (cluster.getBatchSize() < 1) throw new IllegalArgumentException("batchSize must be a positive integer");
+    if (cluster.getPartitionIdleTimeout().isNegative() || cluster.getPartitionIdleTimeout().isZero())
+      throw new IllegalArgumentException("partitionIdleTimeout must be positive");
+    this.fetcher = fetcher;
+    this.self = cluster.getSelf();
+    this.nodes = List.copyOf(cluster.getNodes());
+    this.ring = new HashRing(nodes, cluster.getVirtualNodes());
+    this.batchSize = cluster.getBatchSize();
+    this.batchDelay = cluster.getBatchDelay();
+    this.requestTimeout = cluster.getRequestTimeout();
+    this.partitionIdleNanos = cluster.getPartitionIdleTimeout().toNanos();
+    this.window = properties.getFetch().getFrontierWindow();
+    this.defaultScope = properties.getScope();
+    this.reportSettings = properties.getReport();
+    this.webClient = webClientBuilder.build();
+    long sweepMillis = Math.max(1, cluster.getPartitionIdleTimeout().toMillis() / 2);
+    this.idleSweep = Schedulers.parallel().schedulePeriodically(this::releaseIdlePartitions, sweepMillis, sweepMillis,
+        TimeUnit.MILLISECONDS);
+    log.info("cluster node {} of {}", self, nodes);
+  }
+
+  @PreDestroy
+  public void close() {
+    idleSweep.dispose();
+  }
+
+  /** Crawls the uri across the cluster, coordinated by this node, only expanding the links in scope */
+  public Mono<CrawlerReport> crawl(int maxDepth, String uri, CrawlScope scope) {
+    if (maxDepth < 1 || maxDepth > 5)
+      throw new IllegalArgumentException("maxDepth must be a positive integer <= 5");
+    var links = new ClusterLinks(self, uri, maxDepth, resolve(scope), Map.of(uri, 0));
+    return Mono.create(sink -> {
+      var crawlId = UUID.randomUUID().toString();
+      log.info("coordinating crawl {} of uri: {} depth: {} across {} nodes", crawlId, uri, maxDepth, nodes.size());
+      coordinated.put(crawlId, new CoordinatedCrawl(uri, maxDepth, sink));
+      sink.onDispose(() -> release(crawlId));
+      deliver(crawlId, ring.nodeFor(URIHelper.getHost(uri)), links).subscribe(accepted -> { }, sink::error);
+    });
+  }
+
+  /**
+   * Accepts links sent to this node, returning how many were new to its partition of the crawl once the
+   * coordinator has counted them, and starts fetching them
+   */
+  public Mono<Integer> accept(String crawlId, ClusterLinks links) {
+    return Mono.defer(() -> {
+      if (released.contains(crawlId)) return Mono.just(0);
+      var partition = partitions.computeIfAbsent(crawlId, id -> new Partition(id, links));
+      var admitted = partition.admit(links.getLinks());
+      if (admitted.isEmpty()) return Mono.just(0);
+      return report(crawlId, partition.coordinator, new ClusterResults(admitted.size(), List.of()))
+          // the coordinator is not counting the pages, so they are left for a later delivery to admit
+          .doOnError(ex -> partition.revert(admitted))
+          .then(Mono.fromRunnable(() -> partition.start(admitted)))
+          .thenReturn(admitted.size());
+    });
+  }
+
+  /** Merges results sent to this node as the coordinator of the crawl; false when it coordinates no such crawl */
+  public boolean results(String crawlId, ClusterResults results) {
+    var crawl = coordinated.get(crawlId);
+    if (crawl == null) return false;
+    crawl.merge(results);
+    return true;
+  }
+
+  /** Drops this node's partition of a crawl, cancelling its fetches */
+  public void release(String crawlId) {
+    released.add(crawlId);
+    var partition = partitions.remove(crawlId);
+    if (partition != null) partition.fetches.dispose();
+    if (coordinated.remove(crawlId) == null) return;
+    for (var node : nodes) {
+      if (node.equals(self)) continue;
+      webClient.delete().uri(node + CRAWL_PATH, crawlId).retrieve().bodyToMono(Void.class)
+          .timeout(requestTimeout)
+          .subscribe(done -> { }, ex -> log.warn("releasing crawl {} on {} failed: {}", crawlId, node, ex.toString()));
+    }
+  }
+
+  /** Releases the partitions of crawls coordinated elsewhere that have been idle for the partition idle timeout */
+  private void releaseIdlePartitions() {
+    long now = System.nanoTime();
+    partitions.forEach((crawlId, partition) -> {
+      if (!partition.coordinator.equals(self) && now - partition.lastActive > partitionIdleNanos) {
+        log.info("releasing crawl {}, idle here for {}", crawlId, Duration.ofNanos(now - partition.lastActive));
+        release(crawlId);
+      }
+    });
+  }
+
+  /** The scope of a crawl, with the configured default for what it does not give, so every node agrees on it */
+  private CrawlScope resolve(CrawlScope scope) {
+    if (scope == null) return defaultScope;
+    if (scope.getMode() == null) return new CrawlScope(defaultScope.getMode(), scope.getInclude(), scope.getExclude());
+    return scope;
+  }
+
+  private Mono<Integer> deliver(String crawlId, String node, ClusterLinks links) {
+    if (node.equals(self)) return accept(crawlId, links);
+    return webClient.post().uri(node + LINKS_PATH, crawlId).bodyValue(links).retrieve().bodyToMono(Integer.class)
+        .timeout(requestTimeout);
+  }
+
+  private Mono<Void> report(String crawlId, String coordinator, ClusterResults results) {
+    if (coordinator.equals(self)) {
+      return Mono.fromRunnable(() -> {
+        if (!results(crawlId, results)) throw new IllegalStateException("no crawl " + crawlId + " coordinated here");
+      });
+    }
+    return webClient.post().uri(coordinator + RESULTS_PATH, crawlId).bodyValue(results).retrieve()
+        .bodyToMono(Void.class)
+        .timeout(requestTimeout);
+  }
+
+  /**
+   * Sends what a partition has buffered: the links to every node, and once they are acknowledged the results of
+   * the pages they were found on, with failed results for any links a node could not be reached for
+   */
+  private void flush(Partition partition) {
+    Map<String, Map<String, Integer>> links;
+    List<ClusterResult> results;
+    synchronized (partition) {
+      links = partition.outLinks;
+      results = partition.outResults;
+      partition.outLinks = new HashMap<>();
+      partition.outResults = new ArrayList<>();
+      partition.buffered = 0;
+      partition.flushScheduled = false;
+    }
+    if (links.isEmpty() && results.isEmpty()) return;
+
+    Flux.fromIterable(links.entrySet())
+        .flatMap(entry -> deliver(partition.crawlId, entry.getKey(), partition.batch(entry.getValue()))
+            .map(accepted -> List.<ClusterResult>of())
+            .onErrorResume(ex -> Mono.just(undelivered(entry.getKey(), entry.getValue(), ex))))
+        .collectList()
+        .flatMap(undelivered -> {
+          List<ClusterResult> all = new ArrayList<>(results);
+          undelivered.forEach(all::addAll);
+          return report(partition.crawlId, partition.coordinator,
+              new ClusterResults(all.size() - results.size(), all));
+        })
+        .subscribe(done -> { }, ex -> log.error("reporting {} results of crawl {} to {} failed",
+            results.size(), partition.crawlId, partition.coordinator, ex));
+  }
+
+  private static List<ClusterResult> undelivered(String node, Map<String, Integer> links, Throwable ex) {
+    log.warn("sending {} links to {} failed: {}", links.size(), node, ex.toString());
+    var message = String.format("ERROR: cluster node %s could not be reached: %s", node, ex.getMessage());
+    List<ClusterResult> failed = new ArrayList<>(links.size());
+    links.forEach((uri, depth) ->
+        failed.add(ClusterResult.of(new PageResponse(uri, -1, message, Set.of()), depth, false)));
+    return failed;
+  }
+
+  /** A crawl this node coordinates: its report so far, and the number of pages still pending on any node */
+  private class CoordinatedCrawl {
+    private final String rootURI;
+    private final int maxDepth;
+    private final MonoSink<CrawlerReport> sink;
+    private final long startTime = System.currentTimeMillis();
+    // guarded by this
+    private final ReportAggregator report = new ReportAggregator(reportSettings);
+    private long pending;
+
+    private CoordinatedCrawl(String rootURI, int maxDepth, MonoSink<CrawlerReport> sink) {
+      this.rootURI = rootURI;
+      this.maxDepth = maxDepth;
+      this.sink = sink;
+    }
+
+    private void merge(ClusterResults results) {
+      CrawlerReport completed = null;
+      synchronized (this) {
+        pending += results.getAccepted();
+        for (var result : results.getResults()) {
+          pending--;
+          if (!result.isRefetch()) report.reported(result.toPageResponse(), result.getDepth());
+        }
+        if (pending == 0 && !results.getResults().isEmpty())
+          completed = report.toReport(rootURI, maxDepth, System.currentTimeMillis() - startTime);
+      }
+      if (completed != null) sink.success(completed);
+    }
+  }
+
+  /**
+   * This node's partition of a crawl: the pages on its hosts, deduplicated by fingerprint with their depth, the
+   * queue of those waiting to be fetched, and the links and results waiting to be sent
+   */
+  private class Partition {
+    private final String crawlId;
+    private final String coordinator;
+    private final String rootURI;
+    private final int maxDepth;
+    private final CrawlScope crawlScope;
+    private final ScopeMatcher scope;
+    private final FetchWindow<Request> fetches;
+    // guarded by this
+    private final FingerprintTable entries = new FingerprintTable();
+    private final CompactUriQueue queued = new CompactUriQueue();
+    private Map<String, Map<String, Integer>> outLinks = new HashMap<>();
+    private List<ClusterResult> outResults = new ArrayList<>();
+    private int buffered;
+    private boolean flushScheduled;
+    /** nano time links last arrived or a fetch last completed */
+    private volatile long lastActive = System.nanoTime();
+
+    private Partition(String crawlId, ClusterLinks links) {
+      this.crawlId = crawlId;
+      this.coordinator = links.getCoordinator();
+      this.rootURI = links.getRootURI();
+      this.maxDepth = links.getMaxDepth();
+      this.crawlScope = links.getScope();
+      this.scope = ScopeMatcher.of(rootURI, crawlScope);
+      this.fetches = new FetchWindow<>(window, this::poll, request -> fetcher.fetch(request.uri, request.needsLinks)
+          .onErrorResume(ex -> Mono.just(new PageResponse(request.uri, -1,
+              "ERROR: processing failed due to " + ex, Set.of()))),
+          this::onFetched, ex -> log.error("fetching a page of crawl {} failed", crawlId, ex));
+    }
+
+    private void flush() {
+      ClusterCrawler.this.flush(this);
+    }
+
+    private ClusterLinks batch(Map<String, Integer> links) {
+      return new ClusterLinks(coordinator, rootURI, maxDepth, crawlScope, links);
+    }
+
+    /**
+     * Records the links, returning the fetches they need: those of pages new to the partition, and those of
+     * pages reached by a shorter path whose links are needed now but were not retrieved at the longer one
+     */
+    private synchronized List<Request> admit(Map<String, Integer> links) {
+      lastActive = System.nanoTime();
+      List<Request> admitted = new ArrayList<>();
+      links.forEach((uri, depth) -> {
+        long key = fingerprint(uri);
+        byte state = entries.get(key);
+        if (state == FingerprintTable.ABSENT || state == REVERTED) {
+          entries.put(key, (byte) (depth | FETCHING));
+          admitted.add(new Request(uri, depth, needsLinks(uri, depth), false, state));
+        } else if (depth < (state & DEPTH_MASK)) {
+          boolean fetching = (state & FETCHING) != 0;
+          // a fetch in progress with its links expands them at the new depth when it completes
+          boolean refetch = needsLinks(uri, depth) && !(fetching && needsLinks(uri, state & DEPTH_MASK));
+          entries.put(key, (byte) (depth | (fetching || refetch ? FETCHING : 0)));
+          if (refetch) admitted.add(new Request(uri, depth, true, true, state));
+        }
+      });
+      return admitted;
+    }
+
+    /**
+     * Restores the pages of fetches admitted but never started to their state before, unless a later admission
+     * changed it since
+     */
+    private synchronized void revert(List<Request> admitted) {
+      for (var request : admitted) {
+        long key = fingerprint(request.uri);
+        if (entries.get(key) != (byte) (request.depth | FETCHING)) continue;
+        entries.put(key, request.previous == FingerprintTable.ABSENT ? REVERTED : request.previous);
+      }
+    }
+
+    private void start(List<Request> admitted) {
+      synchronized (this) {
+        for (var request : admitted) {
+          queued.add(request.uri, (request.needsLinks ? NEEDS_LINKS : 0) | (request.refetch ? REFETCH : 0)
+              | request.depth << DEPTH_SHIFT);
+        }
+      }
+      fetches.drain();
+    }
+
+    private boolean needsLinks(String uri, int depth) {
+      return depth < maxDepth && (depth == 0 || scope.inScope(uri));
+    }
+
+    /** The next queued page to fetch, or null when none is waiting */
+    private synchronized Request poll() {
+      return queued.poll(Request::decode);
+    }
+
+    /** Buffers the page's result and the links to expand from it, at the depth it is known at now */
+    private void onFetched(Request request, PageResponse response) {
+      boolean flushNow;
+      boolean scheduleFlush = false;
+      lastActive = System.nanoTime();
+      synchronized (this) {
+        long key = fingerprint(request.uri);
+        int depth = entries.get(key) & DEPTH_MASK;
+        entries.put(key, (byte) depth);
+        if (request.needsLinks && needsLinks(request.uri, depth) && !response.isLinksOmitted()
+            && (response.getRedirectedURI() == null || depth == 0 || scope.inScope(response.getRedirectedURI()))) {
+          for (var link : response.getLinks()) {
+            outLinks.computeIfAbsent(ring.nodeFor(URIHelper.getHost(link)), node -> new HashMap<>())
+                .merge(link, depth + 1, Math::min);
+            buffered++;
+          }
+        }
+        outResults.add(ClusterResult.of(response, depth, request.refetch));
+        buffered++;
+        flushNow = buffered >= batchSize;
+        if (!flushNow && !flushScheduled) {
+          flushScheduled = true;
+          scheduleFlush = true;
+        }
+      }
+      if (flushNow) flush();
+      else if (scheduleFlush) Schedulers.parallel().schedule(this::flush, batchDelay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /** A fetch to start; a refetch retrieves the links of a page already reported */
+  private static class Request {
+    private final String uri;
+    private final int depth;
+    private final boolean needsLinks;
+    private final boolean refetch;
+    /** state of the page before the fetch was admitted, restored if the admission is reverted */
+    private final byte previous;
+
+    private Request(String uri, int depth, boolean needsLinks, boolean refetch, byte previous) {
+      this.uri = uri;
+      this.depth = depth;
+      this.needsLinks = needsLinks;
+      this.refetch = refetch;
+      this.previous = previous;
+    }
+
+    private static Request decode(int flags, String uri) {
+      return new Request(uri, flags >> DEPTH_SHIFT, (flags & NEEDS_LINKS) != 0, (flags & REFETCH) != 0,
+          FingerprintTable.ABSENT);
+    }
+  }
+}
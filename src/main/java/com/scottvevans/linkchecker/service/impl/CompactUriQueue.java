@@ -0,0 +1,97 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * FIFO queue of URIs, each with a byte of flags, encoded as length prefixed UTF-8 in 64KB chunks rather than kept
+ * as String objects, so a waiting URI costs little more than its own characters. Chunks are released as soon as
+ * every URI in them has been polled.
+ */
+public final class CompactUriQueue {
+  private static final int CHUNK_BYTES = 64 * 1024;
+  /** flags value marking the unused end of a chunk; real flags are 0 to 127 */
+  private static final byte END_OF_CHUNK = -1;
+  private static final int MAX_RECORD_HEADER_BYTES = 1 + 5;
+
+  private final Deque<byte[]> chunks = new ArrayDeque<>();
+  private int readIndex;
+  private int writeIndex;
+  private int size;
+
+  /** Creates the value of a polled entry from its flags and URI */
+  public interface Decoder<T> {
+    T decode(int flags, String uri);
+  }
+
+  /** Adds the URI at the tail with flags between 0 and 127 */
+  public void add(String uri, int flags) {
+    if (flags < 0 || flags > Byte.MAX_VALUE) throw new IllegalArgumentException("flags must be 0 to 127");
+    byte[] bytes = uri.getBytes(StandardCharsets.UTF_8);
+    int recordBytes = MAX_RECORD_HEADER_BYTES + bytes.length;
+    byte[] chunk = chunks.peekLast();
+    if (chunk == null || chunk.length - writeIndex < recordBytes + 1) {
+      if (chunk != null) chunk[writeIndex] = END_OF_CHUNK;
+      chunk = new byte[Math.max(CHUNK_BYTES, recordBytes + 1)];
+      chunks.addLast(chunk);
+      writeIndex = 0;
+      if (chunks.size() == 1) readIndex = 0;
+    }
+    chunk[writeIndex++] = (byte) flags;
+    for (int length = bytes.length; ; length >>>= 7) {
+      if ((length & ~0x7F) == 0) {
+        chunk[writeIndex++] = (byte) length;
+        break;
+      }
+      chunk[writeIndex++] = (byte) ((length & 0x7F) | 0x80);
+    }
+    System.arraycopy(bytes, 0, chunk, writeIndex, bytes.length);
+    writeIndex += bytes.length;
+    size++;
+  }
+
+  /** Removes the head of the queue and decodes it, or returns null when the queue is empty */
+  public <T> T poll(Decoder<T> decoder) {
+    if (size == 0) return null;
+    byte[] chunk = chunks.peekFirst();
+    if (chunk[readIndex] == END_OF_CHUNK) {
+      chunks.pollFirst();
+      chunk = chunks.peekFirst();
+      readIndex = 0;
+    }
+    int flags = chunk[readIndex++];
+    int length = 0;
+    for (int shift = 0; ; shift += 7) {
+      byte b = chunk[readIndex++];
+      length |= (b & 0x7F) << shift;
+      if (b >= 0) break;
+    }
+    var uri = new String(chunk, readIndex, length, StandardCharsets.UTF_8);
+    readIndex += length;
+    if (--size == 0) {
+      // start over in the chunk being written to, releasing any others
+      while (chunks.size() > 1) chunks.pollFirst();
+      readIndex = 0;
+      writeIndex = 0;
+    }
+    return decoder.decode(flags, uri);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** Approximate bytes held by the queue's chunks */
+  public long footprintBytes() {
+    long bytes = 0;
+    for (var chunk : chunks) {
+      bytes += chunk.length;
+    }
+    return bytes;
+  }
+}
@@ -0,0 +1,290 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.model.CrawlState;
+import com.scottvevans.linkchecker.model.PageResponse;
+import com.scottvevans.linkchecker.service.CrawlListener;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Set;
+
+import static com.scottvevans.linkchecker.service.impl.FingerprintTable.fingerprint;
+
+/**
+ * Continuous work-queue frontier: every PageResponse enqueues its unvisited links as soon as it is parsed,
+ * so a slow page only delays its own descendants instead of a whole depth level.
+ *
+ * Depth is tracked per URI as the shortest distance from a root, so the set of pages crawled is the same
+ * as a level-by-level breadth first search even though responses complete out of order.
+ *
+ * Pages at the maximum depth are never expanded, so the fetcher is told it need not retrieve their links. If such
+ * a page is later reached by a shorter path, it is fetched again for its links without being reported twice.
+ *
+ * A crawl can be resumed from recorded state: its responses are reported again, its fetched pages are expanded
+ * from their recorded links, and only the pages discovered but not yet fetched are fetched.
+ *
+ * To keep million page crawls small, the visited set holds only a fingerprint and a byte of state per URI, the
+ * URIs waiting to be fetched are held as compact UTF-8, and at most a window of fetches is started at once. The
+ * links of fetched pages are not kept either, so the rare page reached by a shorter path after it was expanded
+ * is fetched again, normally from the link status cache.
+ *
+ * Pages outside the crawl's scope are fetched for their status only and never expanded, whatever their depth.
+ */
+@Slf4j
+class CrawlFrontier {
+  static final int DEFAULT_WINDOW = 1024;
+  private static final int NEEDS_LINKS = 1;
+  private static final int REFETCH = 2;
+  /** queue flags above the two bits of the request hold the depth it was queued at */
+  private static final int DEPTH_SHIFT = 2;
+  /** depths and expanded depths take three bits of an entry's state, this one meaning never expanded */
+  private static final int NOT_EXPANDED = 7;
+  /** expanded depth of pages out of scope, as if already expanded from the root so never expanded again */
+  private static final int OUT_OF_SCOPE = 0;
+  private static final int FETCHING = 1 << 6;
+
+  private final int maxDepth;
+  private final int window;
+  private final Fetcher fetcher;
+  private final CrawlListener listener;
+  private final CrawlMetrics metrics;
+  private final ScopeMatcher scope;
+
+  // guarded by this
+  private final FingerprintTable entries = new FingerprintTable();
+  private final CompactUriQueue queued = new CompactUriQueue();
+  private final int[] pendingByDepth;
+  private int pending;
+
+  /** Retrieves a page; when its links are not needed it may be probed for its status only */
+  interface Fetcher {
+    Mono<PageResponse> fetch(String uri, boolean needsLinks);
+  }
+
+  CrawlFrontier(int maxDepth, Fetcher fetcher) {
+    this(maxDepth, fetcher, CrawlListener.NONE);
+  }
+
+  CrawlFrontier(int maxDepth, Fetcher fetcher, CrawlListener listener) {
+    this(maxDepth, fetcher, listener, DEFAULT_WINDOW);
+  }
+
+  CrawlFrontier(int maxDepth, Fetcher fetcher, CrawlListener listener, int window) {
+    this(maxDepth, fetcher, listener, window, CrawlMetrics.NONE);
+  }
+
+  CrawlFrontier(int maxDepth, Fetcher fetcher, CrawlListener listener, int window, CrawlMetrics metrics) {
+    this(maxDepth, fetcher, listener, window, metrics, ScopeMatcher.ALL);
+  }
+
+  CrawlFrontier(int maxDepth, Fetcher fetcher, CrawlListener listener, int window, CrawlMetrics metrics,
+                ScopeMatcher scope) {
+    if (maxDepth < 0 || maxDepth >= NOT_EXPANDED)
+      throw new IllegalArgumentException("maxDepth must be between 0 and " + (NOT_EXPANDED - 1));
+    if (window < 1) throw new IllegalArgumentException("window must be a positive integer");
+    this.maxDepth = maxDepth;
+    this.fetcher = fetcher;
+    this.listener = listener;
+    this.window = window;
+    this.metrics = metrics;
+    this.scope = scope;
+    this.pendingByDepth = new int[maxDepth + 1];
+  }
+
+  /** Crawls outward from the roots, emitting one PageResponse per unique URI in completion order */
+  Flux<PageResponse> crawl(Collection<String> roots) {
+    return crawl(roots, null);
+  }
+
+  /** Resumes a crawl from recorded state, first emitting the responses it already has */
+  Flux<PageResponse> crawl(Collection<String> roots, CrawlState restored) {
+    return Flux.create(sink -> {
+      var fetches = new FetchWindow<Request>(window, this::poll,
+          request -> fetcher.fetch(request.uri, request.needsLinks),
+          (request, response) -> onFetched(request, response, sink), sink::error);
+      sink.onDispose(fetches);
+      sink.onDispose(this::releaseMetrics);
+
+      synchronized (this) {
+        if (restored != null) {
+          restore(restored);
+          restored.getResponses().forEach((uri, response) ->
+              listener.reported(response, depth(entries.get(fingerprint(uri)))));
+        }
+        for (var root : roots) {
+          discover(root, 0);
+        }
+        listener.frontierChanged(pending);
+      }
+      if (restored != null) restored.getResponses().values().forEach(sink::next);
+      fetches.drain();
+      completeIfDone(sink);
+    });
+  }
+
+  private void restore(CrawlState restored) {
+    restored.getDepths().forEach((uri, depth) ->
+        entries.put(fingerprint(uri), state(depth, unexpanded(uri, depth), true)));
+    for (var uri : restored.getResponses().keySet()) {
+      long key = fingerprint(uri);
+      int state = entries.get(key);
+      int depth = state == FingerprintTable.ABSENT ? maxDepth : depth(state);
+      entries.put(key, state(depth, unexpanded(uri, depth), false));
+    }
+    for (var uri : restored.getDepths().keySet()) {
+      long key = fingerprint(uri);
+      int state = entries.get(key);
+      if (isFetching(state)) {
+        enqueue(uri, depth(state), needsLinks(state) ? NEEDS_LINKS : 0);
+      } else {
+        // links recorded after the crash point may not have been discovered yet
+        expand(uri, key, state, linksOf(restored.getResponses().get(uri), depth(state)));
+      }
+    }
+  }
+
+  /** Records a URI found at the given depth, queuing it for fetching or re-expansion when required */
+  private void discover(String uri, int depth) {
+    long key = fingerprint(uri);
+    int state = entries.get(key);
+    if (state == FingerprintTable.ABSENT) {
+      state = state(depth, unexpanded(uri, depth), true);
+      entries.put(key, state);
+      listener.discovered(uri, depth);
+      enqueue(uri, depth, needsLinks(state) ? NEEDS_LINKS : 0);
+    } else if (depth < depth(state)) {
+      // reached by a shorter path than the one it was first queued on
+      state = state(depth, expandedDepth(state), isFetching(state));
+      entries.put(key, state);
+      listener.discovered(uri, depth);
+      expand(uri, key, state, null);
+    }
+  }
+
+  /**
+   * Queues the links of a fetched page unless they have already been expanded at this depth or shallower,
+   * or queues a refetch of the page if its links are not known
+   */
+  private void expand(String uri, long key, int state, Set<String> links) {
+    int depth = depth(state);
+    if (isFetching(state) || depth >= maxDepth || depth >= expandedDepth(state)) return;
+    if (links == null) {
+      entries.put(key, state(depth, expandedDepth(state), true));
+      enqueue(uri, depth, NEEDS_LINKS | REFETCH);
+      return;
+    }
+    entries.put(key, state(depth, depth, false));
+    for (var link : links) {
+      discover(link, depth + 1);
+    }
+  }
+
+  private void enqueue(String uri, int depth, int flags) {
+    pending++;
+    pendingByDepth[depth]++;
+    metrics.frontierChanged(depth, 1);
+    queued.add(uri, flags | depth << DEPTH_SHIFT);
+  }
+
+  /** The next queued URI to fetch, or null when none is waiting */
+  private synchronized Request poll() {
+    return queued.poll(Request::new);
+  }
+
+  /** Expands a fetched page, called from the fetch window's drain loop, which then starts the fetches it queued */
+  private void onFetched(Request request, PageResponse response, FluxSink<PageResponse> sink) {
+    synchronized (this) {
+      long key = fingerprint(request.uri);
+      int state = entries.get(key);
+      state = state(depth(state), expandedDepth(state), false);
+      entries.put(key, state);
+      listener.fetched(response);
+      if (!request.refetch) listener.reported(response, request.depth);
+      expand(request.uri, key, state, linksOf(response, request.depth));
+      pending--;
+      if (pendingByDepth[request.depth] > 0) {
+        // not yet released by a cancellation racing this fetch
+        pendingByDepth[request.depth]--;
+        metrics.frontierChanged(request.depth, -1);
+      }
+      listener.frontierChanged(pending);
+    }
+    if (!request.refetch) sink.next(response);
+    completeIfDone(sink);
+  }
+
+  private void completeIfDone(FluxSink<PageResponse> sink) {
+    boolean done;
+    synchronized (this) {
+      done = pending == 0;
+    }
+    if (done) {
+      log.debug("frontier exhausted after {} uris", entries.size());
+      sink.complete();
+    }
+  }
+
+  /** Takes what is still pending off the frontier gauges once the crawl completes or is cancelled */
+  private synchronized void releaseMetrics() {
+    for (int depth = 0; depth < pendingByDepth.length; depth++) {
+      metrics.frontierChanged(depth, -pendingByDepth[depth]);
+      pendingByDepth[depth] = 0;
+    }
+  }
+
+  /**
+   * The links of a fetched page to expand, null when they were omitted, or none when the page's redirects ended
+   * out of scope, as the links of the page they ended at are not part of the site
+   */
+  private Set<String> linksOf(PageResponse response, int depth) {
+    if (response.isLinksOmitted()) return null;
+    var redirectedURI = response.getRedirectedURI();
+    if (redirectedURI != null && depth > 0 && !scope.inScope(redirectedURI)) return Set.of();
+    return response.getLinks();
+  }
+
+  /** The expanded depth of a URI not yet expanded: never, or no expansion at all when it is out of scope */
+  private int unexpanded(String uri, int depth) {
+    return depth == 0 || scope.inScope(uri) ? NOT_EXPANDED : OUT_OF_SCOPE;
+  }
+
+  /** Whether a page will be expanded once fetched, so must be fetched with its links */
+  private boolean needsLinks(int state) {
+    return depth(state) < maxDepth && expandedDepth(state) != OUT_OF_SCOPE;
+  }
+
+  /** An entry's state packed in a byte: its depth, the depth it was expanded at, and whether it is being fetched */
+  private static byte state(int depth, int expandedDepth, boolean fetching) {
+    return (byte) (depth | expandedDepth << 3 | (fetching ? FETCHING : 0));
+  }
+
+  private static int depth(int state) {
+    return state & 7;
+  }
+
+  private static int expandedDepth(int state) {
+    return state >> 3 & 7;
+  }
+
+  private static boolean isFetching(int state) {
+    return (state & FETCHING) != 0;
+  }
+
+  /** A fetch to start; a refetch retrieves the links of a page already reported */
+  private static class Request {
+    private final String uri;
+    private final boolean needsLinks;
+    private final boolean refetch;
+    private final int depth;
+
+    private Request(int flags, String uri) {
+      this.uri = uri;
+      this.needsLinks = (flags & NEEDS_LINKS) != 0;
+      this.refetch = (flags & REFETCH) != 0;
+      this.depth = flags >> DEPTH_SHIFT;
+    }
+  }
+}
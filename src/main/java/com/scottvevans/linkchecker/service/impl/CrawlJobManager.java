@@ -0,0 +1,211 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import com.scottvevans.linkchecker.model.CrawlJob;
+import com.scottvevans.linkchecker.model.CrawlerReport;
+import com.scottvevans.linkchecker.model.PageResponse;
+import com.scottvevans.linkchecker.service.CrawlListener;
+import com.scottvevans.linkchecker.service.Crawler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+
+import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs crawls in the background as jobs that can be polled for progress, fetched as a report once finished,
+ * and cancelled. At most a fixed number of crawls run at once; later ones wait in a bounded queue, and are
+ * rejected when it is full. Cancelling a running job disposes its crawl, cancelling every fetch in flight.
+ */
+@Service
+@Slf4j
+public class CrawlJobManager {
+  private final Crawler crawler;
+  private final int maxConcurrentCrawls;
+  private final int maxQueuedCrawls;
+  private final int maxRetainedJobs;
+  private final LinkCheckerProperties.Report reportSettings;
+
+  // guarded by this
+  private final Map<String, Job> jobs = new LinkedHashMap<>();
+  private final Deque<Job> queued = new ArrayDeque<>();
+  private int running;
+
+  @Autowired
+  public CrawlJobManager(Crawler crawler, LinkCheckerProperties properties) {
+    var limits = properties.getJobs();
+    if (limits.getMaxConcurrentCrawls() < 1 || limits.getMaxQueuedCrawls() < 0)
+      throw new IllegalArgumentException("crawl job limits must be positive integers");
+    this.crawler = crawler;
+    this.maxConcurrentCrawls = limits.getMaxConcurrentCrawls();
+    this.maxQueuedCrawls = limits.getMaxQueuedCrawls();
+    this.maxRetainedJobs = limits.getMaxRetainedJobs();
+    this.reportSettings = properties.getReport();
+  }
+
+  /** Queues a crawl, starting it straight away if fewer than the maximum are running */
+  public CrawlJob submit(int maxDepth, String uri) {
+    if (maxDepth < 1 || maxDepth > 5)
+      throw new IllegalArgumentException("maxDepth must be a positive integer <= 5");
+    Job job;
+    synchronized (this) {
+      if (running >= maxConcurrentCrawls && queued.size() >= maxQueuedCrawls)
+        throw new RejectedExecutionException(
+            String.format("%d crawls are already waiting to start", queued.size()));
+      job = new Job(UUID.randomUUID().toString(), uri, maxDepth, new ReportAggregator(reportSettings));
+      jobs.put(job.id, job);
+      queued.addLast(job);
+    }
+    log.info("submitted crawl job {} uri: {} depth: {}", job.id, uri, maxDepth);
+    startQueued();
+    return job.snapshot();
+  }
+
+  public synchronized Optional<CrawlJob> find(String id) {
+    return Optional.ofNullable(jobs.get(id)).map(Job::snapshot);
+  }
+
+  /**
+   * The report of a finished job, with the responses received before it was cancelled or failed if it did not
+   * complete; throws IllegalStateException while the job is still queued or running
+   */
+  public synchronized Optional<CrawlerReport> report(String id) {
+    var job = jobs.get(id);
+    if (job == null) return Optional.empty();
+    return Optional.of(job.report());
+  }
+
+  /** Cancels a queued or running job, including all of its fetches in flight; a finished job is left as is */
+  public Optional<CrawlJob> cancel(String id) {
+    Job job;
+    synchronized (this) {
+      job = jobs.get(id);
+    }
+    if (job == null) return Optional.empty();
+    finish(job, CrawlJob.Status.CANCELLED, null);
+    return Optional.of(job.snapshot());
+  }
+
+  /** Starts queued jobs while fewer than the maximum are running; subscribes outside the lock */
+  private void startQueued() {
+    List<Job> toStart = new ArrayList<>();
+    synchronized (this) {
+      while (running < maxConcurrentCrawls && !queued.isEmpty()) {
+        var job = queued.pollFirst();
+        job.start();
+        running++;
+        toStart.add(job);
+      }
+    }
+    for (var job : toStart) {
+      job.crawl.update(Flux.defer(() -> crawler.stream(job.depth, job.rootURI, job))
+          .subscribe(response -> {},
+              ex -> finish(job, CrawlJob.Status.FAILED,
+                  String.format("%s: %s", ex.getClass().getSimpleName(), ex.getMessage())),
+              () -> finish(job, CrawlJob.Status.COMPLETED, null)));
+    }
+  }
+
+  /** Moves a job to its final status once, disposing its crawl and letting the next queued job start */
+  private void finish(Job job, CrawlJob.Status status, String message) {
+    boolean wasRunning;
+    synchronized (this) {
+      var previous = job.getStatus();
+      if (previous != CrawlJob.Status.QUEUED && previous != CrawlJob.Status.RUNNING) return;
+      wasRunning = previous == CrawlJob.Status.RUNNING;
+      job.finish(status, message);
+      if (wasRunning) running--;
+      else queued.remove(job);
+      evictFinishedJobs();
+    }
+    log.info("crawl job {} {}", job.id, status);
+    job.crawl.dispose();
+    if (wasRunning) startQueued();
+  }
+
+  /** Forgets the oldest finished jobs beyond the number retained; queued and running jobs are always kept */
+  private void evictFinishedJobs() {
+    long finished = jobs.values().stream().filter(Job::isFinished).count();
+    var iterator = jobs.values().iterator();
+    while (finished > maxRetainedJobs && iterator.hasNext()) {
+      if (iterator.next().isFinished()) {
+        iterator.remove();
+        finished--;
+      }
+    }
+  }
+
+  /** A single crawl job, counting its progress and aggregating its report as the crawl reports each page */
+  private static class Job implements CrawlListener {
+    private final String id;
+    private final String rootURI;
+    private final int depth;
+    private final Disposable.Swap crawl = Disposables.swap();
+
+    // guarded by this
+    private CrawlJob.Status status = CrawlJob.Status.QUEUED;
+    private String message;
+    private long startTime;
+    private long endTime;
+    private int frontierSize;
+    private final ReportAggregator aggregator;
+
+    private Job(String id, String rootURI, int depth, ReportAggregator aggregator) {
+      this.id = id;
+      this.rootURI = rootURI;
+      this.depth = depth;
+      this.aggregator = aggregator;
+    }
+
+    @Override
+    public synchronized void frontierChanged(int size) {
+      frontierSize = size;
+    }
+
+    @Override
+    public synchronized void reported(PageResponse response, int depth) {
+      if (isFinished()) return;
+      aggregator.reported(response, depth);
+    }
+
+    private synchronized void start() {
+      status = CrawlJob.Status.RUNNING;
+      startTime = System.currentTimeMillis();
+    }
+
+    private synchronized void finish(CrawlJob.Status status, String message) {
+      this.status = status;
+      this.message = message;
+      this.endTime = System.currentTimeMillis();
+      this.frontierSize = 0;
+    }
+
+    private synchronized CrawlJob.Status getStatus() {
+      return status;
+    }
+
+    private synchronized boolean isFinished() {
+      return status != CrawlJob.Status.QUEUED && status != CrawlJob.Status.RUNNING;
+    }
+
+    private synchronized long elapsedTime() {
+      if (startTime == 0) return 0;
+      return (isFinished() ? endTime : System.currentTimeMillis()) - startTime;
+    }
+
+    private synchronized CrawlJob snapshot() {
+      return new CrawlJob(id, rootURI, depth, status, elapsedTime(), aggregator.count(), frontierSize,
+          aggregator.statusCounts(), message);
+    }
+
+    private synchronized CrawlerReport report() {
+      if (!isFinished())
+        throw new IllegalStateException(String.format("crawl job %s is still %s", id, status));
+      return aggregator.toReport(rootURI, depth, elapsedTime());
+    }
+  }
+}
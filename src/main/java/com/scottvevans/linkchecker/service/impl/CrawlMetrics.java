@@ -0,0 +1,96 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import com.scottvevans.linkchecker.util.URIHelper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Meters of the crawl hot paths: fetch latency by host, method and class of status, size of the html bodies
+ * parsed, parse time by parser, and the URIs waiting in or being fetched from the frontiers of all crawls by
+ * depth. Meters are looked up once per page, never per link.
+ */
+@Service
+public class CrawlMetrics {
+  static final String FETCH_METRIC = "linkchecker.fetch";
+  static final String BODY_SIZE_METRIC = "linkchecker.fetch.body.size";
+  static final String RETRY_METRIC = "linkchecker.fetch.retries";
+  static final String PARSE_METRIC = "linkchecker.parse";
+  static final String FRONTIER_METRIC = "linkchecker.frontier.size";
+  /** depths 0 to 6, all a frontier allows */
+  private static final int DEPTHS = 7;
+
+  /** Records into a registry of its own, for crawlers and frontiers that are not given one */
+  static final CrawlMetrics NONE = new CrawlMetrics(new LinkCheckerProperties(), new SimpleMeterRegistry());
+
+  private final MeterRegistry registry;
+  private final boolean hostTags;
+  private final DistributionSummary bodySizes;
+  private final AtomicIntegerArray frontierSizes = new AtomicIntegerArray(DEPTHS);
+
+  @Autowired
+  public CrawlMetrics(LinkCheckerProperties properties, MeterRegistry registry) {
+    this.registry = registry;
+    this.hostTags = properties.getMetrics().isHostTags();
+    this.bodySizes = DistributionSummary.builder(BODY_SIZE_METRIC)
+        .description("bytes of the html bodies parsed for links")
+        .baseUnit("bytes")
+        .register(registry);
+    for (int depth = 0; depth < DEPTHS; depth++) {
+      int index = depth;
+      Gauge.builder(FRONTIER_METRIC, frontierSizes, sizes -> sizes.get(index))
+          .description("uris queued or being fetched by all crawls, by the depth they were queued at")
+          .tag("depth", Integer.toString(depth))
+          .register(registry);
+    }
+  }
+
+  /** Starts timing a fetch */
+  public Timer.Sample startFetch() {
+    return Timer.start(registry);
+  }
+
+  /** Stops timing a fetch once its PageResponse is complete; a status of -1 is a fetch that failed */
+  public void fetched(Timer.Sample sample, String uri, String method, int status) {
+    sample.stop(Timer.builder(FETCH_METRIC)
+        .description("time from sending a request to its page response, including reading and parsing the body")
+        .tag("host", hostTags ? URIHelper.getHost(uri) : "all")
+        .tag("method", method)
+        .tag("status", statusClass(status))
+        .register(registry));
+  }
+
+  /** Counts a fetch made again after the transient failure it ended with */
+  public void retried(String uri, int status) {
+    registry.counter(RETRY_METRIC,
+        "host", hostTags ? URIHelper.getHost(uri) : "all",
+        "status", statusClass(status)).increment();
+  }
+
+  public void parsed(String parser, long bodyBytes, long nanos) {
+    bodySizes.record(bodyBytes);
+    Timer.builder(PARSE_METRIC)
+        .description("time to find the links in an html body, from its first byte to the links being normalized")
+        .tag("parser", parser)
+        .register(registry)
+        .record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /** Adds to the number of uris queued or being fetched at the depth */
+  void frontierChanged(int depth, int delta) {
+    frontierSizes.addAndGet(depth, delta);
+  }
+
+  private static String statusClass(int status) {
+    if (status < 100 || status > 599) return "failed";
+    return status / 100 + "xx";
+  }
+}
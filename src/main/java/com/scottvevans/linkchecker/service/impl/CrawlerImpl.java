@@ -1,42 +1,145 @@
 package com.scottvevans.linkchecker.service.impl;
 
+import com.scottvevans.linkchecker.config.HttpClientConfig;
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import com.scottvevans.linkchecker.model.BatchReport;
+import com.scottvevans.linkchecker.model.CrawlRequest;
+import com.scottvevans.linkchecker.model.CrawlScope;
+import com.scottvevans.linkchecker.model.CrawlState;
 import com.scottvevans.linkchecker.model.CrawlerReport;
 import com.scottvevans.linkchecker.model.PageResponse;
+import com.scottvevans.linkchecker.model.PageValidators;
+import com.scottvevans.linkchecker.model.RedirectHop;
+import com.scottvevans.linkchecker.service.CrawlListener;
+import com.scottvevans.linkchecker.service.CrawlStateStore;
 import com.scottvevans.linkchecker.service.Crawler;
 import com.scottvevans.linkchecker.service.HtmlParser;
 import com.scottvevans.linkchecker.util.URIHelper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyExtractors;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
 
 import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
-
-import static java.util.stream.Collectors.groupingBy;
-import static java.util.stream.Collectors.joining;
-import static java.util.stream.Collectors.toSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Service
 @Slf4j
 public class CrawlerImpl implements Crawler {
   private final int MAX_FILE_SIZE_BYTES = 10 * 1024 * 1024; // 10MB
+  private final int MAX_DRAINED_BODY_BYTES = 64 * 1024; // 64KB
+  /** robots.txt beyond this size is ignored, as RFC 9309 allows */
+  private static final int MAX_ROBOTS_CHARS = 500 * 1024;
+  private static final int MAX_ROBOTS_REDIRECTS = 5;
+  /** statuses some servers answer HEAD with even though GET would succeed */
+  private static final Set<Integer> HEAD_FALLBACK_STATUSES = Set.of(400, 403, 405, 501);
+  /** statuses whose Location is followed; 300 and 304 are not redirects to a single page */
+  private static final Set<Integer> REDIRECT_STATUSES = Set.of(301, 302, 303, 307, 308);
+  /** extensions of links that are almost never html pages, so are probed before any GET */
+  private static final Set<String> NON_HTML_EXTENSIONS = Set.of(
+      "7z", "avi", "bin", "bmp", "csv", "dmg", "doc", "docx", "exe", "gif", "gz", "ico", "iso", "jar", "jpeg", "jpg",
+      "mov", "mp3", "mp4", "mpeg", "pdf", "png", "ppt", "pptx", "rar", "svg", "tar", "tgz", "tif", "tiff", "wav",
+      "webm", "webp", "xls", "xlsx", "zip");
 
   private final HtmlParser parser;
+  private final HostScheduler scheduler;
+  private final LinkStatusCache cache;
+  private final RobotsCache robots;
+  private final RedirectMap redirects;
+  private final InFlightRequests inFlight;
+  private final CrawlStateStore stateStore;
+  private final CrawlMetrics metrics;
+  private final ParseScheduler parseScheduler;
+  private final RetryPolicy retryPolicy;
+  private final String parserName;
   private final WebClient webClient;
+  private final boolean headRequests;
+  private final boolean conditionalRequests;
+  private final boolean robotsEnabled;
+  private final boolean followRedirects;
+  private final int maxRedirects;
+  private final String userAgent;
+  private final Duration maxCrawlDelay;
+  private final int frontierWindow;
+  private final int maxConcurrentRoots;
+  private final CrawlScope defaultScope;
+  private final LinkCheckerProperties.Report reportSettings;
+  private final Duration responseTimeout;
 
-  @Autowired
+  /** Creates a crawler with the default settings and an in memory state store, not registering any metrics */
   public CrawlerImpl(HtmlParser parser) {
+    this(parser, new LinkCheckerProperties(), new SimpleMeterRegistry());
+  }
+
+  public CrawlerImpl(HtmlParser parser, LinkCheckerProperties properties, MeterRegistry registry) {
+    this(parser, properties, new HostScheduler(properties, registry), new LinkStatusCache(properties, registry),
+        new RobotsCache(properties, registry), new RedirectMap(properties, registry), new InFlightRequests(registry),
+        new InMemoryCrawlStateStore(properties), new CrawlMetrics(properties, registry),
+        new ParseScheduler(properties, registry),
+        HttpClientConfig.httpClient(properties.getHttp(), HttpClientConfig.connectionProvider(properties.getHttp())));
+  }
+
+  @Autowired
+  public CrawlerImpl(HtmlParser parser, LinkCheckerProperties properties, HostScheduler scheduler,
+                     LinkStatusCache cache, RobotsCache robots, RedirectMap redirects, InFlightRequests inFlight,
+                     CrawlStateStore stateStore, CrawlMetrics metrics, ParseScheduler parseScheduler,
+                     HttpClient httpClient) {
+    this(parser, properties, scheduler, cache, robots, redirects, inFlight, stateStore, metrics, parseScheduler,
+        new ReactorClientHttpConnector(httpClient));
+  }
+
+  /** Creates a crawler sending its requests through the connector, the one part in which the fetch engines differ */
+  CrawlerImpl(HtmlParser parser, LinkCheckerProperties properties, HostScheduler scheduler, LinkStatusCache cache,
+              RobotsCache robots, RedirectMap redirects, InFlightRequests inFlight, CrawlStateStore stateStore,
+              CrawlMetrics metrics, ParseScheduler parseScheduler, ClientHttpConnector connector) {
     this.parser = parser;
+    this.parserName = parser.getClass().getSimpleName();
+    this.headRequests = properties.getFetch().isHeadRequests();
+    this.conditionalRequests = properties.getFetch().isConditionalRequests();
+    this.robotsEnabled = properties.getRobots().isEnabled();
+    this.followRedirects = properties.getRedirects().isFollow();
+    this.maxRedirects = properties.getRedirects().getMaxHops();
+    this.userAgent = properties.getRobots().getUserAgent();
+    this.maxCrawlDelay = properties.getRobots().getMaxCrawlDelay();
+    this.frontierWindow = properties.getFetch().getFrontierWindow();
+    this.maxConcurrentRoots = properties.getBatch().getMaxConcurrentRoots();
+    this.defaultScope = properties.getScope();
+    this.reportSettings = properties.getReport();
+    this.responseTimeout = properties.getHttp().getResponseTimeout();
+    this.scheduler = scheduler;
+    this.cache = cache;
+    this.robots = robots;
+    this.redirects = redirects;
+    this.inFlight = inFlight;
+    this.stateStore = stateStore;
+    this.metrics = metrics;
+    this.parseScheduler = parseScheduler;
+    this.retryPolicy = new RetryPolicy(properties.getRetry());
     this.webClient = WebClient.builder()
+        .defaultHeader(HttpHeaders.USER_AGENT, userAgent)
+        // connectors call back to write the request once it has a connection, which starts its latency sample
+        .clientConnector((method, uri, requestCallback) -> connector.connect(method, uri, request ->
+            Mono.subscriberContext().doOnNext(HostScheduler::startSample).then(requestCallback.apply(request))))
         .exchangeStrategies(
             ExchangeStrategies.builder()
                 .codecs(clientCodecConfigurer -> clientCodecConfigurer
@@ -48,91 +151,350 @@ public class CrawlerImpl implements Crawler {
 
   @Override
   public Mono<CrawlerReport> crawl(int maxDepth, String uri) {
+    return crawl(maxDepth, uri, null);
+  }
+
+  @Override
+  public Mono<CrawlerReport> crawl(int maxDepth, String uri, CrawlScope scope) {
+    long startTime = System.currentTimeMillis();
+    var report = new ReportAggregator(reportSettings);
+    return stream(maxDepth, uri, scope, report)
+        .then(Mono.fromSupplier(() -> report.toReport(uri, maxDepth, System.currentTimeMillis() - startTime)));
+  }
+
+  @Override
+  public Mono<BatchReport> crawl(List<CrawlRequest> roots) {
+    for (var root : roots) {
+      if (root.getDepth() < 1 || root.getDepth() > 5)
+        throw new IllegalArgumentException("maxDepth must be a positive integer <= 5");
+    }
+    return Mono.defer(() -> {
+      long startTime = System.currentTimeMillis();
+      log.info("crawling batch of {} roots", roots.size());
+      var shared = new SharedFetches(this::fetch);
+      var broken = new BrokenLinkCollector();
+      return Flux.fromIterable(roots)
+          .flatMapSequential(root -> {
+            long rootStartTime = System.currentTimeMillis();
+            var report = new ReportAggregator(reportSettings, response -> broken.add(root.getUri(), response));
+            return new CrawlFrontier(root.getDepth(), shared::fetch, report, frontierWindow, metrics,
+                scopeOf(root.getUri(), root.getScope()))
+                .crawl(Set.of(root.getUri()))
+                .then(Mono.fromSupplier(() -> report.toReport(root.getUri(), root.getDepth(),
+                    System.currentTimeMillis() - rootStartTime)));
+          }, maxConcurrentRoots)
+          .collectList()
+          .map(reports -> new BatchReport(System.currentTimeMillis() - startTime, shared.size(), reports,
+              broken.toBrokenLinks()));
+    });
+  }
+
+  @Override
+  public Flux<PageResponse> stream(int maxDepth, String uri) {
+    return stream(maxDepth, uri, CrawlListener.NONE);
+  }
+
+  @Override
+  public Flux<PageResponse> stream(int maxDepth, String uri, CrawlListener listener) {
+    return stream(maxDepth, uri, null, listener);
+  }
+
+  private Flux<PageResponse> stream(int maxDepth, String uri, CrawlScope scope, CrawlListener listener) {
     if (maxDepth < 1 || maxDepth > 5)
       throw new IllegalArgumentException("maxDepth must be a positive integer <= 5");
+    var matcher = scopeOf(uri, scope);
     log.info("crawling uri: {} depth: {}", uri, maxDepth);
-    long startTime = System.currentTimeMillis();
-    Mono<List<PageResponse>> responsesMono =
-        crawl(new LinkedList<>(), new HashSet<>(), maxDepth, Set.of(uri), 0);
-    return responsesMono.map(responses -> toCrawlerReport(maxDepth, uri, startTime, responses));
-  }
-
-  /** Converts the generated list of all PageResponses into the final CrawlerReport, including basic stats */
-  private CrawlerReport toCrawlerReport(int maxDepth, String uri, long startTime, List<PageResponse> responses) {
-    int pages = responses.size();
-
-    Map<Integer, List<PageResponse>> groupedByStatus =
-        responses.stream().collect(groupingBy(PageResponse::getHttpStatus));
-
-    Map<Integer, Integer> counts = new HashMap<>();
-    groupedByStatus.forEach((key, list) -> counts.put(key, list.size()));
-
-    long elapsedTime = System.currentTimeMillis() - startTime;
-
-    return new CrawlerReport(uri, maxDepth, elapsedTime, pages, counts, responses);
-  }
-
-  /** Recursive method to crawl to successive depths while avoiding any duplicates encountered between the pages/levels */
-  private Mono<List<PageResponse>> crawl(
-      List<PageResponse> responses, Set<String> visited, int maxDepth, Set<String> toVisit, int currentDepth) {
-    log.debug("crawl currentDepth: {}", currentDepth);
-    return getAll(toVisit)
-        .collectList()
-        .flatMap(list -> {
-          responses.addAll(list);
-          if (currentDepth == maxDepth) {
-            return Mono.just(responses);
-          } else {
-            visited.addAll(toVisit);
-            Set<String> nextToVisit = list
-                .stream()
-                .flatMap(pr -> pr.getLinks().stream())
-                .filter(uri -> !visited.contains(uri))
-                .collect(toSet());
-            return crawl(responses, visited, maxDepth, nextToVisit, currentDepth + 1);
+    return new CrawlFrontier(maxDepth, this::fetch, listener, frontierWindow, metrics, matcher).crawl(Set.of(uri));
+  }
+
+  @Override
+  public Flux<PageResponse> stream(String crawlId, int maxDepth, String uri) {
+    if (maxDepth < 1 || maxDepth > 5)
+      throw new IllegalArgumentException("maxDepth must be a positive integer <= 5");
+    // a store may replay the crawl from disk, so it is opened on a thread that may block rather than the caller's
+    return Mono.fromCallable(() -> stateStore.open(crawlId, uri, maxDepth))
+        .subscribeOn(Schedulers.boundedElastic())
+        .flatMapMany(state -> resume(crawlId, maxDepth, uri, state));
+  }
+
+  /** Crawls from the recorded state of a crawl, recording its progress as it goes */
+  private Flux<PageResponse> resume(String crawlId, int maxDepth, String uri, CrawlState state) {
+    if (!state.getRootURI().equals(uri) || state.getMaxDepth() != maxDepth)
+      return Flux.error(new IllegalArgumentException(String.format("crawl %s was started for uri: %s depth: %d",
+          crawlId, state.getRootURI(), state.getMaxDepth())));
+    if (state.isCompleted()) {
+      log.info("crawl {} already completed", crawlId);
+      return Flux.fromIterable(state.getResponses().values());
+    }
+
+    log.info("crawling uri: {} depth: {} as crawl {}, {} pages already fetched",
+        uri, maxDepth, crawlId, state.getResponses().size());
+    var listener = new CrawlListener() {
+      @Override
+      public void discovered(String discoveredURI, int depth) {
+        stateStore.discovered(crawlId, discoveredURI, depth);
+      }
+
+      @Override
+      public void fetched(PageResponse response) {
+        stateStore.fetched(crawlId, response);
+      }
+    };
+    return new CrawlFrontier(maxDepth, this::fetch, listener, frontierWindow, metrics, scopeOf(uri, null))
+        .crawl(Set.of(uri), state)
+        .doOnComplete(() -> stateStore.completed(crawlId));
+  }
+
+  /** Compiles the scope of a crawl from its root, taking the configured default for what the crawl does not give */
+  private ScopeMatcher scopeOf(String rootURI, CrawlScope scope) {
+    return ScopeMatcher.of(rootURI, scope, defaultScope);
+  }
+
+  /**
+   * Retrieves a URI for the frontier, following its redirects when enabled so the response is that of the page
+   * they end at, with the chain of hops recorded. A URI already known to redirect is fetched straight from the
+   * end of its chain.
+   */
+  Mono<PageResponse> fetch(String uri, boolean needsLinks) {
+    if (!followRedirects) return fetchOnce(uri, needsLinks);
+    var known = redirects.get(uri);
+    return known.isPresent()
+        ? follow(uri, known.get().getTarget(), new ArrayList<>(known.get().getHops()), 0, needsLinks)
+        : follow(uri, uri, new ArrayList<>(), 0, needsLinks);
+  }
+
+  /**
+   * Fetches the next hop of a chain of redirects from the origin, following the Location of a redirect until a
+   * page answers otherwise, the chain loops back on itself, or it is longer than the hops allowed
+   */
+  private Mono<PageResponse> follow(String origin, String uri, List<RedirectHop> hops, long fetchTimeInMillis,
+                                    boolean needsLinks) {
+    return fetchOnce(uri, needsLinks).flatMap(response -> {
+      long fetchTime = fetchTimeInMillis + response.getFetchTimeInMillis();
+      int status = response.getHttpStatus();
+      if (!REDIRECT_STATUSES.contains(status) || response.getLinks().isEmpty()) {
+        if (hops.isEmpty()) return Mono.just(response);
+        redirects.put(origin, hops, uri);
+        return Mono.just(redirected(origin, hops, uri, response, response.getMessage(), fetchTime));
+      }
+
+      hops.add(new RedirectHop(uri, status));
+      var location = response.getLinks().iterator().next();
+      if (location.equals(origin) || hops.stream().anyMatch(hop -> hop.getUri().equals(location))) {
+        var message = String.format("redirect loop back to %s after %d redirects", location, hops.size());
+        return Mono.just(redirected(origin, hops, location, response, message, fetchTime));
+      }
+      if (hops.size() > maxRedirects) {
+        var message = String.format("more than %d redirects, stopped at %s", maxRedirects, location);
+        return Mono.just(redirected(origin, hops, location, response, message, fetchTime));
+      }
+      return follow(origin, location, hops, fetchTime, needsLinks);
+    });
+  }
+
+  /**
+   * The response of the page a chain of redirects from the origin ended at, reported as the origin's so its
+   * status and links stand for the origin's. A chain that was abandoned keeps the last redirect's status but has
+   * no links, as its Location is not fetched.
+   */
+  private static PageResponse redirected(String origin, List<RedirectHop> hops, String target, PageResponse last,
+                                         String message, long fetchTimeInMillis) {
+    boolean abandoned = REDIRECT_STATUSES.contains(last.getHttpStatus()) && !last.getLinks().isEmpty();
+    var response = new PageResponse(origin, last.getHttpStatus(), message,
+        abandoned ? Collections.emptySet() : last.getLinks());
+    response.setMethod(last.getMethod());
+    response.setLinksOmitted(last.isLinksOmitted());
+    response.setRetries(last.getRetries());
+    response.setFetchTimeInMillis(fetchTimeInMillis);
+    response.setRedirects(List.copyOf(hops));
+    response.setRedirectedURI(target);
+    return response;
+  }
+
+  /**
+   * Retrieves a single URI from the shared cache, or by joining a fetch of it already in progress, or by fetching
+   * it once its host's robots.txt allows it and the host scheduler lets it start. With head requests enabled,
+   * pages whose links are not needed and links to likely non-html files are probed with HEAD first.
+   */
+  private Mono<PageResponse> fetchOnce(String uri, boolean needsLinks) {
+    var cached = cache.get(uri).filter(response -> !needsLinks || !response.isLinksOmitted());
+    if (cached.isPresent()) return Mono.just(cached.get());
+
+    boolean probe = headRequests && (!needsLinks || isLikelyNonHtml(uri));
+    return inFlight.execute(probe ? HttpMethod.HEAD : HttpMethod.GET, uri, () -> robotsRules(uri)
+        .flatMap(rules -> isAllowed(rules, uri)
+            ? withRetries(uri, 0, () -> scheduler.schedule(URIHelper.getHost(uri), crawlDelay(rules), () ->
+                probe ? probe(uri, needsLinks) : getPageResponse(uri, HttpMethod.GET), CrawlerImpl::isOverloaded))
+            : Mono.just(new PageResponse(uri, PageResponse.DISALLOWED_BY_ROBOTS, "disallowed by robots.txt",
+                Collections.emptySet())))
+        .doOnNext(cache::put));
+  }
+
+  /**
+   * Whether the response shows its host overloaded, for the host's adaptive concurrency limit: a timeout or
+   * connection failure, or a status servers answer when busy, which are the failures that are retried
+   */
+  private static boolean isOverloaded(PageResponse response) {
+    return response.getRetryAfter() != null;
+  }
+
+  /**
+   * Makes the attempt again while its response is a transient failure the retry policy allows retrying, waiting
+   * on a timer outside the host scheduler so the host's slot is free for other fetches in the meantime
+   */
+  private Mono<PageResponse> withRetries(String uri, int retries, Supplier<Mono<PageResponse>> attempt) {
+    return attempt.get().flatMap(response -> {
+      var delay = retryPolicy.delayBeforeRetry(response, retries);
+      if (delay.isEmpty()) {
+        response.setRetries(retries);
+        return Mono.just(response);
+      }
+      if (log.isDebugEnabled())
+        log.debug("retrying uri: {} status: {} in {}ms", uri, response.getHttpStatus(), delay.get().toMillis());
+      metrics.retried(uri, response.getHttpStatus());
+      return Mono.delay(delay.get()).then(withRetries(uri, retries + 1, attempt));
+    });
+  }
+
+  /** The robots.txt rules of the uri's origin, fetched once per origin and cached, or none when disabled */
+  private Mono<RobotsRules> robotsRules(String uri) {
+    if (!robotsEnabled) return Mono.just(RobotsRules.ALLOW_ALL);
+    try {
+      var parsed = URI.create(uri);
+      if (parsed.getScheme() == null || parsed.getRawAuthority() == null) return Mono.just(RobotsRules.ALLOW_ALL);
+      var origin = parsed.getScheme().toLowerCase() + "://" + parsed.getRawAuthority().toLowerCase();
+      return robots.get(origin, key -> fetchRobots(URIHelper.getHost(uri), key + "/robots.txt", 0));
+    } catch (IllegalArgumentException ex) {
+      // fetching it fails in turn, reporting why
+      return Mono.just(RobotsRules.ALLOW_ALL);
+    }
+  }
+
+  private static boolean isAllowed(RobotsRules rules, String uri) {
+    try {
+      var parsed = URI.create(uri);
+      var path = parsed.getRawPath() == null || parsed.getRawPath().isEmpty() ? "/" : parsed.getRawPath();
+      if (path.equals("/robots.txt")) return true;
+      return rules.isAllowed(parsed.getRawQuery() == null ? path : path + "?" + parsed.getRawQuery());
+    } catch (IllegalArgumentException ex) {
+      return true;
+    }
+  }
+
+  private Duration crawlDelay(RobotsRules rules) {
+    var delay = rules.getCrawlDelay();
+    return delay.compareTo(maxCrawlDelay) > 0 ? maxCrawlDelay : delay;
+  }
+
+  /**
+   * Retrieves and parses a robots.txt, following redirects as RFC 9309 asks. A site without one allows
+   * everything. One that cannot be retrieved for a server or network error, or that answers 429, would disallow
+   * everything under RFC 9309, but a link checker skipping the pages of a failing site would hide the very links
+   * it is there to report, so they are fetched and fail in turn, until the shorter error time to live has passed.
+   */
+  private Mono<RobotsRules> fetchRobots(String host, String robotsURI, int redirects) {
+    return scheduler.schedule(host, () -> webClient.get()
+        .uri(robotsURI)
+        .exchange()
+        .timeout(responseTimeout))
+        .flatMap(response -> {
+          HttpStatus status = response.statusCode();
+          if (status.is2xxSuccessful()) {
+            return response.bodyToMono(String.class).defaultIfEmpty("").map(body -> RobotsRules.parse(
+                body.length() > MAX_ROBOTS_CHARS ? body.substring(0, MAX_ROBOTS_CHARS) : body, userAgent));
           }
+          var location = response.headers().asHttpHeaders().getLocation();
+          if (status.is3xxRedirection() && location != null && redirects < MAX_ROBOTS_REDIRECTS) {
+            var redirectURI = URIHelper.resolveRedirectURI(robotsURI, location.toString());
+            return discardBody(response)
+                .then(fetchRobots(URIHelper.getHost(redirectURI), redirectURI, redirects + 1));
+          }
+          boolean unavailable = status.is4xxClientError() && status != HttpStatus.TOO_MANY_REQUESTS;
+          return discardBody(response).thenReturn(unavailable ? RobotsRules.ALLOW_ALL : RobotsRules.UNREACHABLE);
+        })
+        .onErrorResume(ex -> {
+          log.info("robots.txt {} could not be retrieved, fetching its origin's pages: {}", robotsURI, ex.toString());
+          return Mono.just(RobotsRules.UNREACHABLE);
         });
   }
 
-  /** Retrieves all URIs in the set asynchronously in parallel */
-  private Flux<PageResponse> getAll(Set<String> URIs) {
-    log.info("getAll: {}", URIs.size() <= 5 ? URIs :
-        URIs.stream().limit(5).collect(joining(",", "[", "," + (URIs.size() - 5) + " more...]")));
-    return Flux.fromIterable(URIs).flatMap(uri ->
-        getPageResponse(uri).subscribeOn(Schedulers.parallel()));
+  /** Sends HEAD, falling back to GET when the server mishandles HEAD or the links of an html page are needed */
+  private Mono<PageResponse> probe(String uri, boolean needsLinks) {
+    return getPageResponse(uri, HttpMethod.HEAD)
+        .flatMap(response -> response.getHttpStatus() == -1
+            || HEAD_FALLBACK_STATUSES.contains(response.getHttpStatus())
+            || (needsLinks && response.isLinksOmitted())
+            ? getPageResponse(uri, HttpMethod.GET)
+            : Mono.just(response));
+  }
+
+  private static boolean isLikelyNonHtml(String uri) {
+    var path = URIHelper.removeFragment(uri);
+    int query = path.indexOf('?');
+    if (query != -1) path = path.substring(0, query);
+    int dot = path.lastIndexOf('.');
+    return dot > path.lastIndexOf('/') && NON_HTML_EXTENSIONS.contains(path.substring(dot + 1).toLowerCase());
+  }
+
+  /** Attempts to retrieve the uri, and populates a PageResponse with the outcome, timing the whole fetch */
+  private Mono<PageResponse> getPageResponse(String uri, HttpMethod method) {
+    return Mono.defer(() -> {
+      var sample = metrics.startFetch();
+      long start = System.nanoTime();
+      return exchange(uri, method)
+          .doOnNext(response -> {
+            response.setFetchTimeInMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            metrics.fetched(sample, uri, method.name(), response.getHttpStatus());
+          });
+    });
   }
 
-  /** Attempts to retrieve the uri, and populates a PageResponse with the outcome */
-  private Mono<PageResponse> getPageResponse(String uri) {
-    log.info("getPageResponse uri: {}", uri);
+  /**
+   * Sends the request and converts its response. A GET of a page fetched before is made conditional on the
+   * validators recorded then, so an unchanged page is not downloaded again.
+   */
+  private Mono<PageResponse> exchange(String uri, HttpMethod method) {
+    if (log.isDebugEnabled()) log.debug("getPageResponse {} uri: {}", method, uri);
+    Optional<PageValidators> validators = conditionalRequests && method == HttpMethod.GET
+        ? stateStore.getValidators(uri)
+        : Optional.empty();
     return webClient
-        .get()
+        .method(method)
         .uri(uri)
+        .headers(headers -> validators.ifPresent(previous -> {
+          if (previous.getEtag() != null) headers.set(HttpHeaders.IF_NONE_MATCH, previous.getEtag());
+          if (previous.getLastModified() != null)
+            headers.set(HttpHeaders.IF_MODIFIED_SINCE, previous.getLastModified());
+        }))
         .exchange()
-        .flatMap(clientResponse -> toPageResponse(uri, clientResponse))
+        .timeout(responseTimeout)
+        .flatMap(clientResponse -> toPageResponse(uri, method, clientResponse, validators))
         .onErrorResume(ex -> {
           var msg = String.format("ERROR: processing failed due to %s: %s",
               ex.getClass().getSimpleName(), ex.getMessage());
-          return Mono.just(new PageResponse(uri, -1, msg, Collections.emptySet()));
-        });
-
+          var failed = new PageResponse(uri, -1, msg, Collections.emptySet());
+          if (RetryPolicy.isTransient(ex)) failed.setRetryAfter(Duration.ZERO);
+          return Mono.just(failed);
+        })
+        .doOnNext(pageResponse -> pageResponse.setMethod(method.name()));
   }
 
   /** Converts a raw ClientRequest from the WebClient into our custom PageResponse value object */
-  private Mono<PageResponse> toPageResponse(String uri, ClientResponse response) {
-    log.info("toPageResponse: {}", uri);
+  private Mono<PageResponse> toPageResponse(String uri, HttpMethod method, ClientResponse response,
+                                           Optional<PageValidators> validators) {
     try {
       HttpStatus status = response.statusCode();
-      HttpHeaders headers = response.headers().asHttpHeaders();
-      log.debug("toPageResponse status: {} ", status);
-      log.debug("toPageResponse headers: {}", headers);
+      if (log.isDebugEnabled())
+        log.debug("toPageResponse: {} status: {} headers: {}", uri, status, response.headers().asHttpHeaders());
 
       if (status.is2xxSuccessful())
-        return handleSuccessful(uri, response);
+        return handleSuccessful(uri, method, response);
+      else if (status == HttpStatus.NOT_MODIFIED && validators.isPresent())
+        return discardBody(response).then(handleNotModified(uri, response, validators.get()));
       else if (status.is3xxRedirection())
-        return handleRedirect(uri, response);
+        return discardBody(response).then(handleRedirect(uri, response));
       else
-        return handleError(uri, response);
+        return discardBody(response).then(handleError(uri, response));
 
     } catch (RuntimeException ex) {
       String msg = String.format("processing %s failed due to unexpected error %s", uri, ex);
@@ -143,29 +505,61 @@ public class CrawlerImpl implements Crawler {
   }
 
   /** Populates a Mono with a PageResponse for success, parsing the response body for links to check further */
-  private Mono<PageResponse> handleSuccessful(String uri, ClientResponse response) {
+  private Mono<PageResponse> handleSuccessful(String uri, HttpMethod method, ClientResponse response) {
     log.debug("handleSuccessful");
     HttpStatus status = response.statusCode();
     HttpHeaders headers = response.headers().asHttpHeaders();
-    if (headers.getContentType() != null && headers.getContentType().isCompatibleWith(MediaType.TEXT_HTML)) {
-      return response
-          .bodyToMono(String.class)
-          .map(html ->
-              new PageResponse(uri, status.value(), status.getReasonPhrase(), parser.findUniqueLinks(uri, html)))
+    MediaType contentType = headers.getContentType();
+    boolean html = contentType != null && contentType.isCompatibleWith(MediaType.TEXT_HTML);
+    if (html && method == HttpMethod.HEAD) {
+      var probed = new PageResponse(uri, status.value(), status.getReasonPhrase(), Collections.emptySet());
+      probed.setLinksOmitted(true);
+      return response.releaseBody().thenReturn(probed);
+    } else if (html) {
+      Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+      String etag = headers.getETag();
+      String lastModified = headers.getFirst(HttpHeaders.LAST_MODIFIED);
+      return Mono.defer(() -> {
+        long start = System.nanoTime();
+        long[] bodyBytes = new long[1];
+        var body = response.body(BodyExtractors.toDataBuffers())
+            .doOnNext(buffer -> bodyBytes[0] += buffer.readableByteCount());
+        return parseScheduler.parse(body, buffers -> parser.findUniqueLinks(uri, buffers, charset, MAX_FILE_SIZE_BYTES))
+            .doOnNext(links -> metrics.parsed(parserName, bodyBytes[0], System.nanoTime() - start));
+      })
+          .doOnNext(links -> {
+            if (etag != null || lastModified != null)
+              stateStore.putValidators(uri, new PageValidators(etag, lastModified, links));
+          })
+          .map(links -> new PageResponse(uri, status.value(), status.getReasonPhrase(), links))
           .onErrorResume(ex -> {
             var msg = String.format("processing response from %s failed due to %s: %s",
                 uri, ex.getClass().getSimpleName(), ex.getMessage());
             log.error(msg, ex);
-            return Mono.just(new PageResponse(uri, status.value(), msg, Collections.emptySet()));
+            var failed = new PageResponse(uri, status.value(), msg, Collections.emptySet());
+            if (RetryPolicy.isTransient(ex)) failed.setRetryAfter(Duration.ZERO);
+            return Mono.just(failed);
           });
     } else {
-      response.releaseBody();
-      return Mono.just(new PageResponse(uri, status.value(),
-          "not an html page; Content-Type: " + headers.getContentType(), Collections.emptySet()));
+      return discardBody(response).thenReturn(new PageResponse(uri, status.value(),
+          "not an html page; Content-Type: " + contentType, Collections.emptySet()));
     }
   }
 
-  /** Populates a Mono with a PageResponse for a redirect, and if location is present includes it as a link to follow */
+  /**
+   * Drains a small body so the connection can be reused, but cancels one that is large or of unknown length,
+   * closing the connection rather than downloading a body that is never read
+   */
+  private Mono<Void> discardBody(ClientResponse response) {
+    long length = response.headers().contentLength().orElse(-1);
+    if (length >= 0 && length <= MAX_DRAINED_BODY_BYTES) return response.releaseBody();
+    return response.body(BodyExtractors.toDataBuffers()).take(0).then();
+  }
+
+  /**
+   * Populates a Mono with a PageResponse for a redirect, and if location is present includes it as the only link,
+   * to follow within the fetch or as a link of the crawl
+   */
   private Mono<PageResponse> handleRedirect(String uri, ClientResponse response) {
     log.debug("handleRedirect");
     URI redirectLocation = response.headers().asHttpHeaders().getLocation();
@@ -184,11 +578,32 @@ public class CrawlerImpl implements Crawler {
     }
   }
 
+  /**
+   * Populates a Mono with a PageResponse for a page unchanged since it was last fetched, with the links found
+   * in it then, updating the validators if the server sent new ones
+   */
+  private Mono<PageResponse> handleNotModified(String uri, ClientResponse response, PageValidators previous) {
+    log.debug("handleNotModified");
+    HttpHeaders headers = response.headers().asHttpHeaders();
+    String etag = headers.getETag() != null ? headers.getETag() : previous.getEtag();
+    String lastModified = headers.getFirst(HttpHeaders.LAST_MODIFIED) != null
+        ? headers.getFirst(HttpHeaders.LAST_MODIFIED)
+        : previous.getLastModified();
+    if (!Objects.equals(etag, previous.getEtag()) || !Objects.equals(lastModified, previous.getLastModified()))
+      stateStore.putValidators(uri, new PageValidators(etag, lastModified, previous.getLinks()));
+    return Mono.just(new PageResponse(uri, HttpStatus.NOT_MODIFIED.value(),
+        HttpStatus.NOT_MODIFIED.getReasonPhrase(), previous.getLinks()));
+  }
+
   /** Populates a Mono with a PageResponse for status codes outside the 200 and 300 ranges */
   private Mono<PageResponse> handleError(String uri, ClientResponse response) {
     log.debug("handleError");
-    return Mono.just(
-        new PageResponse(uri, response.statusCode().value(),
-            response.statusCode().getReasonPhrase(), Collections.emptySet()));
+    var error = new PageResponse(uri, response.statusCode().value(),
+        response.statusCode().getReasonPhrase(), Collections.emptySet());
+    if (retryPolicy.isRetryable(error.getHttpStatus())) {
+      var retryAfter = response.headers().asHttpHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+      error.setRetryAfter(retryPolicy.parseRetryAfter(retryAfter));
+    }
+    return Mono.just(error);
   }
 }
@@ -0,0 +1,101 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.model.PageResponse;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Starts fetches taken from a queue while fewer than a window of them are in flight, and hands each response back
+ * as it completes. Both run in a drain loop only one thread is in at a time, which any other thread asking it to
+ * drain leaves the work to, so a fetch completing as soon as it is subscribed, from a cache, does not start the
+ * next one from within its own completion, and a crawl answered from caches runs in constant stack depth.
+ */
+class FetchWindow<R> implements Disposable {
+  private final int window;
+  private final Supplier<R> queue;
+  private final Function<R, Mono<PageResponse>> fetcher;
+  private final BiConsumer<R, PageResponse> onFetched;
+  private final Consumer<Throwable> onError;
+  private final Disposable.Composite fetches = Disposables.composite();
+  private final Queue<Fetched<R>> completed = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger wip = new AtomicInteger();
+  // only touched in the drain loop
+  private int inFlight;
+
+  /**
+   * @param queue the next request to fetch, or null when none is waiting
+   * @param onFetched called in the drain loop with each response, in the order they complete
+   */
+  FetchWindow(int window, Supplier<R> queue, Function<R, Mono<PageResponse>> fetcher,
+              BiConsumer<R, PageResponse> onFetched, Consumer<Throwable> onError) {
+    if (window < 1) throw new IllegalArgumentException("window must be a positive integer");
+    this.window = window;
+    this.queue = queue;
+    this.fetcher = fetcher;
+    this.onFetched = onFetched;
+    this.onError = onError;
+  }
+
+  /** Hands back the responses completed and starts queued fetches, or has the thread already draining do so */
+  void drain() {
+    if (wip.getAndIncrement() != 0) return;
+    int missed = 1;
+    do {
+      Fetched<R> fetched;
+      while ((fetched = completed.poll()) != null) {
+        inFlight--;
+        if (!isDisposed()) onFetched.accept(fetched.request, fetched.response);
+      }
+      while (inFlight < window && !isDisposed()) {
+        R request = queue.get();
+        if (request == null) break;
+        inFlight++;
+        start(request);
+      }
+      missed = wip.addAndGet(-missed);
+    } while (missed != 0);
+  }
+
+  private void start(R request) {
+    var fetch = Disposables.swap();
+    fetches.add(fetch);
+    fetch.update(fetcher.apply(request)
+        // a fetch completing without a response would otherwise hold its place in the window for good
+        .switchIfEmpty(Mono.defer(() -> Mono.error(new IllegalStateException("fetch completed without a response"))))
+        .doFinally(signal -> fetches.remove(fetch))
+        .subscribe(response -> {
+          completed.offer(new Fetched<>(request, response));
+          drain();
+        }, onError));
+  }
+
+  /** Cancels the fetches in flight and starts no more */
+  @Override
+  public void dispose() {
+    fetches.dispose();
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return fetches.isDisposed();
+  }
+
+  private static class Fetched<R> {
+    private final R request;
+    private final PageResponse response;
+
+    private Fetched(R request, PageResponse response) {
+      this.request = request;
+      this.response = response;
+    }
+  }
+}
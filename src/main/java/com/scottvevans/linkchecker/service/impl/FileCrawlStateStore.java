@@ -0,0 +1,402 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import com.scottvevans.linkchecker.model.CrawlState;
+import com.scottvevans.linkchecker.model.PageResponse;
+import com.scottvevans.linkchecker.model.PageValidators;
+import com.scottvevans.linkchecker.model.RedirectHop;
+import com.scottvevans.linkchecker.service.CrawlStateStore;
+import com.scottvevans.linkchecker.util.URIHelper;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Crawl state store that appends every change to a JSON lines log per crawl, so a crawl interrupted by a restart
+ * can be resumed by replaying its log. Validators are appended to a single log too, replayed into memory on
+ * startup and compacted when it has grown to several times the number of pages it describes.
+ *
+ * The state is updated in memory as it changes, and the lines recording it are written by a single writer on a
+ * bounded elastic thread, flushed after each run of lines, so the frontier calling in from an event loop and
+ * under its lock never waits on the disk. A line torn by a crash is skipped when the log is replayed.
+ *
+ * Opening or finding a crawl that is not in progress waits for the writer and replays its log without holding the
+ * store's lock, so the crawls recording meanwhile do not wait on it; callers open crawls off the event loops.
+ */
+@Service
+@ConditionalOnProperty(name = "linkchecker.state.store", havingValue = "file")
+@Slf4j
+public class FileCrawlStateStore implements CrawlStateStore {
+  static final String CRAWL_LOG_SUFFIX = ".crawl.jsonl";
+  static final String VALIDATORS_LOG = "validators.jsonl";
+  private static final int COMPACTION_RATIO = 4;
+
+  private final Path directory;
+  private final ObjectMapper mapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+  private final SerialWriter writer = new SerialWriter(Schedulers.boundedElastic(), this::flush);
+
+  // guarded by this
+  private final Map<String, CrawlState> crawls = new HashMap<>();
+  private final Map<String, PageValidators> validators;
+  private int validatorLines;
+
+  // only touched by the writer
+  private final Map<String, BufferedWriter> writers = new HashMap<>();
+  private BufferedWriter validatorsWriter;
+
+  @Autowired
+  public FileCrawlStateStore(LinkCheckerProperties properties) {
+    this.directory = properties.getState().getDirectory();
+    this.validators = InMemoryCrawlStateStore.boundedMap(properties.getState().getMaxValidators());
+    try {
+      Files.createDirectories(directory);
+      loadValidators();
+      validatorsWriter = append(directory.resolve(VALIDATORS_LOG));
+    } catch (IOException ex) {
+      throw new UncheckedIOException("crawl state directory " + directory + " is not usable", ex);
+    }
+  }
+
+  @Override
+  public CrawlState open(String crawlId, String rootURI, int maxDepth) {
+    var state = load(crawlId);
+    synchronized (this) {
+      // a crawl with no log may have been opened by another call since
+      if (state == null) state = crawls.get(crawlId);
+      if (state == null) {
+        state = new CrawlState(crawlId, rootURI, maxDepth);
+        crawls.put(crawlId, state);
+        var line = new Line(Line.CRAWL);
+        line.setUri(rootURI);
+        line.setDepth(maxDepth);
+        write(crawlId, line);
+      }
+      return state.copy();
+    }
+  }
+
+  @Override
+  public Optional<CrawlState> find(String crawlId) {
+    var state = load(crawlId);
+    synchronized (this) {
+      return Optional.ofNullable(state).map(CrawlState::copy);
+    }
+  }
+
+  @Override
+  public synchronized void discovered(String crawlId, String uri, int depth) {
+    var state = crawls.get(crawlId);
+    if (state == null || state.getDepths().getOrDefault(uri, Integer.MAX_VALUE) <= depth) return;
+    state.discovered(uri, depth);
+    var line = new Line(Line.DISCOVERED);
+    line.setUri(uri);
+    line.setDepth(depth);
+    write(crawlId, line);
+  }
+
+  @Override
+  public synchronized void fetched(String crawlId, PageResponse response) {
+    var state = crawls.get(crawlId);
+    if (state == null) return;
+    state.fetched(response);
+    write(crawlId, Line.fetched(response));
+  }
+
+  @Override
+  public synchronized void completed(String crawlId) {
+    var state = crawls.remove(crawlId);
+    if (state == null) return;
+    write(crawlId, new Line(Line.COMPLETED));
+    writer.execute(() -> close(writers.remove(crawlId)));
+  }
+
+  @Override
+  public synchronized void delete(String crawlId) {
+    CrawlStateStore.requireValidCrawlId(crawlId);
+    crawls.remove(crawlId);
+    writer.execute(() -> {
+      close(writers.remove(crawlId));
+      try {
+        Files.deleteIfExists(crawlLog(crawlId));
+      } catch (IOException ex) {
+        log.error("deleting crawl {} failed", crawlId, ex);
+      }
+    });
+  }
+
+  @Override
+  public synchronized Optional<PageValidators> getValidators(String uri) {
+    return Optional.ofNullable(validators.get(URIHelper.normalizeURI(uri)));
+  }
+
+  @Override
+  public synchronized void putValidators(String uri, PageValidators pageValidators) {
+    var key = URIHelper.normalizeURI(uri);
+    validators.put(key, pageValidators);
+    validatorLines++;
+    var line = Line.validators(key, pageValidators);
+    writer.execute(() -> writeValidators(line));
+    if (validatorLines > COMPACTION_RATIO * Math.max(validators.size(), 1024)) {
+      List<Line> latest = new ArrayList<>(validators.size());
+      validators.forEach((uri, latestValidators) -> latest.add(Line.validators(uri, latestValidators)));
+      validatorLines = latest.size();
+      writer.execute(() -> compactValidators(latest));
+    }
+  }
+
+  /** Closes the logs once the lines waiting to be written are written */
+  @PreDestroy
+  public void close() {
+    writer.execute(() -> {
+      writers.values().forEach(FileCrawlStateStore::close);
+      writers.clear();
+      close(validatorsWriter);
+      validatorsWriter = null;
+    });
+    writer.await();
+  }
+
+  /**
+   * The state of a crawl in progress, or replayed from its log, keeping a crawl replayed that is not completed in
+   * progress; completed crawls are replayed on every call
+   */
+  private CrawlState load(String crawlId) {
+    CrawlStateStore.requireValidCrawlId(crawlId);
+    synchronized (this) {
+      var state = crawls.get(crawlId);
+      if (state != null) return state;
+    }
+    var replayed = replay(crawlId);
+    synchronized (this) {
+      // another call may have opened or replayed the crawl while this one read its log
+      var state = crawls.get(crawlId);
+      if (state != null) return state;
+      if (replayed != null && !replayed.isCompleted()) crawls.put(crawlId, replayed);
+      return replayed;
+    }
+  }
+
+  /** Reads the state of a crawl from its log, or null when it has none; called without holding the lock */
+  private CrawlState replay(String crawlId) {
+    // the log may still have lines waiting to be written, even a crawl completed or deleted since it was read
+    writer.await();
+    var path = crawlLog(crawlId);
+    if (!Files.exists(path)) return null;
+    CrawlState state = null;
+    try {
+      for (var line : readLines(path)) {
+        if (Line.CRAWL.equals(line.getType())) {
+          state = new CrawlState(crawlId, line.getUri(), line.getDepth());
+        } else if (state == null) {
+          break;
+        } else if (Line.DISCOVERED.equals(line.getType())) {
+          state.discovered(line.getUri(), line.getDepth());
+        } else if (Line.FETCHED.equals(line.getType())) {
+          state.fetched(line.toPageResponse());
+        } else if (Line.COMPLETED.equals(line.getType())) {
+          state.setCompleted(true);
+        }
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException("reading crawl " + crawlId + " failed", ex);
+    }
+    return state;
+  }
+
+  /** Has the writer append the line to the crawl's log */
+  private void write(String crawlId, Line line) {
+    writer.execute(() -> {
+      try {
+        var crawlWriter = writers.get(crawlId);
+        if (crawlWriter == null) {
+          crawlWriter = append(crawlLog(crawlId));
+          writers.put(crawlId, crawlWriter);
+        }
+        writeLine(crawlWriter, line);
+      } catch (IOException ex) {
+        // the crawl carries on; it just cannot be resumed from this point
+        log.error("recording crawl {} failed", crawlId, ex);
+      }
+    });
+  }
+
+  private void writeValidators(Line line) {
+    try {
+      writeLine(validatorsWriter, line);
+    } catch (IOException ex) {
+      log.error("recording validators of {} failed", line.getUri(), ex);
+    }
+  }
+
+  private void writeLine(BufferedWriter out, Line line) throws IOException {
+    out.write(mapper.writeValueAsString(line));
+    out.newLine();
+  }
+
+  /** Flushes the lines the writer has written to every open log */
+  private void flush() {
+    writers.forEach((crawlId, crawlWriter) -> flush(crawlWriter));
+    flush(validatorsWriter);
+  }
+
+  private void loadValidators() throws IOException {
+    var path = directory.resolve(VALIDATORS_LOG);
+    if (!Files.exists(path)) return;
+    for (var line : readLines(path)) {
+      validators.put(line.getUri(), new PageValidators(line.getEtag(), line.getLastModified(), line.getLinks()));
+      validatorLines++;
+    }
+  }
+
+  /** Rewrites the validators log with only the latest validators of each page, replacing it atomically */
+  private void compactValidators(List<Line> latest) {
+    var path = directory.resolve(VALIDATORS_LOG);
+    var compacted = directory.resolve(VALIDATORS_LOG + ".tmp");
+    try {
+      try (var out = Files.newBufferedWriter(compacted, StandardCharsets.UTF_8)) {
+        for (var line : latest) {
+          writeLine(out, line);
+        }
+      }
+      close(validatorsWriter);
+      Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      validatorsWriter = append(path);
+    } catch (IOException ex) {
+      log.error("compacting {} failed", path, ex);
+    }
+  }
+
+  private List<Line> readLines(Path path) throws IOException {
+    List<Line> lines = new ArrayList<>();
+    for (var json : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+      try {
+        lines.add(mapper.readValue(json, Line.class));
+      } catch (JsonProcessingException ex) {
+        log.warn("skipping unreadable line of {}: {}", path, ex.getOriginalMessage());
+      }
+    }
+    return lines;
+  }
+
+  private Path crawlLog(String crawlId) {
+    return directory.resolve(crawlId + CRAWL_LOG_SUFFIX);
+  }
+
+  /** Opens a log for appending, first ending a line torn by a crash so the next line is not lost with it */
+  private static BufferedWriter append(Path path) throws IOException {
+    boolean torn = false;
+    if (Files.exists(path) && Files.size(path) > 0) {
+      try (var channel = Files.newByteChannel(path)) {
+        var last = ByteBuffer.allocate(1);
+        channel.position(channel.size() - 1).read(last);
+        torn = last.get(0) != '\n';
+      }
+    }
+    var writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    if (torn) writer.newLine();
+    return writer;
+  }
+
+  private static void flush(BufferedWriter out) {
+    if (out == null) return;
+    try {
+      out.flush();
+    } catch (IOException ex) {
+      log.warn("flushing crawl state log failed", ex);
+    }
+  }
+
+  private static void close(BufferedWriter out) {
+    if (out == null) return;
+    try {
+      out.close();
+    } catch (IOException ex) {
+      log.warn("closing crawl state log failed", ex);
+    }
+  }
+
+
+  /** One line of a log; which fields are present depends on the type */
+  @Data
+  @NoArgsConstructor
+  static class Line {
+    static final String CRAWL = "crawl";
+    static final String DISCOVERED = "discovered";
+    static final String FETCHED = "fetched";
+    static final String COMPLETED = "completed";
+    static final String VALIDATORS = "validators";
+
+    private String type;
+    private String uri;
+    private Integer depth;
+    private Integer httpStatus;
+    private String message;
+    private Set<String> links;
+    private String method;
+    private Boolean linksOmitted;
+    private List<RedirectHop> redirects;
+    private String redirectedURI;
+    private String etag;
+    private String lastModified;
+
+    Line(String type) {
+      this.type = type;
+    }
+
+    static Line fetched(PageResponse response) {
+      var line = new Line(FETCHED);
+      line.setUri(response.getUri());
+      line.setHttpStatus(response.getHttpStatus());
+      line.setMessage(response.getMessage());
+      line.setLinks(response.getLinks());
+      line.setMethod(response.getMethod());
+      line.setLinksOmitted(response.isLinksOmitted() ? Boolean.TRUE : null);
+      line.setRedirects(response.getRedirects().isEmpty() ? null : response.getRedirects());
+      line.setRedirectedURI(response.getRedirectedURI());
+      return line;
+    }
+
+    static Line validators(String uri, PageValidators validators) {
+      var line = new Line(VALIDATORS);
+      line.setUri(uri);
+      line.setEtag(validators.getEtag());
+      line.setLastModified(validators.getLastModified());
+      line.setLinks(validators.getLinks());
+      return line;
+    }
+
+    PageResponse toPageResponse() {
+      var response = new PageResponse(uri, httpStatus, message, links == null ? Set.of() : links);
+      if (method != null) response.setMethod(method);
+      response.setLinksOmitted(Boolean.TRUE.equals(linksOmitted));
+      if (redirects != null) response.setRedirects(redirects);
+      response.setRedirectedURI(redirectedURI);
+      return response;
+    }
+  }
+}
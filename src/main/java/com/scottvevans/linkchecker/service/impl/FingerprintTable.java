@@ -0,0 +1,91 @@
+package com.scottvevans.linkchecker.service.impl;
+
+/**
+ * Open addressing hash table from 64 bit URI fingerprints to a byte of state, kept in two primitive arrays with
+ * no object per entry, so a visited set of a million URIs costs about 20MB instead of well over 100MB of Strings
+ * and map nodes.
+ *
+ * A URI is known only by its fingerprint, so two distinct URIs with the same one are taken for the same URI;
+ * for a million URIs the chance of any such collision is about one in forty million.
+ */
+public final class FingerprintTable {
+  /** returned by get for a fingerprint that is not in the table; never a valid state */
+  public static final byte ABSENT = -1;
+  private static final int MIN_CAPACITY = 16;
+
+  private long[] keys;
+  private byte[] values;
+  private int size;
+  private int mask;
+
+  public FingerprintTable() {
+    this(MIN_CAPACITY);
+  }
+
+  /** Sized to hold the expected number of entries without resizing */
+  public FingerprintTable(int expectedSize) {
+    allocate(Integer.highestOneBit(Math.max(MIN_CAPACITY, expectedSize * 2) - 1) << 1);
+  }
+
+  /** 64 bit FNV-1a hash of the chars of the URI, with a final avalanche mix; never zero, which marks a free slot */
+  public static long fingerprint(CharSequence uri) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < uri.length(); i++) {
+      hash ^= uri.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash == 0 ? 1 : hash;
+  }
+
+  public byte get(long fingerprint) {
+    for (int i = (int) fingerprint & mask; ; i = (i + 1) & mask) {
+      if (keys[i] == fingerprint) return values[i];
+      if (keys[i] == 0) return ABSENT;
+    }
+  }
+
+  /** Adds or replaces the state of the fingerprint; the state must not be ABSENT */
+  public void put(long fingerprint, byte value) {
+    if (value == ABSENT) throw new IllegalArgumentException("ABSENT is not a valid state");
+    int i = (int) fingerprint & mask;
+    while (keys[i] != 0 && keys[i] != fingerprint) i = (i + 1) & mask;
+    values[i] = value;
+    if (keys[i] == 0) {
+      keys[i] = fingerprint;
+      if (++size > keys.length / 2) resize();
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /** Approximate bytes held by the table's arrays */
+  public long footprintBytes() {
+    return keys.length * (long) (Long.BYTES + Byte.BYTES);
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new byte[capacity];
+    mask = capacity - 1;
+  }
+
+  private void resize() {
+    var oldKeys = keys;
+    var oldValues = values;
+    allocate(oldKeys.length * 2);
+    for (int j = 0; j < oldKeys.length; j++) {
+      if (oldKeys[j] == 0) continue;
+      int i = (int) oldKeys[j] & mask;
+      while (keys[i] != 0) i = (i + 1) & mask;
+      keys[i] = oldKeys[j];
+      values[i] = oldValues[j];
+    }
+  }
+}
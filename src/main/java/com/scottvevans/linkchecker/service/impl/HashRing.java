@@ -0,0 +1,45 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.scottvevans.linkchecker.service.impl.FingerprintTable.fingerprint;
+
+/**
+ * Consistent hash ring assigning each host to one node of a cluster. Every node is placed on the ring at a number
+ * of points, and a host belongs to the node of the first point at or after its own hash, so the hosts are spread
+ * evenly and adding or removing a node only moves the hosts of its points. Every node builds the same ring from
+ * the same list of nodes, in whatever order they are listed.
+ */
+final class HashRing {
+  private final long[] points;
+  private final String[] owners;
+
+  HashRing(List<String> nodes, int virtualNodes) {
+    if (nodes.isEmpty()) throw new IllegalArgumentException("a hash ring needs at least one node");
+    if (virtualNodes < 1) throw new IllegalArgumentException("virtualNodes must be a positive integer");
+    long[][] placed = new long[nodes.size() * virtualNodes][];
+    var sorted = nodes.stream().sorted().distinct().toArray(String[]::new);
+    int count = 0;
+    for (int node = 0; node < sorted.length; node++) {
+      for (int i = 0; i < virtualNodes; i++) {
+        placed[count++] = new long[] { fingerprint(sorted[node] + "#" + i), node };
+      }
+    }
+    placed = Arrays.copyOf(placed, count);
+    Arrays.sort(placed, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+    this.points = new long[count];
+    this.owners = new String[count];
+    for (int i = 0; i < count; i++) {
+      points[i] = placed[i][0];
+      owners[i] = sorted[(int) placed[i][1]];
+    }
+  }
+
+  /** The node owning the host */
+  String nodeFor(String host) {
+    int i = Arrays.binarySearch(points, fingerprint(host));
+    if (i < 0) i = -i - 1;
+    return owners[i == points.length ? 0 : i];
+  }
+}
@@ -0,0 +1,290 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Politeness scheduler for outbound fetches: caps the concurrent requests per host and overall, and spaces out
+ * the start of requests to the same host, by the configured delay or a longer one a host asks for. Hosts with
+ * waiting requests are served round robin, so one large origin cannot starve the others.
+ *
+ * With adaptive concurrency, the cap of each host is adapted to the latency of its requests and to those whose
+ * outcome shows it overloaded, rather than fixed. It never exceeds the pooled connections per host, as requests
+ * beyond them would only wait for a connection, and a request's latency is taken from when it is sent, once it has
+ * one, when its task calls startSample.
+ */
+@Service
+public class HostScheduler {
+  static final String QUEUE_DEPTH_METRIC = "linkchecker.scheduler.queue.depth";
+  static final String IN_FLIGHT_METRIC = "linkchecker.scheduler.in.flight";
+  static final String CONCURRENCY_LIMIT_METRIC = "linkchecker.scheduler.concurrency.limit";
+  private static final int MIN_SWEEP_THRESHOLD = 64;
+  /** subscriber context key of the hook restarting the latency sample of the task running with it */
+  private static final String SAMPLE_START = HostScheduler.class.getName() + ".sampleStart";
+
+  private final int perHostConcurrency;
+  private final long perHostMinDelayNanos;
+  private final int maxInFlight;
+  private final LinkCheckerProperties.AdaptiveConcurrency adaptive;
+  private final int maxConnectionsPerHost;
+  private final MeterRegistry registry;
+
+  // guarded by this
+  private final Map<String, HostQueue> hosts = new HashMap<>();
+  private final Deque<HostQueue> waiting = new ArrayDeque<>();
+  private int inFlight;
+  private int sweepThreshold = MIN_SWEEP_THRESHOLD;
+  private long timerDeadline;
+  private boolean timerArmed;
+
+  @Autowired
+  public HostScheduler(LinkCheckerProperties properties, MeterRegistry registry) {
+    var fetch = properties.getFetch();
+    if (fetch.getPerHostConcurrency() < 1 || fetch.getMaxInFlight() < 1)
+      throw new IllegalArgumentException("fetch concurrency limits must be positive integers");
+    var adaptive = properties.getAdaptiveConcurrency();
+    if (adaptive.isEnabled() && (adaptive.getMinLimit() < 1 || adaptive.getMaxLimit() < adaptive.getMinLimit()))
+      throw new IllegalArgumentException("adaptive concurrency limits must be positive integers, min <= max");
+    this.perHostConcurrency = fetch.getPerHostConcurrency();
+    this.perHostMinDelayNanos = fetch.getPerHostMinDelay().toNanos();
+    this.maxInFlight = fetch.getMaxInFlight();
+    this.adaptive = adaptive.isEnabled() ? adaptive : null;
+    this.maxConnectionsPerHost = properties.getHttp().getMaxConnectionsPerHost();
+    this.registry = registry;
+    Gauge.builder(IN_FLIGHT_METRIC, this, HostScheduler::getInFlight).register(registry);
+  }
+
+  /** Defers subscribing to the task until the host and global limits allow it to start */
+  public <T> Mono<T> schedule(String host, Supplier<Mono<T>> task) {
+    return schedule(host, Duration.ZERO, task);
+  }
+
+  /**
+   * Defers subscribing to the task until the host and global limits allow it to start, spacing out requests to the
+   * host by at least the given delay from now on, such as the Crawl-delay of its robots.txt
+   */
+  public <T> Mono<T> schedule(String host, Duration minDelay, Supplier<Mono<T>> task) {
+    return schedule(host, minDelay, task, result -> false);
+  }
+
+  /**
+   * Like schedule, telling the host's adaptive limit, if any, which results show the host overloaded; failures
+   * that are timeouts or connection problems always do
+   */
+  public <T> Mono<T> schedule(String host, Duration minDelay, Supplier<Mono<T>> task,
+                              Predicate<? super T> overloaded) {
+    long minDelayNanos = Math.max(perHostMinDelayNanos, minDelay.toNanos());
+    return Mono.create(sink -> {
+      var slot = new Slot();
+      slot.task = () -> {
+        slot.startNanos = System.nanoTime();
+        return task.get()
+            .doOnNext(result -> slot.overloaded = overloaded.test(result))
+            .doOnError(ex -> slot.overloaded = RetryPolicy.isTransient(ex))
+            .doFinally(signal -> release(slot, signal != SignalType.CANCEL))
+            .subscriberContext(Context.of(SAMPLE_START, (Runnable) () -> slot.startNanos = System.nanoTime()))
+            .subscribe(sink::success, sink::error, sink::success);
+      };
+      sink.onDispose(() -> cancel(slot));
+      enqueue(host, minDelayNanos, slot);
+    });
+  }
+
+  /**
+   * Restarts the latency sample of the scheduled task running with the given subscriber context, if any, as its
+   * request is sent, so the time it waited for a pooled connection is not taken for the host's latency
+   */
+  static void startSample(Context context) {
+    context.<Runnable>getOrEmpty(SAMPLE_START).ifPresent(Runnable::run);
+  }
+
+  /** Number of requests waiting to start for each host that currently has any */
+  public synchronized Map<String, Integer> getQueueDepths() {
+    Map<String, Integer> depths = new TreeMap<>();
+    for (var queue : waiting) {
+      depths.put(queue.host, queue.slots.size());
+    }
+    return depths;
+  }
+
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  private void enqueue(String host, long minDelayNanos, Slot slot) {
+    synchronized (this) {
+      var queue = hosts.computeIfAbsent(host, HostQueue::new);
+      queue.minDelayNanos = minDelayNanos;
+      slot.queue = queue;
+      if (queue.slots.isEmpty()) waiting.addLast(queue);
+      queue.slots.addLast(slot);
+    }
+    drain();
+  }
+
+  private void cancel(Slot slot) {
+    synchronized (this) {
+      if (slot.state == SlotState.QUEUED) {
+        slot.state = SlotState.DONE;
+        slot.queue.slots.remove(slot);
+        if (slot.queue.slots.isEmpty()) waiting.remove(slot.queue);
+        return;
+      }
+    }
+    // a running task releases its slot when it terminates, including on cancellation
+    slot.work.dispose();
+  }
+
+  /** Frees the slot of a task that terminated, adapting its host's limit to how it went unless it was cancelled */
+  private void release(Slot slot, boolean completed) {
+    synchronized (this) {
+      if (slot.state != SlotState.RUNNING) return;
+      slot.state = SlotState.DONE;
+      if (completed && slot.queue.limit != null)
+        slot.queue.limit.onSample(slot.startNanos, System.nanoTime(), slot.queue.active, slot.overloaded);
+      slot.queue.active--;
+      inFlight--;
+    }
+    drain();
+  }
+
+  /** Starts as many waiting tasks as the limits allow, and arms a timer for hosts still inside their delay */
+  private void drain() {
+    List<Slot> toStart = new ArrayList<>();
+    long wakeUp = 0;
+    boolean armTimer = false;
+
+    synchronized (this) {
+      long now = System.nanoTime();
+      boolean started = true;
+      while (started && inFlight < maxInFlight) {
+        started = false;
+        for (int i = waiting.size(); i > 0 && inFlight < maxInFlight; i--) {
+          var queue = waiting.pollFirst();
+          if (queue.active < queue.concurrency() && now - queue.nextStart >= 0) {
+            var slot = queue.slots.pollFirst();
+            slot.state = SlotState.RUNNING;
+            queue.active++;
+            queue.nextStart = now + queue.minDelayNanos;
+            inFlight++;
+            toStart.add(slot);
+            started = true;
+          }
+          if (!queue.slots.isEmpty()) waiting.addLast(queue);
+        }
+      }
+
+      if (inFlight < maxInFlight) {
+        for (var queue : waiting) {
+          if (queue.active < queue.concurrency() && (!armTimer || queue.nextStart - wakeUp < 0)) {
+            wakeUp = queue.nextStart;
+            armTimer = true;
+          }
+        }
+      }
+      if (armTimer && timerArmed && timerDeadline - wakeUp <= 0) {
+        armTimer = false;
+      } else if (armTimer) {
+        timerArmed = true;
+        timerDeadline = wakeUp;
+      }
+
+      if (hosts.size() >= sweepThreshold) sweepIdleHosts(now);
+    }
+
+    for (var slot : toStart) {
+      slot.work.update(slot.task.get());
+    }
+    if (armTimer) {
+      Schedulers.parallel().schedule(this::onTimer, wakeUp - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private void onTimer() {
+    synchronized (this) {
+      timerArmed = false;
+    }
+    drain();
+  }
+
+  /** Forgets hosts with nothing queued or running whose delay has passed, removing their queue depth gauges */
+  private void sweepIdleHosts(long now) {
+    var iterator = hosts.values().iterator();
+    while (iterator.hasNext()) {
+      var queue = iterator.next();
+      if (queue.slots.isEmpty() && queue.active == 0 && now - queue.nextStart >= 0) {
+        iterator.remove();
+        registry.remove(queue.gauge);
+        registry.remove(queue.limitGauge);
+      }
+    }
+    sweepThreshold = Math.max(MIN_SWEEP_THRESHOLD, hosts.size() * 2);
+  }
+
+  private enum SlotState { QUEUED, RUNNING, DONE }
+
+  /** A single deferred task */
+  private static class Slot {
+    private final Disposable.Swap work = Disposables.swap();
+    private Supplier<Disposable> task;
+    private HostQueue queue;
+    private SlotState state = SlotState.QUEUED;
+    private volatile long startNanos;
+    private volatile boolean overloaded;
+  }
+
+  /** Waiting tasks and running count for one host */
+  private class HostQueue {
+    private final String host;
+    private final Deque<Slot> slots = new ArrayDeque<>();
+    private final Gauge gauge;
+    private final Gauge limitGauge;
+    /** null when concurrency is fixed */
+    private final AdaptiveLimit limit;
+    private int active;
+    private long nextStart = System.nanoTime();
+    private long minDelayNanos = perHostMinDelayNanos;
+
+    private HostQueue(String host) {
+      this.host = host;
+      this.gauge = Gauge.builder(QUEUE_DEPTH_METRIC, this, HostQueue::size)
+          .tag("host", host)
+          .register(registry);
+      this.limit = adaptive == null ? null : new AdaptiveLimit(perHostConcurrency, maxConnectionsPerHost, adaptive);
+      this.limitGauge = Gauge.builder(CONCURRENCY_LIMIT_METRIC, this, HostQueue::limit)
+          .tag("host", host)
+          .register(registry);
+    }
+
+    private int concurrency() {
+      return limit == null ? perHostConcurrency : limit.get();
+    }
+
+    private double limit() {
+      synchronized (HostScheduler.this) {
+        return concurrency();
+      }
+    }
+
+    private double size() {
+      synchronized (HostScheduler.this) {
+        return slots.size();
+      }
+    }
+  }
+}
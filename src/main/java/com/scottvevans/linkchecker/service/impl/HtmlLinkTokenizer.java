@@ -0,0 +1,363 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental HTML tokenizer that only keeps what a link checker needs: the href of every a tag and of the first
+ * base tag. Characters may be fed in chunks split at any point. No DOM is built and nothing else of the page is
+ * retained, so memory is bounded by the links found rather than by the page size.
+ *
+ * Follows the HTML tokenization rules closely enough to skip comments, declarations, and the raw text of script,
+ * style, textarea and title elements, and to respect quoting inside tags.
+ */
+class HtmlLinkTokenizer {
+  /** hrefs longer than this, typically inline data, are dropped rather than buffered */
+  static final int MAX_HREF_LENGTH = 16 * 1024;
+  private static final int MAX_NAME_LENGTH = 16;
+  private static final String[] RAW_TEXT_TAGS = { "script", "style", "textarea", "title" };
+
+  private enum State {
+    DATA, TAG_OPEN, MARKUP_DECLARATION, COMMENT_START, COMMENT, BOGUS_COMMENT,
+    END_TAG_OPEN, TAG_NAME, BEFORE_ATTRIBUTE_NAME, ATTRIBUTE_NAME, AFTER_ATTRIBUTE_NAME,
+    BEFORE_ATTRIBUTE_VALUE, DOUBLE_QUOTED_VALUE, SINGLE_QUOTED_VALUE, UNQUOTED_VALUE, AFTER_QUOTED_VALUE,
+    RAW_TEXT, RAW_TEXT_LESS_THAN, RAW_TEXT_END_TAG, AFTER_RAW_TEXT_END_TAG
+  }
+
+  private final List<String> hrefs = new ArrayList<>();
+  private String baseHref;
+
+  private State state = State.DATA;
+  private final StringBuilder tagName = new StringBuilder(MAX_NAME_LENGTH);
+  private final StringBuilder attributeName = new StringBuilder(MAX_NAME_LENGTH);
+  private final StringBuilder href = new StringBuilder();
+  private boolean linkTag;
+  private boolean capturingHref;
+  private boolean hrefFound;
+  private boolean hrefTooLong;
+  private int dashes;
+  private String rawTextTag;
+  private int rawTextMatched;
+
+  /** Scans the next chunk of characters of the page */
+  void feed(CharSequence chars) {
+    for (int i = 0, length = chars.length(); i < length; i++) {
+      accept(chars.charAt(i));
+    }
+  }
+
+  /** The href values of all a tags, in document order, with character references decoded */
+  List<String> getHrefs() {
+    return hrefs;
+  }
+
+  /** The href of the first base tag that has one, or null */
+  String getBaseHref() {
+    return baseHref;
+  }
+
+  private void accept(char c) {
+    switch (state) {
+      case DATA:
+        if (c == '<') state = State.TAG_OPEN;
+        break;
+
+      case TAG_OPEN:
+        if (c == '!') {
+          state = State.MARKUP_DECLARATION;
+        } else if (c == '/') {
+          state = State.END_TAG_OPEN;
+        } else if (isAsciiLetter(c)) {
+          startTag(c);
+        } else if (c == '?') {
+          state = State.BOGUS_COMMENT;
+        } else {
+          state = State.DATA;
+          accept(c);
+        }
+        break;
+
+      case MARKUP_DECLARATION:
+        if (c == '-') {
+          state = State.COMMENT_START;
+        } else {
+          state = State.BOGUS_COMMENT;
+          accept(c);
+        }
+        break;
+
+      case COMMENT_START:
+        if (c == '-') {
+          // counted as if preceded by two dashes, so <!--> and <!---> close as abruptly as in a browser
+          state = State.COMMENT;
+          dashes = 2;
+        } else {
+          state = State.BOGUS_COMMENT;
+          accept(c);
+        }
+        break;
+
+      case COMMENT:
+        if (c == '-') {
+          dashes++;
+        } else if (c == '>' && dashes >= 2) {
+          state = State.DATA;
+        } else {
+          dashes = 0;
+        }
+        break;
+
+      case BOGUS_COMMENT:
+        if (c == '>') state = State.DATA;
+        break;
+
+      case END_TAG_OPEN:
+        // end tags carry nothing of interest, so everything up to the closing bracket is skipped
+        state = c == '>' ? State.DATA : State.BOGUS_COMMENT;
+        break;
+
+      case TAG_NAME:
+        if (isWhitespace(c) || c == '/') {
+          state = State.BEFORE_ATTRIBUTE_NAME;
+        } else if (c == '>') {
+          emitTag();
+        } else {
+          append(tagName, c);
+        }
+        break;
+
+      case BEFORE_ATTRIBUTE_NAME:
+        if (c == '>') {
+          emitTag();
+        } else if (!isWhitespace(c) && c != '/') {
+          startAttribute(c);
+        }
+        break;
+
+      case ATTRIBUTE_NAME:
+        if (isWhitespace(c)) {
+          state = State.AFTER_ATTRIBUTE_NAME;
+        } else if (c == '/') {
+          state = State.BEFORE_ATTRIBUTE_NAME;
+        } else if (c == '=') {
+          state = State.BEFORE_ATTRIBUTE_VALUE;
+          capturingHref = linkTag && !hrefFound && "href".contentEquals(attributeName);
+        } else if (c == '>') {
+          emitTag();
+        } else {
+          append(attributeName, c);
+        }
+        break;
+
+      case AFTER_ATTRIBUTE_NAME:
+        if (c == '=') {
+          state = State.BEFORE_ATTRIBUTE_VALUE;
+          capturingHref = linkTag && !hrefFound && "href".contentEquals(attributeName);
+        } else if (c == '/') {
+          state = State.BEFORE_ATTRIBUTE_NAME;
+        } else if (c == '>') {
+          emitTag();
+        } else if (!isWhitespace(c)) {
+          startAttribute(c);
+        }
+        break;
+
+      case BEFORE_ATTRIBUTE_VALUE:
+        if (c == '"') {
+          state = State.DOUBLE_QUOTED_VALUE;
+        } else if (c == '\'') {
+          state = State.SINGLE_QUOTED_VALUE;
+        } else if (c == '>') {
+          endAttributeValue();
+          emitTag();
+        } else if (!isWhitespace(c)) {
+          state = State.UNQUOTED_VALUE;
+          appendValue(c);
+        }
+        break;
+
+      case DOUBLE_QUOTED_VALUE:
+        if (c == '"') {
+          endAttributeValue();
+          state = State.AFTER_QUOTED_VALUE;
+        } else {
+          appendValue(c);
+        }
+        break;
+
+      case SINGLE_QUOTED_VALUE:
+        if (c == '\'') {
+          endAttributeValue();
+          state = State.AFTER_QUOTED_VALUE;
+        } else {
+          appendValue(c);
+        }
+        break;
+
+      case UNQUOTED_VALUE:
+        if (isWhitespace(c)) {
+          endAttributeValue();
+          state = State.BEFORE_ATTRIBUTE_NAME;
+        } else if (c == '>') {
+          endAttributeValue();
+          emitTag();
+        } else {
+          appendValue(c);
+        }
+        break;
+
+      case AFTER_QUOTED_VALUE:
+        if (c == '>') {
+          emitTag();
+        } else {
+          state = State.BEFORE_ATTRIBUTE_NAME;
+          if (!isWhitespace(c) && c != '/') accept(c);
+        }
+        break;
+
+      case RAW_TEXT:
+        if (c == '<') state = State.RAW_TEXT_LESS_THAN;
+        break;
+
+      case RAW_TEXT_LESS_THAN:
+        if (c == '/') {
+          state = State.RAW_TEXT_END_TAG;
+          rawTextMatched = 0;
+        } else {
+          state = State.RAW_TEXT;
+          accept(c);
+        }
+        break;
+
+      case RAW_TEXT_END_TAG:
+        if (Character.toLowerCase(c) == rawTextTag.charAt(rawTextMatched)) {
+          if (++rawTextMatched == rawTextTag.length()) state = State.AFTER_RAW_TEXT_END_TAG;
+        } else {
+          state = State.RAW_TEXT;
+          accept(c);
+        }
+        break;
+
+      case AFTER_RAW_TEXT_END_TAG:
+        if (c == '>') {
+          state = State.DATA;
+        } else if (isWhitespace(c) || c == '/') {
+          state = State.BOGUS_COMMENT;
+        } else {
+          state = State.RAW_TEXT;
+          accept(c);
+        }
+        break;
+    }
+  }
+
+  private void startTag(char c) {
+    state = State.TAG_NAME;
+    tagName.setLength(0);
+    append(tagName, c);
+    hrefFound = false;
+  }
+
+  private void startAttribute(char c) {
+    state = State.ATTRIBUTE_NAME;
+    attributeName.setLength(0);
+    append(attributeName, c);
+    linkTag = "a".contentEquals(tagName) || "base".contentEquals(tagName);
+    capturingHref = false;
+  }
+
+  private void appendValue(char c) {
+    if (!capturingHref) return;
+    if (href.length() < MAX_HREF_LENGTH) {
+      href.append(c);
+    } else {
+      hrefTooLong = true;
+    }
+  }
+
+  private void endAttributeValue() {
+    if (!capturingHref) return;
+    capturingHref = false;
+    hrefFound = true;
+    if (!hrefTooLong) {
+      var value = decodeCharacterReferences(href);
+      if ("a".contentEquals(tagName)) {
+        hrefs.add(value);
+      } else if (baseHref == null && !value.isBlank()) {
+        baseHref = value;
+      }
+    }
+    href.setLength(0);
+    hrefTooLong = false;
+  }
+
+  private void emitTag() {
+    state = State.DATA;
+    for (var rawTextTag : RAW_TEXT_TAGS) {
+      if (rawTextTag.contentEquals(tagName)) {
+        this.rawTextTag = rawTextTag;
+        state = State.RAW_TEXT;
+      }
+    }
+  }
+
+  private static void append(StringBuilder name, char c) {
+    if (name.length() < MAX_NAME_LENGTH) name.append(Character.toLowerCase(c));
+  }
+
+  private static boolean isAsciiLetter(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+  }
+
+  /** Decodes the character references that commonly appear in URLs; incomplete ones, such as &copy=, are kept */
+  static String decodeCharacterReferences(CharSequence value) {
+    int ampersand = indexOf(value, '&', 0);
+    if (ampersand == -1) return value.toString();
+
+    var decoded = new StringBuilder(value.length());
+    int from = 0;
+    while (ampersand != -1) {
+      decoded.append(value, from, ampersand);
+      int semicolon = indexOf(value, ';', ampersand + 1);
+      int codePoint = semicolon == -1 ? -1 : decodeReference(value, ampersand + 1, semicolon);
+      if (codePoint == -1) {
+        decoded.append('&');
+        from = ampersand + 1;
+      } else {
+        decoded.appendCodePoint(codePoint);
+        from = semicolon + 1;
+      }
+      ampersand = indexOf(value, '&', from);
+    }
+    return decoded.append(value, from, value.length()).toString();
+  }
+
+  private static int decodeReference(CharSequence value, int start, int end) {
+    var name = value.subSequence(start, end).toString();
+    switch (name) {
+      case "amp": return '&';
+      case "lt": return '<';
+      case "gt": return '>';
+      case "quot": return '"';
+      case "apos": return '\'';
+      case "nbsp": return '\u00a0';
+    }
+    int codePoint = -1;
+    try {
+      if (name.startsWith("#x") || name.startsWith("#X")) codePoint = Integer.parseInt(name.substring(2), 16);
+      else if (name.startsWith("#")) codePoint = Integer.parseInt(name.substring(1));
+    } catch (NumberFormatException ignored) {}
+    return Character.isValidCodePoint(codePoint) ? codePoint : -1;
+  }
+
+  private static int indexOf(CharSequence value, char c, int from) {
+    for (int i = from, length = value.length(); i < length; i++) {
+      if (value.charAt(i) == c) return i;
+    }
+    return -1;
+  }
+}
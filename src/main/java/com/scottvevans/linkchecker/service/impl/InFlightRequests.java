@@ -0,0 +1,77 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.model.PageResponse;
+import com.scottvevans.linkchecker.util.URIHelper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight table of fetches in progress: concurrent requests for the same normalized URI, from any crawl,
+ * share one fetch. An entry lives until its fetch completes, which it does even if every subscriber has cancelled,
+ * and its response is replayed to requests joining it at any point before then.
+ */
+@Service
+public class InFlightRequests {
+  static final String DEDUPLICATED_METRIC = "linkchecker.fetch.deduplicated";
+  static final String REQUESTS_METRIC = "linkchecker.fetch.requests";
+  static final String SHARED_METRIC = "linkchecker.fetch.shared";
+
+  private final ConcurrentMap<String, Mono<PageResponse>> inFlight = new ConcurrentHashMap<>();
+  private final Counter requests;
+  private final Counter deduplicated;
+
+  @Autowired
+  public InFlightRequests(MeterRegistry registry) {
+    this.requests = Counter.builder(REQUESTS_METRIC)
+        .description("fetches requested, whether started or joined to one already in progress")
+        .register(registry);
+    this.deduplicated = Counter.builder(DEDUPLICATED_METRIC)
+        .description("fetches joined to one already in progress for the same uri")
+        .register(registry);
+    Gauge.builder(SHARED_METRIC, inFlight, Map::size)
+        .description("distinct fetches in progress, each shared by every request for its uri")
+        .register(registry);
+  }
+
+  /** Joins the fetch in progress for an equivalent URI, or starts this one and shares it until it completes */
+  public Mono<PageResponse> execute(String uri, Supplier<Mono<PageResponse>> fetch) {
+    return execute(HttpMethod.GET, uri, fetch);
+  }
+
+  /** As execute(uri, fetch), only sharing fetches that use the same request method */
+  public Mono<PageResponse> execute(HttpMethod method, String uri, Supplier<Mono<PageResponse>> fetch) {
+    return Mono.defer(() -> {
+      var normalizedURI = URIHelper.normalizeURI(uri);
+      var key = method == HttpMethod.GET ? normalizedURI : method.name() + " " + normalizedURI;
+      var started = new AtomicReference<Mono<PageResponse>>();
+      var shared = inFlight.computeIfAbsent(key, k -> {
+        started.set(share(k, fetch.get()));
+        return started.get();
+      });
+      requests.increment();
+      if (shared != started.get()) deduplicated.increment();
+      return shared.map(response -> response.forURI(uri));
+    });
+  }
+
+  public int size() {
+    return inFlight.size();
+  }
+
+  private Mono<PageResponse> share(String key, Mono<PageResponse> fetch) {
+    var entry = new AtomicReference<Mono<PageResponse>>();
+    entry.set(fetch.doFinally(signal -> inFlight.remove(key, entry.get())).cache());
+    return entry.get();
+  }
+}
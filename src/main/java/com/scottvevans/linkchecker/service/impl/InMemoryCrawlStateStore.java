@@ -0,0 +1,102 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import com.scottvevans.linkchecker.model.CrawlState;
+import com.scottvevans.linkchecker.model.PageResponse;
+import com.scottvevans.linkchecker.model.PageValidators;
+import com.scottvevans.linkchecker.service.CrawlStateStore;
+import com.scottvevans.linkchecker.util.URIHelper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/** Crawl state store that keeps everything on the heap, so nothing survives a restart */
+@Service
+@ConditionalOnProperty(name = "linkchecker.state.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryCrawlStateStore implements CrawlStateStore {
+  private final int maxRetainedCrawls;
+
+  // guarded by this
+  private final Map<String, CrawlState> crawls = new LinkedHashMap<>();
+  private final Map<String, PageValidators> validators;
+
+  @Autowired
+  public InMemoryCrawlStateStore(LinkCheckerProperties properties) {
+    this.maxRetainedCrawls = properties.getState().getMaxRetainedCrawls();
+    this.validators = boundedMap(properties.getState().getMaxValidators());
+  }
+
+  @Override
+  public synchronized CrawlState open(String crawlId, String rootURI, int maxDepth) {
+    CrawlStateStore.requireValidCrawlId(crawlId);
+    var state = crawls.computeIfAbsent(crawlId, id -> new CrawlState(id, rootURI, maxDepth));
+    return state.copy();
+  }
+
+  @Override
+  public synchronized Optional<CrawlState> find(String crawlId) {
+    return Optional.ofNullable(crawls.get(crawlId)).map(CrawlState::copy);
+  }
+
+  @Override
+  public synchronized void discovered(String crawlId, String uri, int depth) {
+    var state = crawls.get(crawlId);
+    if (state != null) state.discovered(uri, depth);
+  }
+
+  @Override
+  public synchronized void fetched(String crawlId, PageResponse response) {
+    var state = crawls.get(crawlId);
+    if (state != null) state.fetched(response);
+  }
+
+  @Override
+  public synchronized void completed(String crawlId) {
+    var state = crawls.get(crawlId);
+    if (state == null) return;
+    state.setCompleted(true);
+    evictCompletedCrawls();
+  }
+
+  @Override
+  public synchronized void delete(String crawlId) {
+    crawls.remove(crawlId);
+  }
+
+  @Override
+  public synchronized Optional<PageValidators> getValidators(String uri) {
+    return Optional.ofNullable(validators.get(URIHelper.normalizeURI(uri)));
+  }
+
+  @Override
+  public synchronized void putValidators(String uri, PageValidators pageValidators) {
+    validators.put(URIHelper.normalizeURI(uri), pageValidators);
+  }
+
+  /** Forgets the oldest completed crawls beyond the number retained; crawls in progress are always kept */
+  private void evictCompletedCrawls() {
+    long completed = crawls.values().stream().filter(CrawlState::isCompleted).count();
+    var iterator = crawls.values().iterator();
+    while (completed > maxRetainedCrawls && iterator.hasNext()) {
+      if (iterator.next().isCompleted()) {
+        iterator.remove();
+        completed--;
+      }
+    }
+  }
+
+
+  /** Insertion ordered map dropping its eldest entry beyond the maximum size */
+  static <V> Map<String, V> boundedMap(int maxSize) {
+    return new LinkedHashMap<>() {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+}
@@ -3,6 +3,7 @@ package com.scottvevans.linkchecker.service.impl;
 import com.scottvevans.linkchecker.service.HtmlParser;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Element;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import java.net.MalformedURLException;
@@ -13,6 +14,7 @@ import static java.util.stream.Collectors.toList;
 
 /** HtmlParser implementation based on the popular Jsoup HTML parser */
 @Service
+@ConditionalOnProperty(name = "linkchecker.parser", havingValue = "jsoup", matchIfMissing = true)
 public class JsoupHtmlParserImpl implements HtmlParser {
   private static final String LINK_CSS_QUERY = "a[href]";
   private static final String HREF_KEY = "href";
@@ -0,0 +1,103 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import com.scottvevans.linkchecker.model.PageResponse;
+import com.scottvevans.linkchecker.util.URIHelper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Bounded cache of PageResponses shared by all crawls, keyed by normalized URI, so links common to many
+ * pages and sites are fetched once per time to live rather than once per crawl. Eviction is W-TinyLFU with
+ * a weight estimated from the size of the response and its links.
+ */
+@Service
+public class LinkStatusCache {
+  static final String CACHE_NAME = "linkchecker.pages";
+  private static final int OBJECT_OVERHEAD_BYTES = 64;
+
+  private final LinkCheckerProperties.Cache properties;
+  private final Cache<String, PageResponse> cache;
+
+  @Autowired
+  public LinkStatusCache(LinkCheckerProperties properties, MeterRegistry registry) {
+    this(properties, registry, Ticker.systemTicker());
+  }
+
+  LinkStatusCache(LinkCheckerProperties properties, MeterRegistry registry, Ticker ticker) {
+    this.properties = properties.getCache();
+    this.cache = Caffeine.newBuilder()
+        .maximumWeight(this.properties.isEnabled() ? this.properties.getMaximumMemory().toBytes() : 0)
+        .weigher(LinkStatusCache::estimateBytes)
+        .expireAfter(new StatusExpiry())
+        .ticker(ticker)
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+  }
+
+  /** The cached response for the URI, under the URI as given even if it was cached under an equivalent one */
+  public Optional<PageResponse> get(String uri) {
+    if (!properties.isEnabled()) return Optional.empty();
+    return Optional.ofNullable(cache.getIfPresent(URIHelper.normalizeURI(uri)))
+        .map(response -> response.forURI(uri));
+  }
+
+  /** Caches the response, except that a probe whose links were omitted never replaces a cached full response */
+  public void put(PageResponse response) {
+    if (!properties.isEnabled()) return;
+    var key = URIHelper.normalizeURI(response.getUri());
+    if (response.isLinksOmitted()) {
+      cache.asMap().putIfAbsent(key, response);
+    } else {
+      cache.put(key, response);
+    }
+  }
+
+  public long getHitCount() {
+    return cache.stats().hitCount();
+  }
+
+  public long getMissCount() {
+    return cache.stats().missCount();
+  }
+
+  /** Rough heap footprint of a cached entry; two bytes per char plus a fixed per object overhead */
+  private static int estimateBytes(String key, PageResponse response) {
+    long bytes = 2L * OBJECT_OVERHEAD_BYTES + 2L * key.length() + 2L * response.getMessage().length();
+    for (var link : response.getLinks()) {
+      bytes += OBJECT_OVERHEAD_BYTES + 2L * link.length();
+    }
+    return (int) Math.min(Integer.MAX_VALUE, bytes);
+  }
+
+  /** Expires entries after the time to live of their class of status, counting a revalidated page as a success */
+  private class StatusExpiry implements Expiry<String, PageResponse> {
+    @Override
+    public long expireAfterCreate(String key, PageResponse response, long currentTime) {
+      int status = response.getHttpStatus();
+      if (status >= 200 && status < 300 || status == 304) return properties.getSuccessTtl().toNanos();
+      if (status >= 300 && status < 400) return properties.getRedirectTtl().toNanos();
+      if (status >= 400) return properties.getErrorTtl().toNanos();
+      return properties.getFailureTtl().toNanos();
+    }
+
+    @Override
+    public long expireAfterUpdate(String key, PageResponse response, long currentTime, long currentDuration) {
+      return expireAfterCreate(key, response, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(String key, PageResponse response, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
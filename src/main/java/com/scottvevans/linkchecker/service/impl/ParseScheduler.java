@@ -0,0 +1,207 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.PooledDataBuffer;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool of threads, one per core by default, the html of fetched pages is parsed on, so parsing a large page
+ * never blocks the event loop that received it and every other fetch on that loop with it. Body buffers are handed
+ * to the pool as they arrive, a few at a time, so reading a body waits on its parse.
+ *
+ * Each page being parsed has at most one task queued, so admitting no more pages than the queue holds bounds it.
+ * Pages beyond that wait to be admitted before their bodies are read, holding their host's slot meanwhile, so a
+ * backlog of parsing slows the fetching that feeds it. The time tasks wait for a thread is recorded apart from the
+ * time they run, as is the time pages wait to be admitted.
+ */
+@Service
+public class ParseScheduler {
+  static final String ADMISSION_WAIT_METRIC = "linkchecker.parse.admission.wait";
+  static final String QUEUE_WAIT_METRIC = "linkchecker.parse.queue.wait";
+  static final String TASK_METRIC = "linkchecker.parse.task";
+  static final String QUEUE_SIZE_METRIC = "linkchecker.parse.queue.size";
+  /** body buffers handed to the pool at once for each page */
+  private static final int PREFETCH = 4;
+
+  private final boolean enabled;
+  private final int capacity;
+  private final ThreadPoolExecutor executor;
+  private final Scheduler scheduler;
+  private final Timer admissionWait;
+  private final Timer queueWait;
+  private final Timer task;
+
+  // guarded by this
+  private final Deque<Ticket> waiting = new ArrayDeque<>();
+  private int admitted;
+
+  @Autowired
+  public ParseScheduler(LinkCheckerProperties properties, MeterRegistry registry) {
+    var parse = properties.getParse();
+    int threads = parse.getThreads() > 0 ? parse.getThreads() : Runtime.getRuntime().availableProcessors();
+    if (parse.getQueueCapacity() < 1) throw new IllegalArgumentException("queueCapacity must be a positive integer");
+    this.enabled = parse.isDedicatedScheduler();
+    this.capacity = parse.getQueueCapacity();
+    this.admissionWait = Timer.builder(ADMISSION_WAIT_METRIC)
+        .description("time pages waited to be admitted to the parse pool before their bodies were read")
+        .register(registry);
+    this.queueWait = Timer.builder(QUEUE_WAIT_METRIC)
+        .description("time parse tasks waited in the queue for a parse thread")
+        .register(registry);
+    this.task = Timer.builder(TASK_METRIC)
+        .description("time parse tasks ran on a parse thread")
+        .register(registry);
+
+    var threadCount = new AtomicInteger();
+    this.executor = new TimedExecutor(threads, capacity, runnable -> {
+      var thread = new Thread(runnable, "parse-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.scheduler = Schedulers.fromExecutorService(executor);
+    Gauge.builder(QUEUE_SIZE_METRIC, executor, pool -> pool.getQueue().size())
+        .description("parse tasks waiting for a parse thread")
+        .register(registry);
+  }
+
+  @PreDestroy
+  public void close() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Applies the parse to the body with its signals delivered on the pool once the page is admitted, or straight
+   * away on the thread that receives the body when the dedicated scheduler is disabled
+   */
+  public <T> Mono<T> parse(Flux<DataBuffer> body, Function<Flux<DataBuffer>, Mono<T>> parse) {
+    if (!enabled) return parse.apply(body);
+    return Mono.create(sink -> {
+      long asked = System.nanoTime();
+      var ticket = new Ticket();
+      ticket.start = () -> {
+        admissionWait.record(System.nanoTime() - asked, TimeUnit.NANOSECONDS);
+        return parse.apply(body
+            .publishOn(scheduler, PREFETCH)
+            .doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release))
+            .doFinally(signal -> release(ticket))
+            .subscribe(sink::success, sink::error, sink::success);
+      };
+      sink.onDispose(() -> cancel(ticket));
+      admit(ticket);
+    });
+  }
+
+  /** Starts parsing the page if fewer than the queue holds are being parsed, or else has it wait its turn */
+  private void admit(Ticket ticket) {
+    synchronized (this) {
+      if (admitted >= capacity) {
+        waiting.addLast(ticket);
+        return;
+      }
+      admitted++;
+      ticket.state = TicketState.ADMITTED;
+    }
+    ticket.work.update(ticket.start.get());
+  }
+
+  private void cancel(Ticket ticket) {
+    synchronized (this) {
+      if (ticket.state == TicketState.WAITING) {
+        waiting.remove(ticket);
+        ticket.state = TicketState.DONE;
+        return;
+      }
+    }
+    ticket.work.dispose();
+  }
+
+  /** Admits the next page waiting, if any, in place of one that was parsed */
+  private void release(Ticket ticket) {
+    Ticket next;
+    synchronized (this) {
+      if (ticket.state != TicketState.ADMITTED) return;
+      ticket.state = TicketState.DONE;
+      next = waiting.pollFirst();
+      if (next == null) admitted--;
+      else next.state = TicketState.ADMITTED;
+    }
+    if (next != null) next.work.update(next.start.get());
+  }
+
+  private enum TicketState { WAITING, ADMITTED, DONE }
+
+  /** A page's parse and where it is in its turn; state guarded by the scheduler */
+  private static class Ticket {
+    private final Disposable.Swap work = Disposables.swap();
+    private Supplier<Disposable> start;
+    private TicketState state = TicketState.WAITING;
+  }
+
+  /** Executor recording how long each task waited for a thread and how long it ran */
+  private class TimedExecutor extends ThreadPoolExecutor {
+    private final ThreadLocal<Long> started = new ThreadLocal<>();
+
+    private TimedExecutor(int threads, int capacity, ThreadFactory threadFactory) {
+      super(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(capacity), threadFactory);
+    }
+
+    @Override
+    protected <V> RunnableFuture<V> newTaskFor(Runnable runnable, V value) {
+      return new QueuedTask<>(Executors.callable(runnable, value));
+    }
+
+    @Override
+    protected <V> RunnableFuture<V> newTaskFor(Callable<V> callable) {
+      return new QueuedTask<>(callable);
+    }
+
+    @Override
+    protected void beforeExecute(Thread thread, Runnable runnable) {
+      long now = System.nanoTime();
+      if (runnable instanceof QueuedTask)
+        queueWait.record(now - ((QueuedTask<?>) runnable).queued, TimeUnit.NANOSECONDS);
+      started.set(now);
+    }
+
+    @Override
+    protected void afterExecute(Runnable runnable, Throwable failure) {
+      task.record(System.nanoTime() - started.get(), TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /** A task stamped with the time it was queued */
+  private static class QueuedTask<V> extends FutureTask<V> {
+    private final long queued = System.nanoTime();
+
+    private QueuedTask(Callable<V> callable) {
+      super(callable);
+    }
+  }
+}
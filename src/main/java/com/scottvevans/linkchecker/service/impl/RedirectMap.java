@@ -0,0 +1,63 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import com.scottvevans.linkchecker.model.RedirectHop;
+import com.scottvevans.linkchecker.util.URIHelper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The redirect chains followed from URIs, shared by all crawls and keyed by normalized URI, so a later link to a
+ * URI known to redirect is fetched straight from the page the chain ended at rather than hop by hop.
+ */
+@Service
+public class RedirectMap {
+  static final String CACHE_NAME = "linkchecker.redirects";
+
+  private final boolean enabled;
+  private final Cache<String, Chain> cache;
+
+  @Autowired
+  public RedirectMap(LinkCheckerProperties properties, MeterRegistry registry) {
+    this(properties, registry, Ticker.systemTicker());
+  }
+
+  RedirectMap(LinkCheckerProperties properties, MeterRegistry registry, Ticker ticker) {
+    var redirects = properties.getRedirects();
+    this.enabled = redirects.isFollow();
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(enabled ? redirects.getMaxKnown() : 0)
+        .expireAfterWrite(redirects.getTtl())
+        .ticker(ticker)
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+  }
+
+  /** The chain known to be followed from the URI */
+  public Optional<Chain> get(String uri) {
+    if (!enabled) return Optional.empty();
+    return Optional.ofNullable(cache.getIfPresent(URIHelper.normalizeURI(uri)));
+  }
+
+  /** Records the hops followed from the URI to the target, the page they ended at */
+  public void put(String uri, List<RedirectHop> hops, String target) {
+    if (!enabled) return;
+    cache.put(URIHelper.normalizeURI(uri), new Chain(List.copyOf(hops), target));
+  }
+
+  @Data
+  public static class Chain {
+    private final List<RedirectHop> hops;
+    private final String target;
+  }
+}
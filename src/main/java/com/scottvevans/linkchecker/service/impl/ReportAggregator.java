@@ -0,0 +1,164 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import com.scottvevans.linkchecker.model.CrawlerReport;
+import com.scottvevans.linkchecker.model.LatencySummary;
+import com.scottvevans.linkchecker.model.PageResponse;
+import com.scottvevans.linkchecker.service.CrawlListener;
+import com.scottvevans.linkchecker.util.URIHelper;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+import static java.util.stream.Collectors.toUnmodifiableList;
+
+/**
+ * Counts the responses of a crawl as they are reported, by status, host and depth, and into a histogram of fetch
+ * times, in primitive counters rather than by grouping a list of every response at the end. Only the responses
+ * the report is configured to keep are retained: all of them, those not ok, or none, and at most a number of them
+ * when limited, preferring those not ok and then the slowest.
+ *
+ * Every response can also be handed on as it is reported, to gather what the report may not keep.
+ *
+ * Not thread safe; a frontier reports to its listener one response at a time.
+ */
+final class ReportAggregator implements CrawlListener {
+  /** statuses counted in an array, -1 for failed requests up to 599 */
+  private static final int MIN_STATUS = -1;
+  private static final int MAX_STATUS = 599;
+  private static final long[] BUCKET_BOUNDS_MILLIS =
+      { 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10_000, 30_000 };
+  private static final List<Long> BUCKET_BOUNDS =
+      Arrays.stream(BUCKET_BOUNDS_MILLIS).boxed().collect(toUnmodifiableList());
+  /** responses not ok first, then the slowest */
+  private static final Comparator<PageResponse> KEEP_FIRST = Comparator
+      .comparing((PageResponse response) -> isOk(response.getHttpStatus()))
+      .thenComparing(PageResponse::getFetchTimeInMillis, Comparator.reverseOrder());
+
+  private final LinkCheckerProperties.Report.Responses keep;
+  private final int maxResponses;
+  private final Consumer<PageResponse> onReported;
+
+  private final int[] statusCounts = new int[MAX_STATUS - MIN_STATUS + 1];
+  private final Map<Integer, int[]> otherStatusCounts = new HashMap<>();
+  private final Map<String, int[]> hostCounts = new HashMap<>();
+  private final int[] depthCounts = new int[8];
+  private final long[] bucketCounts = new long[BUCKET_BOUNDS_MILLIS.length + 1];
+  private long totalFetchTime;
+  private long maxFetchTime;
+  private int count;
+
+  /** kept in arrival order when unlimited, otherwise in a heap whose head is the first to drop */
+  private final List<PageResponse> kept;
+  private final PriorityQueue<PageResponse> limited;
+  private int omitted;
+
+  ReportAggregator(LinkCheckerProperties.Report settings) {
+    this(settings, response -> { });
+  }
+
+  ReportAggregator(LinkCheckerProperties.Report settings, Consumer<PageResponse> onReported) {
+    this.keep = settings.getResponses();
+    this.maxResponses = settings.getMaxResponses();
+    this.onReported = onReported;
+    this.kept = maxResponses > 0 ? null : new ArrayList<>();
+    this.limited = maxResponses > 0 ? new PriorityQueue<>(KEEP_FIRST.reversed()) : null;
+  }
+
+  @Override
+  public void reported(PageResponse response, int depth) {
+    count++;
+    int status = response.getHttpStatus();
+    if (status >= MIN_STATUS && status <= MAX_STATUS) statusCounts[status - MIN_STATUS]++;
+    else otherStatusCounts.computeIfAbsent(status, key -> new int[1])[0]++;
+    hostCounts.computeIfAbsent(URIHelper.getHost(response.getUri()), key -> new int[1])[0]++;
+    depthCounts[Math.min(depth, depthCounts.length - 1)]++;
+
+    long fetchTime = response.getFetchTimeInMillis();
+    totalFetchTime += fetchTime;
+    maxFetchTime = Math.max(maxFetchTime, fetchTime);
+    bucketCounts[bucket(fetchTime)]++;
+
+    keep(response);
+    onReported.accept(response);
+  }
+
+  int count() {
+    return count;
+  }
+
+  Map<Integer, Integer> statusCounts() {
+    Map<Integer, Integer> counts = new TreeMap<>();
+    for (int i = 0; i < statusCounts.length; i++) {
+      if (statusCounts[i] > 0) counts.put(i + MIN_STATUS, statusCounts[i]);
+    }
+    otherStatusCounts.forEach((status, counter) -> counts.put(status, counter[0]));
+    return counts;
+  }
+
+  CrawlerReport toReport(String rootURI, int depth, long elapsedTimeInMillis) {
+    List<PageResponse> responses;
+    if (limited != null) {
+      responses = new ArrayList<>(limited);
+      responses.sort(KEEP_FIRST);
+    } else {
+      responses = List.copyOf(kept);
+    }
+    var report = new CrawlerReport(rootURI, depth, elapsedTimeInMillis, count, statusCounts(), responses);
+    Map<String, Integer> hosts = new TreeMap<>();
+    hostCounts.forEach((host, counter) -> hosts.put(host, counter[0]));
+    report.setHostCounts(hosts);
+    Map<Integer, Integer> depths = new TreeMap<>();
+    for (int i = 0; i < depthCounts.length; i++) {
+      if (depthCounts[i] > 0) depths.put(i, depthCounts[i]);
+    }
+    report.setDepthCounts(depths);
+    report.setLatency(latency());
+    report.setResponsesOmitted(omitted);
+    return report;
+  }
+
+  private void keep(PageResponse response) {
+    if (keep == LinkCheckerProperties.Report.Responses.NONE
+        || (keep == LinkCheckerProperties.Report.Responses.NOT_OK && isOk(response.getHttpStatus()))) {
+      omitted++;
+    } else if (limited == null) {
+      kept.add(response);
+    } else {
+      limited.add(response);
+      if (limited.size() > maxResponses) {
+        limited.poll();
+        omitted++;
+      }
+    }
+  }
+
+  private LatencySummary latency() {
+    var counts = new ArrayList<Long>(bucketCounts.length);
+    for (long bucketCount : bucketCounts) counts.add(bucketCount);
+    return new LatencySummary(count, count == 0 ? 0 : totalFetchTime / count, maxFetchTime,
+        percentile(0.5), percentile(0.9), percentile(0.99), BUCKET_BOUNDS, counts);
+  }
+
+  /** The upper bound of the bucket holding the fetch at the given rank, capped at the slowest fetch */
+  private long percentile(double quantile) {
+    long rank = (long) Math.ceil(quantile * count);
+    long seen = 0;
+    for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+      seen += bucketCounts[i];
+      if (seen >= rank) return Math.min(BUCKET_BOUNDS_MILLIS[i], maxFetchTime);
+    }
+    return maxFetchTime;
+  }
+
+  private static int bucket(long fetchTime) {
+    int i = 0;
+    while (i < BUCKET_BOUNDS_MILLIS.length && fetchTime > BUCKET_BOUNDS_MILLIS[i]) i++;
+    return i;
+  }
+
+  /** 2xx, or 304 when a page fetched before was revalidated */
+  private static boolean isOk(int status) {
+    return (status >= 200 && status < 300) || status == 304;
+  }
+}
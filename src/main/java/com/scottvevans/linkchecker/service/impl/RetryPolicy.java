@@ -0,0 +1,108 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import com.scottvevans.linkchecker.model.PageResponse;
+
+import java.io.IOException;
+import java.net.UnknownHostException;
+import java.nio.channels.UnresolvedAddressException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.function.DoubleSupplier;
+
+/**
+ * When to fetch a page again after a transient failure: a timeout, a connection that failed or was reset, or one
+ * of the statuses servers answer when busy. Attempts are spaced by an exponential backoff with jitter, and by at
+ * least the Retry-After a server asked for; a server asking for longer than the policy allows is not retried.
+ */
+final class RetryPolicy {
+  private final int maxAttempts;
+  private final Duration initialBackoff;
+  private final Duration maxBackoff;
+  private final double multiplier;
+  private final double jitter;
+  private final Duration maxRetryAfter;
+  private final Set<Integer> statuses;
+  private final DoubleSupplier random;
+  private final Clock clock;
+
+  RetryPolicy(LinkCheckerProperties.Retry properties) {
+    this(properties, () -> ThreadLocalRandom.current().nextDouble(), Clock.systemUTC());
+  }
+
+  RetryPolicy(LinkCheckerProperties.Retry properties, DoubleSupplier random, Clock clock) {
+    if (properties.getMaxAttempts() < 1) throw new IllegalArgumentException("maxAttempts must be a positive integer");
+    if (properties.getJitter() < 0 || properties.getJitter() > 1)
+      throw new IllegalArgumentException("jitter must be between 0 and 1");
+    this.maxAttempts = properties.getMaxAttempts();
+    this.initialBackoff = properties.getInitialBackoff();
+    this.maxBackoff = properties.getMaxBackoff();
+    this.multiplier = properties.getMultiplier();
+    this.jitter = properties.getJitter();
+    this.maxRetryAfter = properties.getMaxRetryAfter();
+    this.statuses = Set.copyOf(properties.getStatuses());
+    this.random = random;
+    this.clock = clock;
+  }
+
+  /** Whether a response with the status may succeed if fetched again */
+  boolean isRetryable(int status) {
+    return statuses.contains(status);
+  }
+
+  /**
+   * Whether the failure is a timeout or a connection problem rather than, say, a host that does not exist. The read
+   * and write timeouts of each request come from netty's timeout handlers, whose exceptions are unchecked.
+   */
+  static boolean isTransient(Throwable failure) {
+    boolean transientCause = false;
+    for (var cause = failure; cause != null; cause = cause.getCause()) {
+      if (cause instanceof UnknownHostException || cause instanceof UnresolvedAddressException) return false;
+      transientCause |= cause instanceof TimeoutException || cause instanceof IOException
+          || cause instanceof io.netty.handler.timeout.TimeoutException;
+    }
+    return transientCause;
+  }
+
+  /**
+   * The delay before fetching again a page whose response was the given one after the given number of retries,
+   * or empty when it should not be retried
+   */
+  Optional<Duration> delayBeforeRetry(PageResponse response, int retries) {
+    var retryAfter = response.getRetryAfter();
+    if (retryAfter == null || retries + 1 >= maxAttempts || retryAfter.compareTo(maxRetryAfter) > 0)
+      return Optional.empty();
+    var backoff = backoff(retries);
+    return Optional.of(retryAfter.compareTo(backoff) > 0 ? retryAfter : backoff);
+  }
+
+  /** The exponential backoff before the retry after the given number, reduced by up to the jitter at random */
+  Duration backoff(int retries) {
+    double millis = Math.min(initialBackoff.toMillis() * Math.pow(multiplier, retries), maxBackoff.toMillis());
+    return Duration.ofMillis((long) (millis * (1 - jitter * random.getAsDouble())));
+  }
+
+  /** Parses a Retry-After of delay seconds or an http date, zero when it is missing, past or malformed */
+  Duration parseRetryAfter(String value) {
+    if (value == null || value.isBlank()) return Duration.ZERO;
+    try {
+      return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+    } catch (NumberFormatException ex) {
+      // not delay seconds, so an http date
+    }
+    try {
+      var date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+      var delay = Duration.between(clock.instant(), date.toInstant());
+      return delay.isNegative() ? Duration.ZERO : delay;
+    } catch (DateTimeParseException ex) {
+      return Duration.ZERO;
+    }
+  }
+}
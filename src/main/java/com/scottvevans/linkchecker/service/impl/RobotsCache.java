@@ -0,0 +1,74 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * The parsed robots.txt rules of each origin, shared by all crawls, so robots.txt is fetched once per origin per
+ * time to live however many pages are fetched from it. Pages asking for the rules of an origin while they are
+ * being fetched wait for that fetch rather than starting another.
+ */
+@Service
+public class RobotsCache {
+  static final String CACHE_NAME = "linkchecker.robots";
+
+  private final LinkCheckerProperties.Robots properties;
+  private final Cache<String, RobotsRules> cache;
+  private final ConcurrentMap<String, Mono<RobotsRules>> loading = new ConcurrentHashMap<>();
+
+  @Autowired
+  public RobotsCache(LinkCheckerProperties properties, MeterRegistry registry) {
+    this(properties, registry, Ticker.systemTicker());
+  }
+
+  RobotsCache(LinkCheckerProperties properties, MeterRegistry registry, Ticker ticker) {
+    this.properties = properties.getRobots();
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(this.properties.getMaxHosts())
+        .expireAfter(new RulesExpiry())
+        .ticker(ticker)
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+  }
+
+  /** The rules of the origin, as scheme://authority, loading them with the loader when they are not cached */
+  public Mono<RobotsRules> get(String origin, Function<String, Mono<RobotsRules>> loader) {
+    var cached = cache.getIfPresent(origin);
+    if (cached != null) return Mono.just(cached);
+    return loading.computeIfAbsent(origin, key -> loader.apply(key)
+        .doOnNext(rules -> cache.put(key, rules))
+        .doFinally(signal -> loading.remove(key))
+        .cache());
+  }
+
+  /** Expires the rules assumed after an error sooner than the rules of a robots.txt that was retrieved */
+  private class RulesExpiry implements Expiry<String, RobotsRules> {
+    @Override
+    public long expireAfterCreate(String key, RobotsRules rules, long currentTime) {
+      return (rules == RobotsRules.UNREACHABLE ? properties.getErrorTtl() : properties.getTtl()).toNanos();
+    }
+
+    @Override
+    public long expireAfterUpdate(String key, RobotsRules rules, long currentTime, long currentDuration) {
+      return expireAfterCreate(key, rules, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(String key, RobotsRules rules, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
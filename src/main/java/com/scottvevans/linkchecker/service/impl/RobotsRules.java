@@ -0,0 +1,201 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The allow and disallow rules of a robots.txt that apply to one user agent, as RFC 9309 describes them: those of
+ * the groups naming the agent, or of the * groups when none do. The most specific matching rule wins, the one with
+ * the longest path, with allow winning a tie.
+ *
+ * Rules are compiled into a trie of their paths, so a path is matched in a single pass over its characters
+ * whatever the number of rules. A * in a rule is a node that matches any run of characters, so the pass tracks one
+ * node per wildcard that can still match as well as the one following the path; a $ ending a rule anchors it to
+ * the end of the path.
+ */
+public final class RobotsRules {
+  /** the rules of a site without a robots.txt */
+  public static final RobotsRules ALLOW_ALL = new RobotsRules(new Node(0, false), Duration.ZERO);
+  /**
+   * The rules assumed for a site whose robots.txt could not be retrieved for a server or network error: its pages
+   * are fetched, so they report the failure themselves as broken links rather than being skipped as disallowed
+   */
+  public static final RobotsRules UNREACHABLE = new RobotsRules(new Node(0, false), Duration.ZERO);
+
+  private static final byte NONE = 0;
+  private static final byte ALLOW = 1;
+  private static final byte DISALLOW = 2;
+
+  private final Node root;
+  private final Duration crawlDelay;
+
+  private RobotsRules(Node root, Duration crawlDelay) {
+    this.root = root;
+    this.crawlDelay = crawlDelay;
+  }
+
+  /** Parses the rules of the robots.txt that apply to the user agent, ignoring lines it does not understand */
+  public static RobotsRules parse(String robotsTxt, String userAgent) {
+    var specific = new Group();
+    var wildcard = new Group();
+    List<Group> current = new ArrayList<>();
+    boolean inRules = true;
+
+    for (var line : robotsTxt.split("\r\n|\r|\n")) {
+      int comment = line.indexOf('#');
+      if (comment != -1) line = line.substring(0, comment);
+      int colon = line.indexOf(':');
+      if (colon == -1) continue;
+      var key = line.substring(0, colon).trim().toLowerCase();
+      var value = line.substring(colon + 1).trim();
+
+      if (key.equals("user-agent")) {
+        if (inRules) current.clear();
+        inRules = false;
+        if (value.equals("*")) current.add(wildcard);
+        else if (value.equalsIgnoreCase(userAgent)) current.add(specific);
+        continue;
+      }
+      inRules = true;
+      for (var group : current) {
+        group.matched = true;
+        switch (key) {
+          case "allow": group.add(value, ALLOW); break;
+          case "disallow": group.add(value, DISALLOW); break;
+          case "crawl-delay": group.crawlDelay(value); break;
+          default: break;
+        }
+      }
+    }
+
+    var group = specific.matched ? specific : wildcard;
+    return new RobotsRules(group.root, group.crawlDelay);
+  }
+
+  /** Whether the rules allow fetching the path, including its query string */
+  public boolean isAllowed(String path) {
+    List<Node> active = new ArrayList<>();
+    addWithWildcards(active, root);
+    int bestLength = -1;
+    boolean allowed = true;
+
+    for (int i = 0; i <= path.length(); i++) {
+      boolean end = i == path.length();
+      for (var node : active) {
+        byte match = end && node.endMatch != NONE ? node.endMatch : node.match;
+        if (match == NONE) continue;
+        if (node.length > bestLength || (node.length == bestLength && match == ALLOW)) {
+          bestLength = node.length;
+          allowed = match == ALLOW;
+        }
+      }
+      if (end) break;
+
+      char c = path.charAt(i);
+      List<Node> next = new ArrayList<>(active.size());
+      for (var node : active) {
+        if (node.wildcard && !next.contains(node)) next.add(node);
+        var child = node.child(c);
+        if (child != null) addWithWildcards(next, child);
+      }
+      if (next.isEmpty()) break;
+      active = next;
+    }
+    return allowed;
+  }
+
+  /** The delay between requests asked for by the robots.txt, zero when it asks for none */
+  public Duration getCrawlDelay() {
+    return crawlDelay;
+  }
+
+  /** Adds the node, and the wildcard following it as it may match an empty run of characters */
+  private static void addWithWildcards(List<Node> active, Node node) {
+    if (!active.contains(node)) active.add(node);
+    if (node.star != null && !active.contains(node.star)) active.add(node.star);
+  }
+
+  /** The rules and crawl delay collected from every group naming the same agent */
+  private static class Group {
+    private final Node root = new Node(0, false);
+    private Duration crawlDelay = Duration.ZERO;
+    private boolean matched;
+
+    private void add(String path, byte match) {
+      // an empty disallow allows everything, as does an empty allow
+      if (path.isEmpty()) return;
+      if (path.charAt(0) != '/' && path.charAt(0) != '*') path = "/" + path;
+      boolean anchored = path.endsWith("$");
+      if (anchored) path = path.substring(0, path.length() - 1);
+
+      var node = root;
+      for (int i = 0; i < path.length(); i++) {
+        char c = path.charAt(i);
+        if (c == '*') {
+          // consecutive wildcards match the same as one
+          if (!node.wildcard) node = node.star();
+        } else {
+          node = node.addChild(c);
+        }
+      }
+      if (anchored) node.endMatch = merge(node.endMatch, match);
+      else node.match = merge(node.match, match);
+    }
+
+    private void crawlDelay(String value) {
+      try {
+        double seconds = Double.parseDouble(value);
+        if (seconds > 0 && seconds < Long.MAX_VALUE / 1000d) crawlDelay = Duration.ofMillis((long) (seconds * 1000));
+      } catch (NumberFormatException ex) {
+        // ignored, as other lines that cannot be understood are
+      }
+    }
+
+    /** An allow and a disallow of the same path allow it */
+    private static byte merge(byte existing, byte match) {
+      return existing == ALLOW || match == ALLOW ? ALLOW : DISALLOW;
+    }
+  }
+
+  /** A trie node: the rules ending at it, its children by next character, and a child for a following * */
+  private static class Node {
+    private final int length;
+    private final boolean wildcard;
+    private char[] labels = new char[0];
+    private Node[] children = new Node[0];
+    private Node star;
+    /** rule matching any path this node's prefix matches */
+    private byte match = NONE;
+    /** rule anchored with $, matching only a path ending at this node */
+    private byte endMatch = NONE;
+
+    private Node(int length, boolean wildcard) {
+      this.length = length;
+      this.wildcard = wildcard;
+    }
+
+    private Node child(char c) {
+      for (int i = 0; i < labels.length; i++) {
+        if (labels[i] == c) return children[i];
+      }
+      return null;
+    }
+
+    private Node addChild(char c) {
+      var child = child(c);
+      if (child != null) return child;
+      labels = Arrays.copyOf(labels, labels.length + 1);
+      children = Arrays.copyOf(children, children.length + 1);
+      labels[labels.length - 1] = c;
+      children[children.length - 1] = child = new Node(length + 1, false);
+      return child;
+    }
+
+    private Node star() {
+      if (star == null) star = new Node(length + 1, true);
+      return star;
+    }
+  }
+}
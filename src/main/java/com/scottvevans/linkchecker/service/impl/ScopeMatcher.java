@@ -0,0 +1,152 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.model.CrawlScope;
+import com.scottvevans.linkchecker.util.URIHelper;
+
+import java.net.URI;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * A CrawlScope compiled against the root of a crawl. The frontier asks it once per unique URI, when the URI is
+ * first discovered, and only expands the pages it says are in scope.
+ *
+ * Patterns come from requests, so each is matched reading at most a budget of characters of a URI. A pattern that
+ * backtracks past it, as (a+)+$ does, gives up on that URI, and a URI no pattern could decide is not expanded.
+ */
+final class ScopeMatcher {
+  /** Every link in scope, as crawls were before scopes */
+  static final ScopeMatcher ALL = new ScopeMatcher(CrawlScope.Mode.ALL, "", "", "", List.of(), List.of());
+  /** characters of a URI each pattern may read, many times what a pattern without nested repetition needs */
+  private static final int MATCH_BUDGET = 100_000;
+
+  private final CrawlScope.Mode mode;
+  private final String host;
+  private final String domain;
+  private final String prefix;
+  private final List<Pattern> include;
+  private final List<Pattern> exclude;
+
+  private ScopeMatcher(CrawlScope.Mode mode, String host, String domain, String prefix, List<Pattern> include,
+                       List<Pattern> exclude) {
+    this.mode = mode;
+    this.host = host;
+    this.domain = domain;
+    this.prefix = prefix;
+    this.include = include;
+    this.exclude = exclude;
+  }
+
+  /**
+   * Compiles the scope of a crawl from the root; an invalid pattern throws PatternSyntaxException, and more or
+   * longer patterns than CrawlScope allows IllegalArgumentException
+   */
+  static ScopeMatcher of(String rootURI, CrawlScope scope) {
+    var host = URIHelper.getHost(rootURI);
+    return new ScopeMatcher(scope.getMode(), host, URIHelper.getRegistrableDomain(host), directory(rootURI),
+        compile(scope.getInclude()), compile(scope.getExclude()));
+  }
+
+  /** Compiles the scope a crawl asked for, taking the defaults for what it does not give, or all when it gives none */
+  static ScopeMatcher of(String rootURI, CrawlScope scope, CrawlScope defaults) {
+    if (scope == null) return of(rootURI, defaults);
+    if (scope.getMode() == null) scope = new CrawlScope(defaults.getMode(), scope.getInclude(), scope.getExclude());
+    return of(rootURI, scope);
+  }
+
+  boolean inScope(String uri) {
+    return (matchesMode(uri) || find(include, uri, false)) && !find(exclude, uri, true);
+  }
+
+  private boolean matchesMode(String uri) {
+    switch (mode) {
+      case ALL: return true;
+      case NONE: return false;
+      case PREFIX: return host.equals(URIHelper.getHost(uri)) && path(uri).startsWith(prefix);
+      case DOMAIN: return domain.equals(URIHelper.getRegistrableDomain(URIHelper.getHost(uri)));
+      default: return host.equals(URIHelper.getHost(uri));
+    }
+  }
+
+  /** Whether any pattern is found in the uri, taking a pattern that ran out of budget to give the runaway answer */
+  private static boolean find(List<Pattern> patterns, String uri, boolean runaway) {
+    for (var pattern : patterns) {
+      try {
+        if (pattern.matcher(new BoundedInput(uri)).find()) return true;
+      } catch (BudgetExceeded ex) {
+        if (runaway) return true;
+      }
+    }
+    return false;
+  }
+
+  private static List<Pattern> compile(List<String> regexes) {
+    if (regexes == null) return List.of();
+    if (regexes.size() > CrawlScope.MAX_PATTERNS)
+      throw new IllegalArgumentException("a scope takes at most " + CrawlScope.MAX_PATTERNS + " patterns of each kind");
+    for (var regex : regexes) {
+      if (regex.length() > CrawlScope.MAX_PATTERN_LENGTH)
+        throw new IllegalArgumentException("scope patterns must be at most " + CrawlScope.MAX_PATTERN_LENGTH
+            + " characters");
+    }
+    return regexes.stream().map(Pattern::compile).collect(toList());
+  }
+
+  /** The raw path of the uri, or the empty String when it cannot be parsed */
+  private static String path(String uri) {
+    try {
+      var path = URI.create(uri).getRawPath();
+      return path == null || path.isEmpty() ? "/" : path;
+    } catch (IllegalArgumentException ex) {
+      return "";
+    }
+  }
+
+  /** The path of the uri up to and including its last slash */
+  private static String directory(String uri) {
+    var path = path(uri);
+    return path.substring(0, path.lastIndexOf('/') + 1);
+  }
+
+  /** A uri whose characters can be read MATCH_BUDGET times in all, after which reading throws BudgetExceeded */
+  private static final class BoundedInput implements CharSequence {
+    private final String uri;
+    private int budget = MATCH_BUDGET;
+
+    private BoundedInput(String uri) {
+      this.uri = uri;
+    }
+
+    @Override
+    public char charAt(int index) {
+      if (--budget < 0) throw BudgetExceeded.INSTANCE;
+      return uri.charAt(index);
+    }
+
+    @Override
+    public int length() {
+      return uri.length();
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      return uri.subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+      return uri;
+    }
+  }
+
+  /** Thrown by a match that read all of its budget; shared and without a stack trace, as it is never reported */
+  private static final class BudgetExceeded extends RuntimeException {
+    private static final BudgetExceeded INSTANCE = new BudgetExceeded();
+
+    private BudgetExceeded() {
+      super(null, null, false, false);
+    }
+  }
+}
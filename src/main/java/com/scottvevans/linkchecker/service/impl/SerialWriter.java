@@ -0,0 +1,66 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs writes one at a time in the order they were submitted, on a thread of the scheduler, so callers on an event
+ * loop or holding a lock never wait on the disk. Each run of writes drained together ends with a single flush.
+ *
+ * The writes must not take locks their submitters may hold while waiting for them.
+ */
+@Slf4j
+class SerialWriter {
+  private final Scheduler scheduler;
+  private final Runnable flush;
+  private final Queue<Runnable> writes = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger wip = new AtomicInteger();
+
+  SerialWriter(Scheduler scheduler, Runnable flush) {
+    this.scheduler = scheduler;
+    this.flush = flush;
+  }
+
+  void execute(Runnable write) {
+    writes.offer(write);
+    if (wip.getAndIncrement() == 0) scheduler.schedule(this::drain);
+  }
+
+  /** Waits for the writes submitted so far to be done and flushed */
+  void await() {
+    var done = new CompletableFuture<Void>();
+    execute(() -> {
+      try {
+        flush.run();
+      } finally {
+        done.complete(null);
+      }
+    });
+    done.join();
+  }
+
+  private void drain() {
+    int missed = 1;
+    do {
+      Runnable write;
+      while ((write = writes.poll()) != null) {
+        run(write);
+      }
+      run(flush);
+      missed = wip.addAndGet(-missed);
+    } while (missed != 0);
+  }
+
+  private static void run(Runnable write) {
+    try {
+      write.run();
+    } catch (RuntimeException ex) {
+      log.error("writing state failed", ex);
+    }
+  }
+}
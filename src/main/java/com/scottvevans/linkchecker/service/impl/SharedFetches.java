@@ -0,0 +1,39 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.model.PageResponse;
+import com.scottvevans.linkchecker.util.URIHelper;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Fetches shared by the crawls of every root in a batch: each normalized URI is fetched at most once for the
+ * whole batch, however many roots reach it, or twice if it was probed before a crawl needed its links. Unlike
+ * the link status cache, nothing expires or is evicted until the batch is done.
+ */
+class SharedFetches {
+  private final CrawlFrontier.Fetcher fetcher;
+  private final ConcurrentMap<String, Mono<PageResponse>> fetches = new ConcurrentHashMap<>();
+
+  SharedFetches(CrawlFrontier.Fetcher fetcher) {
+    this.fetcher = fetcher;
+  }
+
+  Mono<PageResponse> fetch(String uri, boolean needsLinks) {
+    return Mono.defer(() -> {
+      var key = URIHelper.normalizeURI(uri);
+      var shared = fetches.computeIfAbsent(key, k -> fetcher.fetch(uri, needsLinks).cache());
+      return shared
+          .flatMap(response -> needsLinks && response.isLinksOmitted()
+              ? fetches.compute(key, (k, current) -> current == shared ? fetcher.fetch(uri, true).cache() : current)
+              : Mono.just(response))
+          .map(response -> response.forURI(uri));
+    });
+  }
+
+  /** Distinct URIs fetched so far */
+  int size() {
+    return fetches.size();
+  }
+}
@@ -0,0 +1,160 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.service.HtmlParser;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.PooledDataBuffer;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * HtmlParser implementation that scans response bodies for links as they arrive, with an incremental tokenizer
+ * instead of a DOM. Each buffer is decoded and released straight away, so the memory held per page is a few
+ * kilobytes of decoder state plus the links found. Resolves links the same way as JsoupHtmlParserImpl, and fails
+ * a body over maxBytes the same way as the default buffering does.
+ */
+@Service
+@ConditionalOnProperty(name = "linkchecker.parser", havingValue = "streaming")
+public class StreamingHtmlParserImpl implements HtmlParser {
+  private static final int CHAR_BUFFER_SIZE = 4 * 1024;
+
+  @Override
+  public List<String> findLinks(String url, String html) {
+    validate(url);
+    var tokenizer = new HtmlLinkTokenizer();
+    tokenizer.feed(html);
+    return resolve(url, tokenizer);
+  }
+
+  @Override
+  public Mono<Set<String>> findUniqueLinks(String uri, Flux<DataBuffer> body, Charset charset, int maxBytes) {
+    return Mono.defer(() -> {
+      validate(uri);
+      var scanner = new Scanner(charset);
+      return body
+          .doOnNext(buffer -> {
+            try {
+              // fails the parse as DataBufferUtils.join does, so an oversized page is not reported fully checked
+              if (scanner.bytesRead + buffer.readableByteCount() > maxBytes)
+                throw new DataBufferLimitException("Exceeded limit on max bytes to buffer : " + maxBytes);
+              scanner.feed(buffer.asByteBuffer());
+            } finally {
+              DataBufferUtils.release(buffer);
+            }
+          })
+          .doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release)
+          .then(Mono.fromCallable(() -> HtmlParser.toUniqueLinks(uri, resolve(uri, scanner.finish()))));
+    });
+  }
+
+  private static void validate(String url) {
+    if ("".equals(url)) throw new IllegalArgumentException("url is empty");
+    try {
+      new URL(url);
+    } catch (MalformedURLException ex) {
+      throw new IllegalArgumentException("invalid url", ex);
+    }
+  }
+
+  /** Resolves the hrefs found against the page, or its base href, dropping empty and mailto links */
+  private static List<String> resolve(String url, HtmlLinkTokenizer tokenizer) {
+    var baseURI = url;
+    if (tokenizer.getBaseHref() != null) {
+      var resolvedBase = resolve(url, tokenizer.getBaseHref());
+      if (!resolvedBase.isEmpty()) baseURI = resolvedBase;
+    }
+    final var base = baseURI;
+    return tokenizer.getHrefs()
+        .stream()
+        .map(href -> resolve(base, href))
+        .filter(l -> !l.equals("") && !l.toLowerCase().startsWith("mailto:"))
+        .sorted()
+        .collect(toList());
+  }
+
+  /** Resolves a relative link to an absolute one as Jsoup's absUrl does, returning the empty String on failure */
+  static String resolve(String baseURI, String relative) {
+    try {
+      URL base;
+      try {
+        base = new URL(baseURI);
+      } catch (MalformedURLException ex) {
+        return new URL(relative).toExternalForm();
+      }
+      // workaround: java resolves '//path/file + ?foo' to '//path/?foo', not '//path/file?foo'
+      if (relative.startsWith("?"))
+        relative = base.getPath() + relative;
+      // workaround: //example.com + ./foo = //example.com/./foo, not //example.com/foo
+      if (relative.indexOf('.') == 0 && base.getFile().indexOf('/') != 0)
+        base = new URL(base.getProtocol(), base.getHost(), base.getPort(), "/" + base.getFile());
+      return new URL(base, relative).toExternalForm();
+    } catch (MalformedURLException ex) {
+      return "";
+    }
+  }
+
+  /** Decodes bytes into the tokenizer, carrying over characters split between buffers */
+  private static class Scanner {
+    private final CharsetDecoder decoder;
+    private final CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+    private final ByteBuffer carry = ByteBuffer.allocate(16);
+    private final HtmlLinkTokenizer tokenizer = new HtmlLinkTokenizer();
+    private long bytesRead;
+
+    private Scanner(Charset charset) {
+      this.decoder = charset.newDecoder()
+          .onMalformedInput(CodingErrorAction.REPLACE)
+          .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    private void feed(ByteBuffer bytes) {
+      bytesRead += bytes.remaining();
+      // complete a character split across the previous buffer one byte at a time
+      while (carry.position() > 0 && bytes.hasRemaining()) {
+        carry.put(bytes.get()).flip();
+        decode(carry, false);
+        carry.compact();
+      }
+      decode(bytes, false);
+      if (bytes.hasRemaining()) carry.put(bytes);
+    }
+
+    private HtmlLinkTokenizer finish() {
+      carry.flip();
+      decode(carry, true);
+      while (decoder.flush(chars).isOverflow()) {
+        drain();
+      }
+      drain();
+      return tokenizer;
+    }
+
+    private void decode(ByteBuffer bytes, boolean endOfInput) {
+      while (decoder.decode(bytes, chars, endOfInput).isOverflow()) {
+        drain();
+      }
+      drain();
+    }
+
+    private void drain() {
+      chars.flip();
+      tokenizer.feed(chars);
+      chars.clear();
+    }
+  }
+}
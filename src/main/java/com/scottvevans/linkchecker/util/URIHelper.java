@@ -3,36 +3,36 @@ package com.scottvevans.linkchecker.util;
 import java.net.URI;
 import java.util.Arrays;
 import java.util.Optional;
-import java.util.function.Predicate;
-import java.util.regex.Pattern;
-import java.util.stream.Stream;
-
-import static java.util.stream.Collectors.joining;
+import java.util.Set;
 
 public class URIHelper {
-  private static final String PARAM_REGEX = "^[a-zA-Z_][^=]*=[^&]+$";
-  private static final Predicate<String> IS_VALID_PARAM = Pattern.compile(PARAM_REGEX).asMatchPredicate();
+  private static final int INSERTION_SORT_THRESHOLD = 16;
+  /** second level labels under which country code domains are registered, as in acme.co.uk */
+  private static final Set<String> SECOND_LEVEL_LABELS =
+      Set.of("ac", "co", "com", "edu", "go", "gob", "gov", "mil", "ne", "net", "or", "org");
 
+  /**
+   * Removes the fragment, drops query string parameters that are not name=value pairs with a name starting with
+   * a letter or underscore, and sorts the remaining ones. Done in a single pass over the uri; uris without a query
+   * string or fragment are returned as is, as are uris whose query string is already normalized.
+   */
   public static String normalizeURI(final String uri) {
-    String normalizedURI = removeFragment(uri);
-    final int queryStringIndex = normalizedURI.indexOf('?');
-
-    if (queryStringIndex != -1) {
-      if (queryStringIndex + 1 == normalizedURI.length()) {
-        normalizedURI = normalizedURI.substring(0, queryStringIndex);
-      } else {
-        String queryString = normalizedURI.substring(queryStringIndex + 1);
-        Optional<String> sortedQueryStringMaybe = getSortedQueryString(queryString);
-
-        if (sortedQueryStringMaybe.isEmpty()) {
-          normalizedURI = normalizedURI.substring(0, queryStringIndex);
-        } else {
-          normalizedURI = normalizedURI.substring(0, queryStringIndex + 1) + sortedQueryStringMaybe.get();
-        }
-      }
+    final int fragmentIndex = uri.indexOf('#');
+    final int end = fragmentIndex == -1 ? uri.length() : fragmentIndex;
+    final int queryStringIndex = indexOf(uri, '?', 0, end);
+
+    if (queryStringIndex == -1) {
+      return end == uri.length() ? uri : uri.substring(0, end);
     }
 
-    return normalizedURI;
+    final QueryParams params = QueryParams.parse(uri, queryStringIndex + 1, end);
+    if (params.count == 0) {
+      return uri.substring(0, queryStringIndex);
+    }
+    if (params.isNormalized()) {
+      return end == uri.length() ? uri : uri.substring(0, end);
+    }
+    return params.appendSorted(new StringBuilder(end).append(uri, 0, queryStringIndex + 1)).toString();
   }
 
   public static String removeFragment(String uri) {
@@ -43,20 +43,47 @@ public class URIHelper {
     return uri;
   }
 
+  /** The valid parameters of the query string in sorted order, or empty when it has none */
   public static Optional<String> getSortedQueryString(final String queryString) {
-    Optional<String> sortedQueryStringMaybe = Optional.empty();
+    if (queryString == null || queryString.isEmpty()) {
+      return Optional.empty();
+    }
 
-    if (queryString != null && !queryString.equals("")) {
-      final String[] paramPairs = queryString.split("&");
-      final Stream<String> validParamsSorted = Arrays.stream(paramPairs).filter(IS_VALID_PARAM).sorted();
-      final String sortedQueryString = validParamsSorted.collect(joining("&"));
+    final QueryParams params = QueryParams.parse(queryString, 0, queryString.length());
+    if (params.count == 0) {
+      return Optional.empty();
+    }
+    if (params.isNormalized()) {
+      return Optional.of(queryString);
+    }
+    return Optional.of(params.appendSorted(new StringBuilder(queryString.length())).toString());
+  }
 
-      if (sortedQueryString.length() > 0) {
-        sortedQueryStringMaybe = Optional.of(sortedQueryString);
-      }
+  /** Lower cased host of an absolute URI, or the empty String when it has none or cannot be parsed */
+  public static String getHost(String uri) {
+    try {
+      String host = URI.create(uri).getHost();
+      return host == null ? "" : host.toLowerCase();
+    } catch (IllegalArgumentException ex) {
+      return "";
     }
+  }
 
-    return sortedQueryStringMaybe;
+  /**
+   * The domain a host was registered under, its last two labels, or three under the common second level labels
+   * of country code domains. An approximation of the public suffix list that holds for most sites; IP addresses
+   * and single label hosts are returned as is.
+   */
+  public static String getRegistrableDomain(String host) {
+    int last = host.lastIndexOf('.');
+    if (last <= 0 || host.indexOf(':') != -1 || Character.isDigit(host.charAt(host.length() - 1))) return host;
+    int secondLast = host.lastIndexOf('.', last - 1);
+    if (secondLast == -1) return host;
+    if (host.length() - last - 1 == 2 && SECOND_LEVEL_LABELS.contains(host.substring(secondLast + 1, last))) {
+      int thirdLast = host.lastIndexOf('.', secondLast - 1);
+      return thirdLast == -1 ? host : host.substring(thirdLast + 1);
+    }
+    return host.substring(secondLast + 1);
   }
 
   public static String resolveRedirectURI(String originalAbsoluteURI, String redirect) {
@@ -74,4 +101,110 @@ public class URIHelper {
 
     return redirectURI.toString();
   }
+
+  private static int indexOf(String s, char c, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (s.charAt(i) == c) return i;
+    }
+    return -1;
+  }
+
+  /**
+   * The valid parameters of a query string, held as packed start and end offsets into the uri rather than as
+   * substrings, and sorted in place in the same order String.compareTo gives.
+   */
+  private static class QueryParams {
+    private final String uri;
+    private long[] ranges = new long[8];
+    private int count;
+    private boolean dropped;
+
+    private QueryParams(String uri) {
+      this.uri = uri;
+    }
+
+    static QueryParams parse(String uri, int start, int end) {
+      var params = new QueryParams(uri);
+      int paramStart = start;
+      for (int i = start; i <= end; i++) {
+        if (i == end || uri.charAt(i) == '&') {
+          if (isValidParam(uri, paramStart, i)) {
+            params.add(paramStart, i);
+          } else {
+            params.dropped = true;
+          }
+          paramStart = i + 1;
+        }
+      }
+      return params;
+    }
+
+    /** Same as matching ^[a-zA-Z_][^=]*=[^&]+$ against the parameter */
+    private static boolean isValidParam(String uri, int start, int end) {
+      if (start == end) return false;
+      char first = uri.charAt(start);
+      if (!((first >= 'a' && first <= 'z') || (first >= 'A' && first <= 'Z') || first == '_')) return false;
+      int equals = indexOf(uri, '=', start + 1, end);
+      return equals != -1 && equals + 1 < end;
+    }
+
+    private void add(int paramStart, int paramEnd) {
+      if (count == ranges.length) ranges = Arrays.copyOf(ranges, count * 2);
+      ranges[count++] = ((long) paramStart << 32) | paramEnd;
+    }
+
+    /** Whether the query string already consists of only valid parameters in sorted order */
+    boolean isNormalized() {
+      if (dropped) return false;
+      for (int i = 1; i < count; i++) {
+        if (compare(ranges[i - 1], ranges[i]) > 0) return false;
+      }
+      return true;
+    }
+
+    StringBuilder appendSorted(StringBuilder builder) {
+      sort(0, count, new long[count]);
+      for (int i = 0; i < count; i++) {
+        if (i > 0) builder.append('&');
+        builder.append(uri, (int) (ranges[i] >>> 32), (int) ranges[i]);
+      }
+      return builder;
+    }
+
+    private void sort(int from, int to, long[] scratch) {
+      if (to - from <= INSERTION_SORT_THRESHOLD) {
+        for (int i = from + 1; i < to; i++) {
+          long range = ranges[i];
+          int j = i - 1;
+          for (; j >= from && compare(ranges[j], range) > 0; j--) {
+            ranges[j + 1] = ranges[j];
+          }
+          ranges[j + 1] = range;
+        }
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      sort(from, middle, scratch);
+      sort(middle, to, scratch);
+      System.arraycopy(ranges, from, scratch, from, to - from);
+      for (int i = from, left = from, right = middle; i < to; i++) {
+        if (right == to || (left < middle && compare(scratch[left], scratch[right]) <= 0)) {
+          ranges[i] = scratch[left++];
+        } else {
+          ranges[i] = scratch[right++];
+        }
+      }
+    }
+
+    private int compare(long a, long b) {
+      int aStart = (int) (a >>> 32), aEnd = (int) a;
+      int bStart = (int) (b >>> 32), bEnd = (int) b;
+      int length = Math.min(aEnd - aStart, bEnd - bStart);
+      for (int i = 0; i < length; i++) {
+        char x = uri.charAt(aStart + i), y = uri.charAt(bStart + i);
+        if (x != y) return x - y;
+      }
+      return (aEnd - aStart) - (bEnd - bStart);
+    }
+  }
 }
@@ -0,0 +1,90 @@
+package com.scottvevans.linkchecker.web;
+
+import com.scottvevans.linkchecker.model.ClusterLinks;
+import com.scottvevans.linkchecker.model.ClusterResults;
+import com.scottvevans.linkchecker.model.CrawlScope;
+import com.scottvevans.linkchecker.model.CrawlerReport;
+import com.scottvevans.linkchecker.service.impl.ClusterCrawler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Crawls spread over the nodes of a cluster: /cluster/check starts one coordinated by this node, and the other
+ * endpoints are those the nodes exchange links and results through while it runs.
+ */
+@RestController
+@RequestMapping(path="/cluster", produces="application/json")
+@ConditionalOnProperty(name = "linkchecker.cluster.enabled", havingValue = "true")
+@Validated
+@Slf4j
+public class ClusterController {
+  private final ClusterCrawler crawler;
+
+  @Autowired
+  public ClusterController(ClusterCrawler crawler) {
+    log.info("ClusterController created");
+    this.crawler = crawler;
+  }
+
+  /** Crawls the uri to the depth across the cluster, taking the same scope params as /check */
+  @GetMapping("/check")
+  public Mono<CrawlerReport> check(
+      @RequestParam
+      @Min(value = 1, message = "depth param must be a positive number <= 5")
+      @Max(value = 5, message = "depth param must be a positive number <= 5") Integer depth,
+      @RequestParam @NotBlank(message = "uri param is required") String uri,
+      @RequestParam(required = false) CrawlScope.Mode scope,
+      @RequestParam(required = false)
+      @Size(max = CrawlScope.MAX_PATTERNS, message = CrawlScope.PATTERNS_MESSAGE)
+      List<@Size(max = CrawlScope.MAX_PATTERN_LENGTH, message = CrawlScope.PATTERNS_MESSAGE) String> include,
+      @RequestParam(required = false)
+      @Size(max = CrawlScope.MAX_PATTERNS, message = CrawlScope.PATTERNS_MESSAGE)
+      List<@Size(max = CrawlScope.MAX_PATTERN_LENGTH, message = CrawlScope.PATTERNS_MESSAGE) String> exclude) {
+    log.info("cluster check depth: {} uri: {}", depth, uri);
+    if (scope == null && include == null && exclude == null) return crawler.crawl(depth, uri, null);
+    return crawler.crawl(depth, uri, new CrawlScope(scope, include, exclude));
+  }
+
+  /** Links found by another node on hosts this one owns; answers how many were new */
+  @PostMapping(path="/crawls/{crawlId}/links", consumes="application/json")
+  public Mono<Integer> links(@PathVariable String crawlId, @RequestBody ClusterLinks links) {
+    return crawler.accept(crawlId, links);
+  }
+
+  /** Results and accepted links of a crawl this node coordinates */
+  @PostMapping(path="/crawls/{crawlId}/results", consumes="application/json")
+  @ResponseStatus(HttpStatus.NO_CONTENT)
+  public Mono<Void> results(@PathVariable String crawlId, @RequestBody ClusterResults results) {
+    return Mono.fromRunnable(() -> {
+      if (!crawler.results(crawlId, results))
+        throw new ResponseStatusException(HttpStatus.NOT_FOUND, "no crawl " + crawlId + " coordinated here");
+    });
+  }
+
+  /** Drops this node's partition of a finished or cancelled crawl */
+  @DeleteMapping("/crawls/{crawlId}")
+  @ResponseStatus(HttpStatus.NO_CONTENT)
+  public Mono<Void> release(@PathVariable String crawlId) {
+    return Mono.fromRunnable(() -> crawler.release(crawlId));
+  }
+}
@@ -0,0 +1,83 @@
+package com.scottvevans.linkchecker.web;
+
+import com.scottvevans.linkchecker.model.CrawlJob;
+import com.scottvevans.linkchecker.model.CrawlerReport;
+import com.scottvevans.linkchecker.service.impl.CrawlJobManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Crawls run in the background: submitting one returns its job id straight away, and the job is then polled
+ * for progress, fetched as a report once finished, or cancelled, so no request is held open for a whole crawl.
+ */
+@RestController
+@RequestMapping(path="/crawls", produces="application/json")
+@Validated
+@Slf4j
+public class CrawlJobController {
+  private final CrawlJobManager jobs;
+
+  @Autowired
+  public CrawlJobController(CrawlJobManager jobs) {
+    log.info("CrawlJobController created");
+    this.jobs = jobs;
+  }
+
+  @PostMapping
+  @ResponseStatus(HttpStatus.ACCEPTED)
+  public Mono<CrawlJob> submit(
+      @RequestParam
+      @Min(value = 1, message = "depth param must be a positive number <= 5")
+      @Max(value = 5, message = "depth param must be a positive number <= 5") Integer depth,
+      @RequestParam @NotBlank(message = "uri param is required") String uri) {
+    log.info("submit depth: {} uri: {}", depth, uri);
+    return Mono.fromCallable(() -> jobs.submit(depth, uri))
+        .onErrorMap(RejectedExecutionException.class,
+            ex -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), ex));
+  }
+
+  /** Progress of the job so far: pages crawled, frontier size and status counts */
+  @GetMapping("/{id}")
+  public Mono<CrawlJob> progress(@PathVariable String id) {
+    return found(id, () -> jobs.find(id));
+  }
+
+  /** The report of a finished job; a job still queued or running is a conflict */
+  @GetMapping("/{id}/report")
+  public Mono<CrawlerReport> report(@PathVariable String id) {
+    return found(id, () -> jobs.report(id))
+        .onErrorMap(IllegalStateException.class,
+            ex -> new ResponseStatusException(HttpStatus.CONFLICT, ex.getMessage(), ex));
+  }
+
+  /** Cancels the job and every fetch it has in flight, returning its final progress */
+  @DeleteMapping("/{id}")
+  public Mono<CrawlJob> cancel(@PathVariable String id) {
+    log.info("cancel id: {}", id);
+    return found(id, () -> jobs.cancel(id));
+  }
+
+  private static <T> Mono<T> found(String id, Supplier<Optional<T>> lookup) {
+    return Mono.fromCallable(() -> lookup.get()
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "no crawl job " + id)));
+  }
+}
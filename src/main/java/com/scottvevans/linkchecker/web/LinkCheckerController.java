@@ -1,25 +1,48 @@
 package com.scottvevans.linkchecker.web;
 
+import com.scottvevans.linkchecker.model.BatchReport;
+import com.scottvevans.linkchecker.model.BatchRequest;
+import com.scottvevans.linkchecker.model.CrawlScope;
 import com.scottvevans.linkchecker.model.CrawlerReport;
+import com.scottvevans.linkchecker.model.CrawlerSummary;
+import com.scottvevans.linkchecker.model.PageResponse;
 import com.scottvevans.linkchecker.service.Crawler;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import javax.validation.Valid;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.scottvevans.linkchecker.web.StreamingCodecConfig.APPLICATION_NDJSON_VALUE;
 
 @RestController
 @RequestMapping(path="/check", produces="application/json")
 @Validated
 @Slf4j
 public class LinkCheckerController {
+  private static final String PAGE_EVENT = "page";
+  private static final String SUMMARY_EVENT = "summary";
+  static final String CRAWL_ID_REGEX = "[A-Za-z0-9_-]{1,64}";
+  static final String CRAWL_ID_MESSAGE = "crawlId param must be 1 to 64 letters, digits, '-' or '_'";
+
   private final Crawler crawler;
 
   @Autowired
@@ -28,13 +51,81 @@ public class LinkCheckerController {
     this.crawler = crawler;
   }
 
+  /**
+   * Crawls the uri to the depth. Links out of scope, by default those to other hosts, are checked for their status
+   * but not crawled; scope, include and exclude override the default scope for this crawl.
+   */
   @GetMapping
   public Mono<CrawlerReport> check(
       @RequestParam
       @Min(value = 1, message = "depth param must be a positive number <= 5")
       @Max(value = 5, message = "depth param must be a positive number <= 5") Integer depth,
-      @RequestParam @NotBlank(message = "uri param is required") String uri) {
+      @RequestParam @NotBlank(message = "uri param is required") String uri,
+      @RequestParam(required = false) CrawlScope.Mode scope,
+      @RequestParam(required = false)
+      @Size(max = CrawlScope.MAX_PATTERNS, message = CrawlScope.PATTERNS_MESSAGE)
+      List<@Size(max = CrawlScope.MAX_PATTERN_LENGTH, message = CrawlScope.PATTERNS_MESSAGE) String> include,
+      @RequestParam(required = false)
+      @Size(max = CrawlScope.MAX_PATTERNS, message = CrawlScope.PATTERNS_MESSAGE)
+      List<@Size(max = CrawlScope.MAX_PATTERN_LENGTH, message = CrawlScope.PATTERNS_MESSAGE) String> exclude) {
     log.info("check depth: {} uri: {}", depth, uri);
-    return crawler.crawl(depth, uri);
+    if (scope == null && include == null && exclude == null) return crawler.crawl(depth, uri);
+    return crawler.crawl(depth, uri, new CrawlScope(scope, include, exclude));
+  }
+
+  /**
+   * Checks many roots in one request, each to its own depth, fetching the URIs they share only once. Returns a
+   * report per root, in the order given, and their broken links merged by URI.
+   */
+  @PostMapping(path="/batch", consumes="application/json")
+  public Mono<BatchReport> batch(@RequestBody @Valid BatchRequest request) {
+    log.info("batch roots: {}", request.getRoots().size());
+    return crawler.crawl(request.getRoots());
+  }
+
+  /**
+   * Streams one PageResponse per line as each completes, followed by a CrawlerSummary line. Given a crawlId,
+   * the crawl is recorded under it, and a crawl recorded earlier is resumed.
+   */
+  @GetMapping(path="/stream", produces=APPLICATION_NDJSON_VALUE)
+  public Flux<Object> stream(
+      @RequestParam
+      @Min(value = 1, message = "depth param must be a positive number <= 5")
+      @Max(value = 5, message = "depth param must be a positive number <= 5") Integer depth,
+      @RequestParam @NotBlank(message = "uri param is required") String uri,
+      @RequestParam(required = false)
+      @Pattern(regexp = CRAWL_ID_REGEX, message = CRAWL_ID_MESSAGE) String crawlId) {
+    log.info("stream depth: {} uri: {} crawlId: {}", depth, uri, crawlId);
+    return events(depth, uri, crawlId);
+  }
+
+  /** Streams a page event per PageResponse as each completes, followed by a summary event */
+  @GetMapping(path="/stream", produces=MediaType.TEXT_EVENT_STREAM_VALUE)
+  public Flux<ServerSentEvent<Object>> streamEvents(
+      @RequestParam
+      @Min(value = 1, message = "depth param must be a positive number <= 5")
+      @Max(value = 5, message = "depth param must be a positive number <= 5") Integer depth,
+      @RequestParam @NotBlank(message = "uri param is required") String uri,
+      @RequestParam(required = false)
+      @Pattern(regexp = CRAWL_ID_REGEX, message = CRAWL_ID_MESSAGE) String crawlId) {
+    log.info("streamEvents depth: {} uri: {} crawlId: {}", depth, uri, crawlId);
+    return events(depth, uri, crawlId).map(event -> ServerSentEvent.builder(event)
+        .event(event instanceof PageResponse ? PAGE_EVENT : SUMMARY_EVENT)
+        .build());
+  }
+
+  /** PageResponses of the crawl followed by a summary counted as they pass, so none are retained */
+  private Flux<Object> events(int depth, String uri, String crawlId) {
+    return Flux.defer(() -> {
+      long startTime = System.currentTimeMillis();
+      Map<Integer, Integer> counts = new TreeMap<>();
+      return (crawlId == null ? crawler.stream(depth, uri) : crawler.stream(crawlId, depth, uri))
+          .doOnNext(response -> counts.merge(response.getHttpStatus(), 1, Integer::sum))
+          .cast(Object.class)
+          .concatWith(Mono.fromSupplier(() -> new CrawlerSummary(uri, depth,
+              System.currentTimeMillis() - startTime,
+              counts.values().stream().mapToInt(Integer::intValue).sum(),
+              counts)));
+    });
   }
 }
@@ -0,0 +1,30 @@
+package com.scottvevans.linkchecker.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+import java.util.List;
+
+/** Adds a JSON encoder for application/x-ndjson that writes streams as one JSON document per line */
+@Configuration
+public class StreamingCodecConfig implements WebFluxConfigurer {
+  public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+  public static final MediaType APPLICATION_NDJSON = MediaType.valueOf(APPLICATION_NDJSON_VALUE);
+
+  private final ObjectMapper objectMapper;
+
+  public StreamingCodecConfig(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+    var encoder = new Jackson2JsonEncoder(objectMapper, APPLICATION_NDJSON);
+    encoder.setStreamingMediaTypes(List.of(APPLICATION_NDJSON));
+    configurer.customCodecs().register(encoder);
+  }
+}
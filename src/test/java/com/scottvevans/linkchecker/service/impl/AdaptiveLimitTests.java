@@ -0,0 +1,83 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveLimitTests {
+  private static final long MILLI = 1_000_000L;
+
+  private static AdaptiveLimit limit(int initial, int min, int max) {
+    var settings = new LinkCheckerProperties.AdaptiveConcurrency();
+    settings.setEnabled(true);
+    settings.setMinLimit(min);
+    settings.setMaxLimit(max);
+    return new AdaptiveLimit(initial, settings);
+  }
+
+  /** Samples requests of the given latency, each ending when the next starts */
+  private static long sample(AdaptiveLimit limit, long now, int count, long latencyNanos, boolean overloaded) {
+    for (int i = 0; i < count; i++) {
+      limit.onSample(now, now + latencyNanos, limit.get(), overloaded);
+      now += latencyNanos;
+    }
+    return now;
+  }
+
+  @Test
+  void shouldGrowWhileLatencyStaysFlatAndTheLimitIsUsed() {
+    var limit = limit(2, 1, 64);
+    sample(limit, 0, 50, 10 * MILLI, false);
+    assertTrue(limit.get() >= 10, "limit grows under flat latency, was " + limit.get());
+  }
+
+  @Test
+  void shouldNotGrowWhenTheLimitIsNotUsed() {
+    var limit = limit(8, 1, 64);
+    for (int i = 0; i < 50; i++) limit.onSample(i * 10 * MILLI, (i + 1) * 10 * MILLI, 1, false);
+    assertEquals(8, limit.get());
+  }
+
+  @Test
+  void shouldShrinkAsLatencyRises() {
+    var limit = limit(32, 1, 64);
+    long now = sample(limit, 0, 5, 10 * MILLI, false);
+    int before = limit.get();
+    sample(limit, now, 20, 100 * MILLI, false);
+    assertTrue(limit.get() < before / 2, "limit shrinks as latency rises tenfold, was " + limit.get());
+  }
+
+  @Test
+  void shouldCutOnOverloadOncePerBurst() {
+    var limit = limit(32, 1, 64);
+    // requests in flight together all failing cut the limit once
+    for (int i = 0; i < 8; i++) limit.onSample(0, 10 * MILLI + i, 8, true);
+    assertEquals(16, limit.get());
+    // a request started after the cut cuts it again
+    limit.onSample(20 * MILLI, 30 * MILLI, 8, true);
+    assertEquals(8, limit.get());
+  }
+
+  @Test
+  void shouldStayWithinBounds() {
+    var limit = limit(100, 2, 16);
+    assertEquals(16, limit.get());
+    sample(limit, 0, 100, 10 * MILLI, false);
+    assertEquals(16, limit.get());
+    for (int i = 0; i < 10; i++) limit.onSample(100 * i * MILLI, (100 * i + 1) * MILLI, 1, true);
+    assertEquals(2, limit.get());
+  }
+
+  @Test
+  void shouldStayWithinTheGivenMaximum() {
+    var settings = new LinkCheckerProperties.AdaptiveConcurrency();
+    settings.setMinLimit(4);
+    settings.setMaxLimit(64);
+    var limit = new AdaptiveLimit(8, 2, settings);
+    assertEquals(2, limit.get());
+    sample(limit, 0, 100, 10 * MILLI, false);
+    assertEquals(2, limit.get(), "the given maximum caps the minimum as well");
+  }
+}
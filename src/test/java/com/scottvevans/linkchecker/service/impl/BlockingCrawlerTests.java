@@ -0,0 +1,237 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import com.scottvevans.linkchecker.model.PageResponse;
+import com.scottvevans.linkchecker.model.RedirectHop;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.scottvevans.linkchecker.service.impl.HtmlHelper.page;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BlockingCrawlerTests {
+
+  private MockWebServer server;
+  private LinkCheckerProperties properties;
+
+  @BeforeEach
+  void init() throws IOException {
+    server = new MockWebServer();
+    properties = new LinkCheckerProperties();
+    properties.getFetch().setBlockingThreads(8);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    server.shutdown();
+  }
+
+  private BlockingCrawler crawler() {
+    return new BlockingCrawler(new JsoupHtmlParserImpl(), properties);
+  }
+
+  private static MockResponse okHtmlPage(String body) {
+    return new MockResponse()
+        .setResponseCode(HttpStatus.OK.value())
+        .setBody(body)
+        .setHeader("Content-Type", "text/html");
+  }
+
+  private static MockResponse redirect(int status, String location) {
+    return new MockResponse().setResponseCode(status).setHeader("Location", location);
+  }
+
+  @Test
+  void testCrawlsTheSamePagesAsTheReactiveCrawler() throws Exception {
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        switch (request.getPath()) {
+          case "/": return okHtmlPage(page(null, List.of("a.html", "b.html", "missing.html")));
+          case "/a.html": return okHtmlPage(page(null, List.of("/", "aa.html")));
+          case "/b.html": return okHtmlPage(page(null, List.of("a.html")));
+          case "/aa.html": return new MockResponse().setHeader("Content-Type", "application/pdf").setBody("%PDF");
+          default: return new MockResponse().setResponseCode(HttpStatus.NOT_FOUND.value());
+        }
+      }
+    });
+    server.start();
+    var rootURI = server.url("/").toString();
+
+    var blocking = crawler().crawl(2, rootURI).block();
+    var reactive = new CrawlerImpl(new JsoupHtmlParserImpl()).crawl(2, rootURI).block();
+
+    var statuses = blocking.getResponses().stream()
+        .collect(toMap(PageResponse::getUri, PageResponse::getHttpStatus));
+    assertEquals(Map.of(rootURI, 200, rootURI + "a.html", 200, rootURI + "b.html", 200,
+        rootURI + "missing.html", 404, rootURI + "aa.html", 200), statuses);
+    assertEquals(Set.copyOf(reactive.getResponses()), Set.copyOf(blocking.getResponses()));
+  }
+
+  @Test
+  void testObeysRobotsTxtFetchedOncePerHost() throws Exception {
+    properties.getRobots().setEnabled(true);
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        switch (request.getPath()) {
+          case "/robots.txt": return new MockResponse()
+              .setHeader("Content-Type", "text/plain")
+              .setBody("User-agent: *\nDisallow: /private/\n");
+          case "/": return okHtmlPage(page(null, List.of("a.html", "private/plans.html")));
+          case "/a.html": return okHtmlPage(page(null, List.of("/")));
+          default: return new MockResponse().setResponseCode(HttpStatus.NOT_FOUND.value());
+        }
+      }
+    });
+    server.start();
+    var rootURI = server.url("/").toString();
+
+    StepVerifier.create(crawler().crawl(2, rootURI))
+        .assertNext(report -> assertEquals(Map.of(rootURI, 200, rootURI + "a.html", 200,
+            rootURI + "private/plans.html", PageResponse.DISALLOWED_BY_ROBOTS), report.getResponses().stream()
+            .collect(toMap(PageResponse::getUri, PageResponse::getHttpStatus))))
+        .verifyComplete();
+
+    List<String> paths = new ArrayList<>();
+    for (int i = server.getRequestCount(); i > 0; i--) {
+      var request = server.takeRequest();
+      assertEquals("linkchecker", request.getHeader("User-Agent"));
+      paths.add(request.getPath());
+    }
+    assertEquals(List.of("/robots.txt", "/", "/a.html"), paths);
+  }
+
+  @Test
+  void testRetriesServiceUnavailableAndTimesOut() throws Exception {
+    properties.getRetry().setMaxAttempts(2);
+    properties.getRetry().setInitialBackoff(Duration.ofMillis(10));
+    properties.getHttp().setResponseTimeout(Duration.ofMillis(200));
+    server.enqueue(new MockResponse().setResponseCode(HttpStatus.SERVICE_UNAVAILABLE.value())
+        .setHeader("Retry-After", "0"));
+    server.enqueue(okHtmlPage(page(null, List.of("slow.html"))));
+    server.enqueue(okHtmlPage(page(null, List.of())).setHeadersDelay(2, TimeUnit.SECONDS));
+    server.enqueue(okHtmlPage(page(null, List.of())).setHeadersDelay(2, TimeUnit.SECONDS));
+    server.start();
+    var rootURI = server.url("/").toString();
+
+    StepVerifier.create(crawler().crawl(1, rootURI))
+        .assertNext(report -> {
+          var root = report.getResponses().stream()
+              .filter(response -> response.getUri().equals(rootURI)).findFirst().orElseThrow();
+          assertEquals(200, root.getHttpStatus());
+          assertEquals(1, root.getRetries());
+          var slow = report.getResponses().stream()
+              .filter(response -> response.getUri().equals(rootURI + "slow.html")).findFirst().orElseThrow();
+          assertEquals(-1, slow.getHttpStatus());
+          assertTrue(slow.getMessage().contains("TimeoutException"), slow.getMessage());
+          assertEquals(1, slow.getRetries(), "a timeout is retried as well");
+        })
+        .verifyComplete();
+  }
+
+  @Test
+  void testFollowsRedirectsWithinFetch() throws Exception {
+    properties.getRedirects().setFollow(true);
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        switch (request.getPath()) {
+          case "/": return redirect(301, "/moved");
+          case "/moved": return redirect(302, "/home/");
+          case "/home/": return okHtmlPage(page(null, List.of("a.html")));
+          case "/home/a.html": return okHtmlPage(page(null, List.of()));
+          default: return new MockResponse().setResponseCode(HttpStatus.NOT_FOUND.value());
+        }
+      }
+    });
+    server.start();
+    var rootURI = server.url("/").toString();
+
+    StepVerifier.create(crawler().crawl(1, rootURI))
+        .assertNext(report -> {
+          var root = report.getResponses().stream()
+              .filter(response -> response.getUri().equals(rootURI)).findFirst().orElseThrow();
+          assertEquals(200, root.getHttpStatus());
+          assertEquals(List.of(new RedirectHop(rootURI, 301), new RedirectHop(rootURI + "moved", 302)),
+              root.getRedirects());
+          assertEquals(rootURI + "home/", root.getRedirectedURI());
+          assertEquals(Set.of(rootURI, rootURI + "home/a.html"),
+              report.getResponses().stream().map(PageResponse::getUri).collect(toSet()));
+        })
+        .verifyComplete();
+  }
+
+  /** Holds the first request until released, answering it and every later one with an html page without links */
+  private static Dispatcher holdingFirstRequest(CountDownLatch release) {
+    var requests = new AtomicInteger();
+    return new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+        if (requests.getAndIncrement() == 0) release.await(5, TimeUnit.SECONDS);
+        return okHtmlPage(page(null, List.of()));
+      }
+    };
+  }
+
+  @Test
+  void testCancelledCrawlLeavesTheFetchItSharesToTheCrawlJoiningIt() throws Exception {
+    var release = new CountDownLatch(1);
+    server.setDispatcher(holdingFirstRequest(release));
+    server.start();
+    var rootURI = server.url("/").toString();
+    var crawler = crawler();
+
+    var cancelled = crawler.stream(1, rootURI).subscribe();
+    assertNotNull(server.takeRequest(5, TimeUnit.SECONDS));
+    var joined = crawler.stream(1, rootURI).collectList().toFuture();
+    cancelled.dispose();
+    release.countDown();
+
+    var responses = joined.get(5, TimeUnit.SECONDS);
+    assertEquals(1, responses.size());
+    assertEquals(200, responses.get(0).getHttpStatus(), responses.get(0).getMessage());
+    assertEquals(1, server.getRequestCount(), "the joining crawl waited for the fetch in progress");
+  }
+
+  @Test
+  void testFetchOfACancelledCrawlFinishesForTheNextCrawl() throws Exception {
+    var release = new CountDownLatch(1);
+    server.setDispatcher(holdingFirstRequest(release));
+    server.start();
+    var rootURI = server.url("/").toString();
+    var crawler = crawler();
+
+    var cancelled = crawler.stream(1, rootURI).subscribe();
+    assertNotNull(server.takeRequest(5, TimeUnit.SECONDS));
+    cancelled.dispose();
+    var next = crawler.stream(1, rootURI).collectList().toFuture();
+    release.countDown();
+
+    var responses = next.get(5, TimeUnit.SECONDS);
+    assertEquals(1, responses.size());
+    assertEquals(200, responses.get(0).getHttpStatus(), responses.get(0).getMessage());
+    assertEquals(1, server.getRequestCount(), "the fetch was left to finish rather than interrupted");
+  }
+}
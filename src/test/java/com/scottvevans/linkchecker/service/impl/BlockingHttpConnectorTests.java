@@ -0,0 +1,138 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.test.StepVerifier;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BlockingHttpConnectorTests {
+
+  private MockWebServer server;
+  private LinkCheckerProperties.Http http;
+  private BlockingHttpConnector connector;
+
+  @BeforeEach
+  void init() {
+    server = new MockWebServer();
+    http = new LinkCheckerProperties.Http();
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    if (connector != null) connector.close();
+    server.shutdown();
+  }
+
+  private WebClient webClient(int threads) {
+    return webClient(threads, 256);
+  }
+
+  private WebClient webClient(int threads, int queueCapacity) {
+    connector = new BlockingHttpConnector(http, threads, queueCapacity);
+    return WebClient.builder().clientConnector(connector).build();
+  }
+
+  private static Buffer gzip(String body) throws IOException {
+    var bytes = new ByteArrayOutputStream();
+    try (var out = new GZIPOutputStream(bytes)) {
+      out.write(body.getBytes(UTF_8));
+    }
+    return new Buffer().write(bytes.toByteArray());
+  }
+
+  @Test
+  void shouldRequestAndDecodeCompressedBodies() throws Exception {
+    var html = "<html><body>" + "<a href=\"/a\">a</a>".repeat(100) + "</body></html>";
+    server.enqueue(new MockResponse()
+        .setHeader("Content-Type", "text/html")
+        .setHeader("Content-Encoding", "gzip")
+        .setBody(gzip(html)));
+    server.enqueue(new MockResponse()
+        .setResponseCode(HttpStatus.NO_CONTENT.value())
+        .setHeader("Content-Encoding", "gzip"));
+    server.start();
+    var webClient = webClient(1);
+    var uri = server.url("/").toString();
+
+    var body = webClient.get().uri(uri).exchange()
+        .flatMap(response -> {
+          assertTrue(response.headers().header("Content-Encoding").isEmpty(), "the body is no longer encoded");
+          return response.bodyToMono(String.class);
+        })
+        .block(Duration.ofSeconds(5));
+    assertEquals(html, body);
+    assertEquals("gzip, deflate", server.takeRequest().getHeader("Accept-Encoding"));
+
+    var status = webClient.get().uri(uri).exchange()
+        .flatMap(response -> response.releaseBody().thenReturn(response.rawStatusCode()))
+        .block(Duration.ofSeconds(5));
+    assertEquals(HttpStatus.NO_CONTENT.value(), status, "an empty body is not decoded");
+  }
+
+  @Test
+  void shouldNotAskForCompressionWhenDisabled() throws Exception {
+    http.setCompress(false);
+    server.enqueue(new MockResponse().setBody("plain"));
+    server.start();
+
+    var body = webClient(1).get().uri(server.url("/").toString()).retrieve().bodyToMono(String.class)
+        .block(Duration.ofSeconds(5));
+
+    assertEquals("plain", body);
+    assertNull(server.takeRequest().getHeader("Accept-Encoding"));
+  }
+
+  @Test
+  void shouldTimeOutABodyThatStopsArrivingWithoutInterruptingTheNextRequest() throws Exception {
+    http.setReadTimeout(Duration.ofMillis(200));
+    server.enqueue(new MockResponse().setBody("x".repeat(64)).throttleBody(1, 1, TimeUnit.SECONDS));
+    server.enqueue(new MockResponse().setBody("fast"));
+    server.start();
+    // a single thread, so the read interrupted by the timeout and the next request run on the same one
+    var webClient = webClient(1);
+    var uri = server.url("/").toString();
+
+    StepVerifier.create(webClient.get().uri(uri).retrieve().bodyToMono(String.class))
+        .expectError(TimeoutException.class)
+        .verify(Duration.ofSeconds(5));
+
+    assertEquals("fast", webClient.get().uri(uri).retrieve().bodyToMono(String.class)
+        .block(Duration.ofSeconds(5)));
+  }
+
+  @Test
+  void shouldFailRequestsBeyondTheQueue() throws Exception {
+    server.enqueue(new MockResponse().setBody("slow").setHeadersDelay(500, TimeUnit.MILLISECONDS));
+    server.start();
+    // one thread sending the slow request, and room in the queue for one more
+    var webClient = webClient(1, 1);
+    var uri = server.url("/").toString();
+
+    var slow = webClient.get().uri(uri).exchange().subscribe();
+    var queued = webClient.get().uri(uri).exchange().subscribe();
+    StepVerifier.create(webClient.get().uri(uri).exchange())
+        .expectError(RejectedExecutionException.class)
+        .verify(Duration.ofSeconds(5));
+    slow.dispose();
+    queued.dispose();
+  }
+}
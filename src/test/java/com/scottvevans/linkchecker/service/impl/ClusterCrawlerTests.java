@@ -0,0 +1,192 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.scottvevans.linkchecker.LinkCheckerApplication;
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import com.scottvevans.linkchecker.model.ClusterLinks;
+import com.scottvevans.linkchecker.model.CrawlScope;
+import com.scottvevans.linkchecker.model.PageResponse;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.scottvevans.linkchecker.service.impl.HtmlHelper.page;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Crawls across several instances of the service started on localhost, as a cluster */
+public class ClusterCrawlerTests {
+  private static final int NODES = 3;
+
+  private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+  private final List<String> nodeURIs = new ArrayList<>();
+  private MockWebServer site;
+
+  private static int freePort() throws IOException {
+    try (var socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+
+  private static MockResponse okHtmlPage(String body) {
+    return new MockResponse().setBody(body).setHeader("Content-Type", "text/html");
+  }
+
+  @BeforeEach
+  void startCluster() throws IOException {
+    List<Integer> ports = new ArrayList<>();
+    for (int i = 0; i < NODES; i++) {
+      ports.add(freePort());
+      nodeURIs.add("http://localhost:" + ports.get(i));
+    }
+    var nodeList = String.join(",", nodeURIs);
+    for (int i = 0; i < NODES; i++) {
+      nodes.add(new SpringApplicationBuilder(LinkCheckerApplication.class).properties(
+          "server.port=" + ports.get(i),
+          "linkchecker.cluster.enabled=true",
+          "linkchecker.cluster.self=" + nodeURIs.get(i),
+          "linkchecker.cluster.nodes=" + nodeList,
+          "linkchecker.cluster.virtual-nodes=16",
+          "linkchecker.robots.enabled=false")
+          .run());
+    }
+
+    // the same server under two host names, which the ring may give to different nodes
+    site = new MockWebServer();
+    site.start();
+    var local = "http://localhost:" + site.getPort();
+    var loopback = "http://127.0.0.1:" + site.getPort();
+    site.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        switch (request.getPath()) {
+          case "/": return okHtmlPage(page(null, List.of(loopback + "/a.html", local + "/b.html")));
+          case "/a.html": return okHtmlPage(page(null, List.of(local + "/b.html", "c.html", "missing.html")));
+          case "/b.html": return okHtmlPage(page(null, List.of(local + "/", loopback + "/a.html")));
+          case "/c.html": return okHtmlPage(page(null, List.of("/")));
+          default: return new MockResponse().setResponseCode(HttpStatus.NOT_FOUND.value());
+        }
+      }
+    });
+  }
+
+  @AfterEach
+  void stopCluster() throws IOException {
+    nodes.forEach(ConfigurableApplicationContext::close);
+    site.shutdown();
+  }
+
+  @Test
+  void shouldCrawlAcrossNodesIntoOneReport() {
+    var local = "http://localhost:" + site.getPort();
+    var loopback = "http://127.0.0.1:" + site.getPort();
+
+    for (var coordinator : nodeURIs) {
+      var report = WebClient.create(coordinator).get()
+          .uri(builder -> builder.path("/cluster/check")
+              .queryParam("depth", 2)
+              .queryParam("uri", local + "/")
+              .queryParam("scope", "all")
+              .build())
+          .retrieve()
+          .bodyToMono(JsonNode.class)
+          .block(Duration.ofSeconds(30));
+
+      Map<String, Integer> statuses = new HashMap<>();
+      report.get("responses").forEach(response ->
+          statuses.put(response.get("uri").asText(), response.get("httpStatus").asInt()));
+      assertEquals(Map.of(local + "/", 200, loopback + "/a.html", 200, local + "/b.html", 200,
+          loopback + "/c.html", 200, loopback + "/missing.html", 404), statuses, "coordinated by " + coordinator);
+      assertEquals(5, report.get("totalPagesCrawled").asInt());
+      assertEquals(2, report.get("depthCounts").get("2").asInt());
+    }
+  }
+
+  /** A node of a cluster with a coordinator, fetching every page as an ok page without links */
+  private static ClusterCrawler partitionNode(String coordinatorURI, Duration idleTimeout, List<String> fetched) {
+    var properties = new LinkCheckerProperties();
+    properties.getCluster().setSelf("http://localhost:1");
+    properties.getCluster().setNodes(List.of("http://localhost:1", coordinatorURI));
+    properties.getCluster().setPartitionIdleTimeout(idleTimeout);
+    return new ClusterCrawler((uri, needsLinks) -> {
+      fetched.add(uri);
+      return Mono.just(new PageResponse(uri, 200, "OK", Set.of()));
+    }, properties, WebClient.builder());
+  }
+
+  @Test
+  void shouldAdmitLinksAgainWhenTheCoordinatorWasNotTold() throws Exception {
+    var coordinator = new MockWebServer();
+    var registrations = new AtomicInteger();
+    coordinator.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        // the first registration of new links fails
+        var status = registrations.getAndIncrement() == 0 ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.OK;
+        return new MockResponse().setResponseCode(status.value());
+      }
+    });
+    coordinator.start();
+    var coordinatorURI = "http://localhost:" + coordinator.getPort();
+    List<String> fetched = new CopyOnWriteArrayList<>();
+    var node = partitionNode(coordinatorURI, Duration.ofMinutes(10), fetched);
+    try {
+      var links = new ClusterLinks(coordinatorURI, "http://site/", 1, new CrawlScope(), Map.of("http://site/", 0));
+      StepVerifier.create(node.accept("crawl-1", links)).expectError().verify(Duration.ofSeconds(5));
+      assertEquals(List.of(), fetched, "links the coordinator is not counting are not fetched");
+
+      StepVerifier.create(node.accept("crawl-1", links)).expectNext(1).verifyComplete();
+      assertEquals(List.of("http://site/"), fetched);
+    } finally {
+      node.close();
+      coordinator.shutdown();
+    }
+  }
+
+  @Test
+  void shouldReleaseIdlePartitionsOfCrawlsCoordinatedElsewhere() throws Exception {
+    var coordinator = new MockWebServer();
+    coordinator.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        return new MockResponse();
+      }
+    });
+    coordinator.start();
+    var coordinatorURI = "http://localhost:" + coordinator.getPort();
+    List<String> fetched = new CopyOnWriteArrayList<>();
+    var node = partitionNode(coordinatorURI, Duration.ofMillis(100), fetched);
+    try {
+      var links = new ClusterLinks(coordinatorURI, "http://site/", 2, new CrawlScope(), Map.of("http://site/", 0));
+      StepVerifier.create(node.accept("crawl-1", links)).expectNext(1).verifyComplete();
+      Thread.sleep(500);
+
+      var later = new ClusterLinks(coordinatorURI, "http://site/", 2, new CrawlScope(), Map.of("http://site/a", 1));
+      StepVerifier.create(node.accept("crawl-1", later)).expectNext(0).verifyComplete();
+      assertEquals(List.of("http://site/"), fetched, "links of a released crawl are not fetched");
+    } finally {
+      node.close();
+      coordinator.shutdown();
+    }
+  }
+}
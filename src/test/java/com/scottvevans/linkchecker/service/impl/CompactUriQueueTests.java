@@ -0,0 +1,41 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompactUriQueueTests {
+
+  @Test
+  void shouldPollUrisAndFlagsInOrderAcrossChunks() {
+    var queue = new CompactUriQueue();
+    for (int i = 0; i < 5_000; i++) {
+      queue.add("https://www.acme.com/café/" + "x".repeat(i % 300) + i, i % 128);
+    }
+    assertTrue(queue.footprintBytes() > 64 * 1024, "spans several chunks");
+
+    for (int i = 0; i < 5_000; i++) {
+      assertEquals("https://www.acme.com/café/" + "x".repeat(i % 300) + i + " " + i % 128,
+          queue.poll((flags, uri) -> uri + " " + flags), "entry " + i);
+    }
+    assertTrue(queue.isEmpty());
+    assertNull(queue.poll((flags, uri) -> uri));
+    assertEquals(64 * 1024, queue.footprintBytes(), "polled chunks are released");
+  }
+
+  @Test
+  void shouldHoldUrisLongerThanAChunk() {
+    var queue = new CompactUriQueue();
+    var longURI = "https://www.acme.com/?q=" + "y".repeat(100_000);
+    queue.add("https://www.acme.com/", 1);
+    queue.add(longURI, 2);
+    queue.add("https://www.acme.com/last", 3);
+
+    assertEquals(3, queue.size());
+    assertEquals("https://www.acme.com/", queue.poll((flags, uri) -> uri));
+    assertEquals(longURI, queue.poll((flags, uri) -> uri));
+    assertEquals(3, (int) queue.poll((flags, uri) -> flags));
+  }
+}
@@ -0,0 +1,220 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.model.CrawlScope;
+import com.scottvevans.linkchecker.model.PageResponse;
+import com.scottvevans.linkchecker.service.CrawlListener;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CrawlFrontierTests {
+
+  /** Fetches pages from an in-memory link graph, optionally delaying some of them */
+  private static class FakeSite {
+    private final Map<String, Set<String>> graph;
+    private final Map<String, Duration> delays;
+    private final Map<String, AtomicInteger> fetchCounts = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> probeCounts = new ConcurrentHashMap<>();
+
+    FakeSite(Map<String, Set<String>> graph, Map<String, Duration> delays) {
+      this.graph = graph;
+      this.delays = delays;
+    }
+
+    Mono<PageResponse> fetch(String uri, boolean needsLinks) {
+      fetchCounts.computeIfAbsent(uri, key -> new AtomicInteger()).incrementAndGet();
+      var response = new PageResponse(uri, 200, "OK", graph.getOrDefault(uri, Set.of()));
+      return Mono.just(response).delayElement(delays.getOrDefault(uri, Duration.ZERO));
+    }
+
+    /** Like a crawler sending HEAD to the pages it does not need links from */
+    Mono<PageResponse> probe(String uri, boolean needsLinks) {
+      if (needsLinks) return fetch(uri, true);
+      probeCounts.computeIfAbsent(uri, key -> new AtomicInteger()).incrementAndGet();
+      var response = new PageResponse(uri, 200, "OK", Set.of());
+      response.setLinksOmitted(true);
+      return Mono.just(response).delayElement(delays.getOrDefault(uri, Duration.ZERO));
+    }
+  }
+
+  private static Set<String> uris(List<PageResponse> responses) {
+    return responses.stream().map(PageResponse::getUri).collect(toSet());
+  }
+
+  @Test
+  void shouldCrawlEachUriOnceToMaxDepth() {
+    var site = new FakeSite(Map.of(
+        "/", Set.of("/a", "/b"),
+        "/a", Set.of("/", "/b", "/aa"),
+        "/b", Set.of("/a", "/bb"),
+        "/aa", Set.of("/aaa"),
+        "/bb", Set.of("/bbb")), Map.of());
+
+    StepVerifier.create(new CrawlFrontier(2, site::fetch).crawl(Set.of("/")).collectList())
+        .assertNext(responses -> {
+          assertEquals(5, responses.size(), "each uri is reported once");
+          assertEquals(Set.of("/", "/a", "/b", "/aa", "/bb"), uris(responses));
+        })
+        .verifyComplete();
+
+    site.fetchCounts.forEach((uri, count) -> assertEquals(1, count.get(), uri + " fetched once"));
+  }
+
+  @Test
+  void shouldExpandUriReachedByShorterPathAfterItWasFetched() {
+    // /c is first fetched as a leaf at depth 3 through the fast pages /a and /b, then reached at depth 2
+    // once the slow page /slow completes; only by expanding it again is its link /d within maxDepth 3
+    var site = new FakeSite(Map.of(
+        "/", Set.of("/a", "/slow"),
+        "/a", Set.of("/b"),
+        "/b", Set.of("/c"),
+        "/slow", Set.of("/c"),
+        "/c", Set.of("/d")), Map.of("/slow", Duration.ofMillis(200)));
+
+    StepVerifier.create(new CrawlFrontier(3, site::fetch).crawl(Set.of("/")).collectList())
+        .assertNext(responses -> {
+          assertEquals(6, responses.size(), "each uri is reported once");
+          assertEquals(Set.of("/", "/a", "/slow", "/b", "/c", "/d"), uris(responses));
+        })
+        .verifyComplete();
+  }
+
+  @Test
+  void shouldProbeLeavesAndRefetchOneForLinksWhenReachedByShorterPath() {
+    // as above, but /c is only probed at depth 3, so it must be fetched again for its links once at depth 2
+    var site = new FakeSite(Map.of(
+        "/", Set.of("/a", "/slow"),
+        "/a", Set.of("/b"),
+        "/b", Set.of("/c"),
+        "/slow", Set.of("/c"),
+        "/c", Set.of("/d")), Map.of("/slow", Duration.ofMillis(200)));
+
+    StepVerifier.create(new CrawlFrontier(3, site::probe).crawl(Set.of("/")).collectList())
+        .assertNext(responses -> {
+          assertEquals(6, responses.size(), "each uri is reported once, including the refetched one");
+          assertEquals(Set.of("/", "/a", "/slow", "/b", "/c", "/d"), uris(responses));
+        })
+        .verifyComplete();
+
+    assertEquals(Set.of("/c", "/d"), site.probeCounts.keySet(), "only pages at max depth are probed");
+    assertEquals(1, site.fetchCounts.get("/c").get(), "/c is fetched for its links once");
+  }
+
+  @Test
+  void shouldReportEachResponseOnceWithItsDepth() {
+    var site = new FakeSite(Map.of(
+        "/", Set.of("/a", "/slow"),
+        "/a", Set.of("/b"),
+        "/b", Set.of("/c"),
+        "/slow", Set.of("/c"),
+        "/c", Set.of("/d")), Map.of("/slow", Duration.ofMillis(200)));
+    Map<String, Integer> depths = new ConcurrentHashMap<>();
+    var listener = new CrawlListener() {
+      @Override
+      public void reported(PageResponse response, int depth) {
+        depths.merge(response.getUri(), depth, (previous, again) -> -1);
+      }
+    };
+
+    StepVerifier.create(new CrawlFrontier(3, site::probe, listener).crawl(Set.of("/")).count())
+        .expectNext(6L)
+        .verifyComplete();
+
+    // /c is refetched for its links once reached at depth 2, but reported once, at the depth it was first fetched
+    assertEquals(Map.of("/", 0, "/a", 1, "/slow", 1, "/b", 2, "/c", 3, "/d", 3), depths);
+  }
+
+  @Test
+  void shouldProbeLinksOutOfScopeWithoutExpandingThem() {
+    var site = new FakeSite(Map.of(
+        "https://acme.com/", Set.of("https://acme.com/a", "https://other.org/"),
+        "https://acme.com/a", Set.of("https://other.org/b"),
+        "https://other.org/", Set.of("https://other.org/b", "https://acme.com/via-other"),
+        "https://other.org/b", Set.of("https://other.org/c")), Map.of());
+    var scope = ScopeMatcher.of("https://acme.com/", new CrawlScope(CrawlScope.Mode.HOST, List.of(), List.of()));
+
+    var frontier = new CrawlFrontier(4, site::probe, CrawlListener.NONE, CrawlFrontier.DEFAULT_WINDOW,
+        CrawlMetrics.NONE, scope);
+    StepVerifier.create(frontier.crawl(Set.of("https://acme.com/")).collectList())
+        .assertNext(responses -> assertEquals(
+            Set.of("https://acme.com/", "https://acme.com/a", "https://other.org/", "https://other.org/b"),
+            uris(responses)))
+        .verifyComplete();
+
+    assertEquals(Set.of("https://other.org/", "https://other.org/b"), site.probeCounts.keySet(),
+        "out of scope pages are only probed, whatever their depth");
+    assertEquals(Set.of("https://acme.com/", "https://acme.com/a"), site.fetchCounts.keySet());
+  }
+
+  @Test
+  void shouldNotWaitForSlowPageBeforeFetchingDeeperLinks() {
+    var site = new FakeSite(Map.of(
+        "/", Set.of("/fast", "/slow"),
+        "/fast", Set.of("/fast/child"),
+        "/slow", Set.of()), Map.of("/slow", Duration.ofMillis(500)));
+
+    StepVerifier.create(new CrawlFrontier(2, site::fetch).crawl(Set.of("/")).map(PageResponse::getUri))
+        .recordWith(ArrayList::new)
+        .thenConsumeWhile(uri -> true)
+        .consumeRecordedWith(order -> assertEquals(
+            List.of("/", "/fast", "/fast/child", "/slow"),
+            new ArrayList<>(order),
+            "depth 2 page completes before the slow depth 1 page"))
+        .verifyComplete();
+  }
+
+  @Test
+  void shouldStartNoMoreFetchesThanTheWindowAtOnce() {
+    var site = new FakeSite(Map.of("/", IntStream.range(0, 50).mapToObj(i -> "/" + i).collect(toSet())), Map.of());
+    var inFlight = new AtomicInteger();
+    var maxInFlight = new AtomicInteger();
+    CrawlFrontier.Fetcher fetcher = (uri, needsLinks) -> Mono.defer(() -> {
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      return site.fetch(uri, needsLinks).delayElement(Duration.ofMillis(1));
+    }).doOnNext(response -> inFlight.decrementAndGet());
+
+    StepVerifier.create(new CrawlFrontier(2, fetcher, CrawlListener.NONE, 4).crawl(Set.of("/")).count())
+        .expectNext(51L)
+        .verifyComplete();
+
+    assertEquals(4, maxInFlight.get());
+  }
+
+  @Test
+  void shouldCrawlPagesFetchedSynchronouslyWithoutRecursing() {
+    // every fetch answered as it is subscribed, as from the link status cache on a recrawl
+    int pages = 10_000;
+    var links = IntStream.range(0, pages).mapToObj(i -> "/" + i).collect(toSet());
+    var fetches = new AtomicInteger();
+    CrawlFrontier.Fetcher fetcher = (uri, needsLinks) -> {
+      fetches.incrementAndGet();
+      return Mono.just(new PageResponse(uri, 200, "OK", uri.equals("/") ? links : Set.of("/")));
+    };
+
+    StepVerifier.create(new CrawlFrontier(2, fetcher, CrawlListener.NONE, 16).crawl(Set.of("/")).count())
+        .expectNext(pages + 1L)
+        .verifyComplete();
+
+    assertEquals(pages + 1, fetches.get());
+  }
+
+  @Test
+  void shouldCompleteWhenRootHasNoLinks() {
+    var site = new FakeSite(Map.of(), Map.of());
+    StepVerifier.create(new CrawlFrontier(5, site::fetch).crawl(Set.of("/")))
+        .expectNextMatches(response -> response.getUri().equals("/"))
+        .verifyComplete();
+  }
+}
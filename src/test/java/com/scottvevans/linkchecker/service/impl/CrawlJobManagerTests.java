@@ -0,0 +1,87 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import com.scottvevans.linkchecker.model.CrawlJob;
+import com.scottvevans.linkchecker.model.PageResponse;
+import com.scottvevans.linkchecker.service.CrawlListener;
+import com.scottvevans.linkchecker.service.Crawler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+public class CrawlJobManagerTests {
+  private static final String URI = "https://www.acme.com/";
+
+  private Crawler crawler;
+  private LinkCheckerProperties properties;
+
+  @BeforeEach
+  void init() {
+    crawler = Mockito.mock(Crawler.class);
+    properties = new LinkCheckerProperties();
+  }
+
+  @Test
+  void shouldReportProgressAndTheFinalReport() {
+    var listener = ArgumentCaptor.forClass(CrawlListener.class);
+    Mockito.when(crawler.stream(eq(2), eq(URI), listener.capture())).thenReturn(Flux.defer(() -> {
+      listener.getValue().frontierChanged(3);
+      return Flux.just(new PageResponse(URI, 200, "OK", Set.of()), new PageResponse(URI + "a", 404, "", Set.of()))
+          .doOnNext(response -> listener.getValue().reported(response, response.getUri().equals(URI) ? 0 : 1));
+    }).concatWith(Flux.never()));
+    var jobs = new CrawlJobManager(crawler, properties);
+
+    var id = jobs.submit(2, URI).getId();
+    var progress = jobs.find(id).orElseThrow();
+    assertEquals(CrawlJob.Status.RUNNING, progress.getStatus());
+    assertEquals(2, progress.getPagesCrawled());
+    assertEquals(3, progress.getFrontierSize());
+    assertEquals(Map.of(200, 1, 404, 1), progress.getStatusCounts());
+    assertThrows(IllegalStateException.class, () -> jobs.report(id), "no report while running");
+
+    jobs.cancel(id);
+    var report = jobs.report(id).orElseThrow();
+    assertEquals(2, report.getTotalPagesCrawled());
+    assertEquals(Map.of(200, 1, 404, 1), report.getStatusCounts());
+    assertEquals(Map.of(0, 1, 1, 1), report.getDepthCounts());
+    assertEquals(2, report.getResponses().size());
+    assertTrue(jobs.find("unknown").isEmpty());
+  }
+
+  @Test
+  void shouldCapConcurrentCrawlsAndCancelInFlightFetches() {
+    properties.getJobs().setMaxConcurrentCrawls(1);
+    properties.getJobs().setMaxQueuedCrawls(1);
+    var cancelled = new AtomicBoolean();
+    Mockito.when(crawler.stream(eq(1), eq(URI), any()))
+        .thenReturn(Flux.<PageResponse>never().doOnCancel(() -> cancelled.set(true)));
+    Mockito.when(crawler.stream(eq(1), eq(URI + "b"), any()))
+        .thenReturn(Flux.just(new PageResponse(URI + "b", 200, "OK", Set.of())));
+    var jobs = new CrawlJobManager(crawler, properties);
+
+    var first = jobs.submit(1, URI);
+    var second = jobs.submit(1, URI + "b");
+    assertEquals(CrawlJob.Status.RUNNING, first.getStatus());
+    assertEquals(CrawlJob.Status.QUEUED, second.getStatus());
+    assertThrows(RejectedExecutionException.class, () -> jobs.submit(1, URI + "c"), "the queue is full");
+
+    assertEquals(CrawlJob.Status.CANCELLED, jobs.cancel(first.getId()).orElseThrow().getStatus());
+    assertTrue(cancelled.get(), "the crawl is disposed");
+    assertEquals(CrawlJob.Status.COMPLETED, jobs.find(second.getId()).orElseThrow().getStatus(),
+        "the queued crawl starts once a slot is free");
+    assertEquals(CrawlJob.Status.CANCELLED, jobs.cancel(first.getId()).orElseThrow().getStatus());
+  }
+}
@@ -1,10 +1,20 @@
 package com.scottvevans.linkchecker.service.impl;
 
+import com.scottvevans.linkchecker.config.HttpClientConfig;
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import com.scottvevans.linkchecker.model.BrokenLink;
+import com.scottvevans.linkchecker.model.CrawlRequest;
+import com.scottvevans.linkchecker.model.CrawlScope;
+import com.scottvevans.linkchecker.model.CrawlState;
 import com.scottvevans.linkchecker.model.CrawlerReport;
 import com.scottvevans.linkchecker.model.PageResponse;
+import com.scottvevans.linkchecker.model.RedirectHop;
 import com.scottvevans.linkchecker.service.Crawler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,12 +24,20 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 import static com.scottvevans.linkchecker.service.impl.HtmlHelper.page;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Collectors.toSet;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
@@ -126,4 +144,514 @@ public class CrawlerImplTests {
     assertTrue(expectedChildPaths.contains(bRecordedRequest.getPath()));
   }
 
+  @Test
+  void testHeadRequestsProbeLeavesAndFallBackToGet() throws Exception {
+    var properties = new LinkCheckerProperties();
+    properties.getFetch().setHeadRequests(true);
+    var headCrawler = new CrawlerImpl(new JsoupHtmlParserImpl(), properties, new SimpleMeterRegistry());
+
+    // a.html does not allow HEAD, b.pdf answers HEAD without a body as a real server would
+    var server = new MockWebServer();
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        var head = "HEAD".equals(request.getMethod());
+        switch (request.getPath()) {
+          case "/": return okHtmlPage(page(null, List.of("a.html", "b.pdf")));
+          case "/a.html": return head
+              ? new MockResponse().setResponseCode(HttpStatus.METHOD_NOT_ALLOWED.value())
+              : okHtmlPage(page(null, List.of()));
+          case "/b.pdf": return new MockResponse().setHeader("Content-Type", "application/pdf");
+          default: return new MockResponse().setResponseCode(HttpStatus.NOT_FOUND.value());
+        }
+      }
+    });
+    server.start();
+    try {
+      var rootURI = server.url("/").toString();
+      StepVerifier.create(headCrawler.crawl(1, rootURI))
+          .assertNext(report -> {
+            var methods = report.getResponses().stream()
+                .collect(toMap(PageResponse::getUri, PageResponse::getMethod));
+            assertEquals(Map.of(rootURI, "GET", rootURI + "a.html", "GET", rootURI + "b.pdf", "HEAD"), methods);
+          })
+          .verifyComplete();
+
+      List<String> requests = new ArrayList<>();
+      for (int i = server.getRequestCount(); i > 0; i--) {
+        var request = server.takeRequest();
+        requests.add(request.getMethod() + " " + request.getPath());
+      }
+      assertEquals(Set.of("GET /", "HEAD /a.html", "GET /a.html", "HEAD /b.pdf"), Set.copyOf(requests));
+      assertEquals(4, requests.size());
+    } finally {
+      server.shutdown();
+    }
+  }
+
+  @Test
+  void testLinksOutOfScopeAreProbedButNotExpanded() throws Exception {
+    var properties = new LinkCheckerProperties();
+    properties.getFetch().setHeadRequests(true);
+    properties.getCache().setEnabled(false);
+    var scopedCrawler = new CrawlerImpl(new JsoupHtmlParserImpl(), properties, new SimpleMeterRegistry());
+
+    var server = new MockWebServer();
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        switch (request.getPath()) {
+          case "/site/": return okHtmlPage(page(null, List.of("a.html", "/other/")));
+          case "/site/a.html": return okHtmlPage(page(null, List.of()));
+          case "/other/": return okHtmlPage(page(null, List.of("/other/deeper.html")));
+          default: return new MockResponse().setResponseCode(HttpStatus.NOT_FOUND.value());
+        }
+      }
+    });
+    server.start();
+    try {
+      var rootURI = server.url("/site/").toString();
+      var scope = new CrawlScope(CrawlScope.Mode.PREFIX, List.of(), List.of());
+      StepVerifier.create(scopedCrawler.crawl(3, rootURI, scope))
+          .assertNext(report -> {
+            var methods = report.getResponses().stream()
+                .collect(toMap(PageResponse::getUri, PageResponse::getMethod));
+            assertEquals(Map.of(rootURI, "GET", rootURI + "a.html", "GET", server.url("/other/").toString(), "HEAD"),
+                methods);
+          })
+          .verifyComplete();
+
+      List<String> requests = new ArrayList<>();
+      for (int i = server.getRequestCount(); i > 0; i--) {
+        var request = server.takeRequest();
+        requests.add(request.getMethod() + " " + request.getPath());
+      }
+      assertEquals(Set.of("GET /site/", "GET /site/a.html", "HEAD /other/"), Set.copyOf(requests));
+    } finally {
+      server.shutdown();
+    }
+  }
+
+  @Test
+  void testObeysRobotsTxtFetchedOncePerHost() throws Exception {
+    var properties = new LinkCheckerProperties();
+    properties.getRobots().setEnabled(true);
+    properties.getCache().setEnabled(false);
+    var politeCrawler = new CrawlerImpl(new JsoupHtmlParserImpl(), properties, new SimpleMeterRegistry());
+
+    var server = new MockWebServer();
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        switch (request.getPath()) {
+          case "/robots.txt": return new MockResponse()
+              .setHeader("Content-Type", "text/plain")
+              .setBody("User-agent: *\nDisallow: /private/\nCrawl-delay: 0.05\n");
+          case "/": return okHtmlPage(page(null, List.of("a.html", "private/plans.html")));
+          case "/a.html": return okHtmlPage(page(null, List.of("/", "b.html")));
+          case "/b.html": return okHtmlPage(page(null, List.of()));
+          default: return new MockResponse().setResponseCode(HttpStatus.NOT_FOUND.value());
+        }
+      }
+    });
+    server.start();
+    try {
+      var rootURI = server.url("/").toString();
+      StepVerifier.create(politeCrawler.crawl(2, rootURI))
+          .assertNext(report -> {
+            var statuses = report.getResponses().stream()
+                .collect(toMap(PageResponse::getUri, PageResponse::getHttpStatus));
+            assertEquals(Map.of(rootURI, 200, rootURI + "a.html", 200, rootURI + "b.html", 200,
+                rootURI + "private/plans.html", PageResponse.DISALLOWED_BY_ROBOTS), statuses);
+          })
+          .verifyComplete();
+
+      List<String> paths = new ArrayList<>();
+      for (int i = server.getRequestCount(); i > 0; i--) {
+        var request = server.takeRequest();
+        assertEquals("linkchecker", request.getHeader("User-Agent"));
+        paths.add(request.getPath());
+      }
+      assertEquals(List.of("/robots.txt", "/", "/a.html", "/b.html"), paths,
+          "robots.txt is fetched once, before any page, and the disallowed page never");
+    } finally {
+      server.shutdown();
+    }
+  }
+
+  @Test
+  void testReportsLinksOfSitesWhoseRobotsTxtCannotBeRetrievedAsBroken() throws Exception {
+    var properties = new LinkCheckerProperties();
+    properties.getRobots().setEnabled(true);
+    properties.getCache().setEnabled(false);
+    var politeCrawler = new CrawlerImpl(new JsoupHtmlParserImpl(), properties, new SimpleMeterRegistry());
+
+    var deadHost = new MockWebServer();
+    deadHost.start();
+    var deadURI = deadHost.url("/page.html").toString();
+    deadHost.shutdown();
+
+    var server = new MockWebServer();
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        if (request.getPath().equals("/")) return okHtmlPage(page(null, List.of("down.html", deadURI)));
+        // robots.txt included
+        return new MockResponse().setResponseCode(HttpStatus.SERVICE_UNAVAILABLE.value());
+      }
+    });
+    server.start();
+    try {
+      var rootURI = server.url("/").toString();
+      StepVerifier.create(politeCrawler.crawl(List.of(new CrawlRequest(rootURI, 1))))
+          .assertNext(batch -> {
+            var statuses = batch.getReports().get(0).getResponses().stream()
+                .collect(toMap(PageResponse::getUri, PageResponse::getHttpStatus));
+            assertEquals(Map.of(rootURI, 200, rootURI + "down.html", 503, deadURI, -1), statuses,
+                "pages of a site whose robots.txt is unavailable or unreachable are fetched, not disallowed");
+            assertEquals(Set.of(rootURI + "down.html", deadURI),
+                batch.getBrokenLinks().stream().map(BrokenLink::getUri).collect(toSet()));
+          })
+          .verifyComplete();
+      assertEquals("/robots.txt", server.takeRequest().getPath());
+    } finally {
+      server.shutdown();
+    }
+  }
+
+  @Test
+  void testOpensRecordedCrawlsOffTheSubscribingThread() throws Exception {
+    var properties = new LinkCheckerProperties();
+    var registry = new SimpleMeterRegistry();
+    List<String> openedOn = new CopyOnWriteArrayList<>();
+    var stateStore = new InMemoryCrawlStateStore(properties) {
+      @Override
+      public CrawlState open(String crawlId, String rootURI, int maxDepth) {
+        openedOn.add(Thread.currentThread().getName());
+        return super.open(crawlId, rootURI, maxDepth);
+      }
+    };
+    var recordingCrawler = new CrawlerImpl(new JsoupHtmlParserImpl(), properties,
+        new HostScheduler(properties, registry), new LinkStatusCache(properties, registry),
+        new RobotsCache(properties, registry), new RedirectMap(properties, registry), new InFlightRequests(registry),
+        stateStore, new CrawlMetrics(properties, registry), new ParseScheduler(properties, registry),
+        HttpClientConfig.httpClient(properties.getHttp(), HttpClientConfig.connectionProvider(properties.getHttp())));
+
+    var server = new MockWebServer();
+    server.enqueue(okHtmlPage(page(null, List.of())));
+    server.start();
+    try {
+      var rootURI = server.url("/").toString();
+      StepVerifier.create(recordingCrawler.stream("crawl-1", 1, rootURI))
+          .assertNext(response -> assertEquals(200, response.getHttpStatus()))
+          .verifyComplete();
+      assertEquals(1, openedOn.size());
+      assertTrue(openedOn.get(0).startsWith("boundedElastic"), "opened on " + openedOn.get(0));
+      assertTrue(stateStore.find("crawl-1").orElseThrow().isCompleted());
+
+      StepVerifier.create(recordingCrawler.stream("crawl-1", 2, rootURI))
+          .expectError(IllegalArgumentException.class)
+          .verify(Duration.ofSeconds(5));
+    } finally {
+      server.shutdown();
+    }
+  }
+
+  @Test
+  void testResponseTimeout() throws Exception {
+    var properties = new LinkCheckerProperties();
+    properties.getHttp().setResponseTimeout(Duration.ofMillis(200));
+    var timeoutCrawler = new CrawlerImpl(new JsoupHtmlParserImpl(), properties, new SimpleMeterRegistry());
+
+    var server = new MockWebServer();
+    server.enqueue(okHtmlPage(page(null, List.of())).setHeadersDelay(2, TimeUnit.SECONDS));
+    server.start();
+    try {
+      StepVerifier.create(timeoutCrawler.stream(1, server.url("/").toString()))
+          .assertNext(response -> {
+            assertEquals(-1, response.getHttpStatus());
+            assertTrue(response.getMessage().contains("TimeoutException"), response.getMessage());
+          })
+          .verifyComplete();
+    } finally {
+      server.shutdown();
+    }
+  }
+
+  @Test
+  void testRetriesServiceUnavailableAfterRetryAfter() throws Exception {
+    var properties = new LinkCheckerProperties();
+    properties.getRetry().setMaxAttempts(3);
+    properties.getRetry().setInitialBackoff(Duration.ofMillis(10));
+    var retryingCrawler = new CrawlerImpl(new JsoupHtmlParserImpl(), properties, new SimpleMeterRegistry());
+
+    var server = new MockWebServer();
+    server.enqueue(new MockResponse().setResponseCode(HttpStatus.SERVICE_UNAVAILABLE.value())
+        .setHeader("Retry-After", "0"));
+    server.enqueue(okHtmlPage(page(null, List.of())));
+    server.start();
+    try {
+      StepVerifier.create(retryingCrawler.stream(1, server.url("/").toString()))
+          .assertNext(response -> {
+            assertEquals(200, response.getHttpStatus());
+            assertEquals(1, response.getRetries());
+          })
+          .verifyComplete();
+      assertEquals(2, server.getRequestCount());
+    } finally {
+      server.shutdown();
+    }
+  }
+
+  @Test
+  void testDoesNotRetryNotFound() throws Exception {
+    var properties = new LinkCheckerProperties();
+    properties.getRetry().setMaxAttempts(3);
+    var retryingCrawler = new CrawlerImpl(new JsoupHtmlParserImpl(), properties, new SimpleMeterRegistry());
+
+    var server = new MockWebServer();
+    server.enqueue(new MockResponse().setResponseCode(HttpStatus.NOT_FOUND.value()));
+    server.start();
+    try {
+      StepVerifier.create(retryingCrawler.stream(1, server.url("/").toString()))
+          .assertNext(response -> {
+            assertEquals(404, response.getHttpStatus());
+            assertEquals(0, response.getRetries());
+          })
+          .verifyComplete();
+      assertEquals(1, server.getRequestCount());
+    } finally {
+      server.shutdown();
+    }
+  }
+
+  private static MockResponse redirect(int status, String location) {
+    return new MockResponse().setResponseCode(status).setHeader("Location", location);
+  }
+
+  @Test
+  void testFollowsRedirectsWithinFetchAndRemembersChain() throws Exception {
+    var properties = new LinkCheckerProperties();
+    properties.getRedirects().setFollow(true);
+    properties.getCache().setEnabled(false);
+    var followingCrawler = new CrawlerImpl(new JsoupHtmlParserImpl(), properties, new SimpleMeterRegistry());
+
+    var server = new MockWebServer();
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        switch (request.getPath()) {
+          case "/": return redirect(301, "/moved");
+          case "/moved": return redirect(302, "/home/");
+          case "/home/": return okHtmlPage(page(null, List.of("a.html")));
+          case "/home/a.html": return okHtmlPage(page(null, List.of()));
+          default: return new MockResponse().setResponseCode(HttpStatus.NOT_FOUND.value());
+        }
+      }
+    });
+    server.start();
+    try {
+      var rootURI = server.url("/").toString();
+      StepVerifier.create(followingCrawler.crawl(1, rootURI))
+          .assertNext(report -> {
+            var root = report.getResponses().stream()
+                .filter(response -> response.getUri().equals(rootURI)).findFirst().orElseThrow();
+            assertEquals(200, root.getHttpStatus());
+            assertEquals(List.of(new RedirectHop(rootURI, 301), new RedirectHop(rootURI + "moved", 302)),
+                root.getRedirects());
+            assertEquals(rootURI + "home/", root.getRedirectedURI());
+            assertEquals(Set.of(rootURI, rootURI + "home/a.html"),
+                report.getResponses().stream().map(PageResponse::getUri).collect(toSet()),
+                "links of the page redirected to are found at the next depth, resolved against it");
+          })
+          .verifyComplete();
+      assertEquals(4, server.getRequestCount());
+
+      for (int i = server.getRequestCount(); i > 0; i--) server.takeRequest();
+      StepVerifier.create(followingCrawler.stream(1, rootURI).filter(response -> response.getUri().equals(rootURI)))
+          .assertNext(response -> assertEquals(2, response.getRedirects().size()))
+          .verifyComplete();
+      assertEquals("/home/", server.takeRequest().getPath(), "the known chain is skipped, fetching its end directly");
+    } finally {
+      server.shutdown();
+    }
+  }
+
+  @Test
+  void testStopsFollowingRedirectLoop() throws Exception {
+    var properties = new LinkCheckerProperties();
+    properties.getRedirects().setFollow(true);
+    var followingCrawler = new CrawlerImpl(new JsoupHtmlParserImpl(), properties, new SimpleMeterRegistry());
+
+    var server = new MockWebServer();
+    server.enqueue(redirect(302, "/login"));
+    server.enqueue(redirect(302, "/"));
+    server.start();
+    try {
+      StepVerifier.create(followingCrawler.stream(2, server.url("/").toString()))
+          .assertNext(response -> {
+            assertEquals(302, response.getHttpStatus());
+            assertTrue(response.getMessage().contains("redirect loop"), response.getMessage());
+            assertEquals(2, response.getRedirects().size());
+          })
+          .verifyComplete();
+      assertEquals(2, server.getRequestCount());
+    } finally {
+      server.shutdown();
+    }
+  }
+
+  @Test
+  void testRevalidatesWithConditionalGetAndReusesLinksWhenNotModified() throws Exception {
+    var properties = new LinkCheckerProperties();
+    properties.getCache().setEnabled(false);
+    var revalidatingCrawler = new CrawlerImpl(new JsoupHtmlParserImpl(), properties, new SimpleMeterRegistry());
+
+    var server = new MockWebServer();
+    server.enqueue(okHtmlPage(page(null, List.of("a.html")))
+        .setHeader("ETag", "\"v1\"")
+        .setHeader("Last-Modified", "Wed, 21 Oct 2015 07:28:00 GMT"));
+    server.enqueue(okHtmlPage(page(null, List.of())));
+    server.enqueue(new MockResponse().setResponseCode(HttpStatus.NOT_MODIFIED.value()));
+    server.enqueue(okHtmlPage(page(null, List.of())));
+    server.start();
+    try {
+      var rootURI = server.url("/").toString();
+      StepVerifier.create(revalidatingCrawler.crawl(1, rootURI))
+          .assertNext(report -> assertEquals(Map.of(200, 2), report.getStatusCounts()))
+          .verifyComplete();
+      StepVerifier.create(revalidatingCrawler.crawl(1, rootURI))
+          .assertNext(report -> {
+            assertEquals(Map.of(200, 1, 304, 1), report.getStatusCounts());
+            var root = report.getResponses().stream()
+                .filter(response -> response.getUri().equals(rootURI))
+                .findFirst().orElseThrow();
+            assertEquals(Set.of(rootURI + "a.html"), root.getLinks(), "links of the unchanged page");
+          })
+          .verifyComplete();
+
+      var first = server.takeRequest();
+      assertNull(first.getHeader("If-None-Match"));
+      server.takeRequest();
+      var revalidation = server.takeRequest();
+      assertEquals("/", revalidation.getPath());
+      assertEquals("\"v1\"", revalidation.getHeader("If-None-Match"));
+      assertEquals("Wed, 21 Oct 2015 07:28:00 GMT", revalidation.getHeader("If-Modified-Since"));
+      assertNull(server.takeRequest().getHeader("If-None-Match"), "a.html had no validators");
+    } finally {
+      server.shutdown();
+    }
+  }
+
+  @Test
+  void testRecordsFetchParseAndFrontierMetrics() throws Exception {
+    var properties = new LinkCheckerProperties();
+    properties.getCache().setEnabled(false);
+    var registry = new SimpleMeterRegistry();
+    var meteredCrawler = new CrawlerImpl(new JsoupHtmlParserImpl(), properties, registry);
+
+    var server = new MockWebServer();
+    server.enqueue(okHtmlPage(page(null, List.of("a.html"))));
+    server.enqueue(new MockResponse().setResponseCode(HttpStatus.NOT_FOUND.value()));
+    server.start();
+    try {
+      StepVerifier.create(meteredCrawler.crawl(1, server.url("/").toString()))
+          .expectNextCount(1)
+          .verifyComplete();
+
+      assertEquals(1, registry.get(CrawlMetrics.FETCH_METRIC).tag("status", "2xx").tag("method", "GET")
+          .timer().count());
+      assertEquals(1, registry.get(CrawlMetrics.FETCH_METRIC).tag("status", "4xx").timer().count());
+      assertEquals(1, registry.get(CrawlMetrics.PARSE_METRIC).tag("parser", "JsoupHtmlParserImpl").timer().count());
+      assertTrue(registry.get(CrawlMetrics.BODY_SIZE_METRIC).summary().totalAmount() > 0);
+      for (var depth : List.of("0", "1")) {
+        assertEquals(0.0, registry.get(CrawlMetrics.FRONTIER_METRIC).tag("depth", depth).gauge().value(),
+            "nothing left on the frontier at depth " + depth);
+      }
+    } finally {
+      server.shutdown();
+    }
+  }
+
+  @Test
+  void testBatchFetchesUrisSharedByRootsOnce() throws Exception {
+    var properties = new LinkCheckerProperties();
+    properties.getCache().setEnabled(false);
+    var batchCrawler = new CrawlerImpl(new JsoupHtmlParserImpl(), properties, new SimpleMeterRegistry());
+
+    var server = new MockWebServer();
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        switch (request.getPath()) {
+          case "/a/": return okHtmlPage(page(null, List.of("/shared.html", "/missing.html")));
+          case "/b/": return okHtmlPage(page(null, List.of("/shared.html", "/missing.html", "/b/own.html")));
+          case "/shared.html":
+          case "/b/own.html": return okHtmlPage(page(null, List.of()));
+          default: return new MockResponse().setResponseCode(HttpStatus.NOT_FOUND.value());
+        }
+      }
+    });
+    server.start();
+    try {
+      var rootA = server.url("/a/").toString();
+      var rootB = server.url("/b/").toString();
+      var missing = server.url("/missing.html").toString();
+      StepVerifier.create(batchCrawler.crawl(List.of(new CrawlRequest(rootA, 1), new CrawlRequest(rootB, 1))))
+          .assertNext(batch -> {
+            assertEquals(List.of(rootA, rootB),
+                batch.getReports().stream().map(CrawlerReport::getRootURI).collect(toList()));
+            assertEquals(3, batch.getReports().get(0).getTotalPagesCrawled());
+            assertEquals(4, batch.getReports().get(1).getTotalPagesCrawled());
+            assertEquals(5, batch.getUniqueURIsFetched());
+            assertEquals(1, batch.getBrokenLinks().size());
+            BrokenLink brokenLink = batch.getBrokenLinks().get(0);
+            assertEquals(missing, brokenLink.getUri());
+            assertEquals(404, brokenLink.getHttpStatus());
+            assertEquals(Set.of(rootA, rootB), brokenLink.getRootURIs());
+          })
+          .verifyComplete();
+
+      List<String> paths = new ArrayList<>();
+      for (int i = server.getRequestCount(); i > 0; i--) {
+        paths.add(server.takeRequest().getPath());
+      }
+      assertEquals(1, paths.stream().filter("/shared.html"::equals).count(), "fetched once for both roots");
+      assertEquals(1, paths.stream().filter("/missing.html"::equals).count(), "fetched once for both roots");
+    } finally {
+      server.shutdown();
+    }
+  }
+
+  @Test
+  void testBatchReportsBrokenLinksWhenReportsKeepNoResponses() throws Exception {
+    var properties = new LinkCheckerProperties();
+    properties.getCache().setEnabled(false);
+    properties.getReport().setResponses(LinkCheckerProperties.Report.Responses.NONE);
+    var batchCrawler = new CrawlerImpl(new JsoupHtmlParserImpl(), properties, new SimpleMeterRegistry());
+
+    var server = new MockWebServer();
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        if (request.getPath().equals("/")) return okHtmlPage(page(null, List.of("/missing.html", "/gone.html")));
+        return new MockResponse().setResponseCode(HttpStatus.NOT_FOUND.value());
+      }
+    });
+    server.start();
+    try {
+      var rootURI = server.url("/").toString();
+      StepVerifier.create(batchCrawler.crawl(List.of(new CrawlRequest(rootURI, 1))))
+          .assertNext(batch -> {
+            var report = batch.getReports().get(0);
+            assertTrue(report.getResponses().isEmpty());
+            assertEquals(Map.of(200, 1, 404, 2), report.getStatusCounts());
+            assertEquals(List.of(server.url("/gone.html").toString(), server.url("/missing.html").toString()),
+                batch.getBrokenLinks().stream().map(BrokenLink::getUri).collect(toList()));
+          })
+          .verifyComplete();
+    } finally {
+      server.shutdown();
+    }
+  }
 }
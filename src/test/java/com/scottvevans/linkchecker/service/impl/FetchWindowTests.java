@@ -0,0 +1,82 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.model.PageResponse;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FetchWindowTests {
+
+  private static PageResponse ok(String uri) {
+    return new PageResponse(uri, 200, "OK", Set.of());
+  }
+
+  @Test
+  void shouldDrainSynchronousFetchesWithoutRecursing() {
+    var queue = new ArrayDeque<String>();
+    List<String> fetched = new ArrayList<>();
+    var depth = new AtomicInteger();
+    var maxDepth = new AtomicInteger();
+    // each response queues the next page, like a chain of links all answered from the cache
+    var window = new FetchWindow<String>(1, queue::poll, uri -> Mono.fromCallable(() -> {
+      maxDepth.accumulateAndGet(depth.incrementAndGet(), Math::max);
+      return ok(uri);
+    }).doFinally(signal -> depth.decrementAndGet()), (uri, response) -> {
+      fetched.add(uri);
+      if (fetched.size() < 100_000) queue.add("/" + fetched.size());
+    }, ex -> { throw new AssertionError(ex); });
+
+    queue.add("/0");
+    window.drain();
+
+    assertEquals(100_000, fetched.size());
+    assertEquals("/99999", fetched.get(fetched.size() - 1));
+    assertEquals(1, maxDepth.get(), "each fetch completes before the next starts");
+  }
+
+  @Test
+  void shouldStartNoMoreFetchesThanTheWindowAtOnce() throws InterruptedException {
+    var queue = new ArrayDeque<String>();
+    for (int i = 0; i < 50; i++) queue.add("/" + i);
+    var inFlight = new AtomicInteger();
+    var maxInFlight = new AtomicInteger();
+    var done = new CountDownLatch(50);
+    var window = new FetchWindow<String>(4, () -> {
+      synchronized (queue) {
+        return queue.poll();
+      }
+    }, uri -> Mono.defer(() -> {
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      return Mono.just(ok(uri)).delayElement(Duration.ofMillis(1));
+    }).doOnNext(response -> inFlight.decrementAndGet()), (uri, response) -> done.countDown(), ex -> { });
+
+    window.drain();
+
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertEquals(4, maxInFlight.get());
+  }
+
+  @Test
+  void shouldFailAFetchThatCompletesWithoutAResponse() {
+    var queue = new ArrayDeque<String>(List.of("/empty"));
+    List<Throwable> errors = new ArrayList<>();
+    var window = new FetchWindow<String>(1, queue::poll, uri -> Mono.empty(),
+        (uri, response) -> { throw new AssertionError("no response to hand back"); }, errors::add);
+
+    window.drain();
+
+    assertEquals(1, errors.size());
+    assertTrue(errors.get(0) instanceof IllegalStateException, errors.get(0).toString());
+  }
+}
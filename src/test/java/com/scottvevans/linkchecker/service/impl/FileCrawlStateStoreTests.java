@@ -0,0 +1,124 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import com.scottvevans.linkchecker.model.PageResponse;
+import com.scottvevans.linkchecker.model.PageValidators;
+import com.scottvevans.linkchecker.service.CrawlListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FileCrawlStateStoreTests {
+  private static final String CRAWL_ID = "crawl-1";
+
+  @TempDir
+  Path directory;
+
+  private LinkCheckerProperties properties;
+
+  @BeforeEach
+  void init() {
+    properties = new LinkCheckerProperties();
+    properties.getState().setDirectory(directory);
+  }
+
+  @Test
+  void shouldReplayCrawlAndValidatorsAfterRestart() {
+    var store = new FileCrawlStateStore(properties);
+    store.open(CRAWL_ID, "/", 2);
+    store.discovered(CRAWL_ID, "/", 0);
+    store.discovered(CRAWL_ID, "/a", 2);
+    store.discovered(CRAWL_ID, "/a", 1);
+    store.fetched(CRAWL_ID, new PageResponse("/", 200, "OK", Set.of("/a")));
+    store.putValidators("https://www.acme.com/?b=2&a=1", new PageValidators("\"v1\"", null, Set.of("/x")));
+    store.close();
+
+    var restarted = new FileCrawlStateStore(properties);
+    var state = restarted.find(CRAWL_ID).orElseThrow();
+    assertEquals("/", state.getRootURI());
+    assertEquals(2, state.getMaxDepth());
+    assertFalse(state.isCompleted());
+    assertEquals(Map.of("/", 0, "/a", 1), state.getDepths(), "shortest depth of each uri");
+    assertEquals(Set.of("/a"), state.getResponses().get("/").getLinks(), "links are recorded with the response");
+    assertEquals("\"v1\"", restarted.getValidators("https://www.acme.com/?a=1&b=2").orElseThrow().getEtag());
+
+    restarted.completed(CRAWL_ID);
+    assertTrue(restarted.find(CRAWL_ID).orElseThrow().isCompleted());
+    restarted.delete(CRAWL_ID);
+    assertTrue(restarted.find(CRAWL_ID).isEmpty());
+  }
+
+  @Test
+  void shouldSkipLineTornByCrashAndKeepAppending() throws Exception {
+    var store = new FileCrawlStateStore(properties);
+    store.open(CRAWL_ID, "/", 2);
+    store.discovered(CRAWL_ID, "/", 0);
+    store.close();
+    Files.writeString(directory.resolve(CRAWL_ID + FileCrawlStateStore.CRAWL_LOG_SUFFIX),
+        "{\"type\":\"fetched\",\"uri\":\"/\",\"httpSta", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+    var restarted = new FileCrawlStateStore(properties);
+    restarted.open(CRAWL_ID, "/", 2);
+    restarted.fetched(CRAWL_ID, new PageResponse("/", 200, "OK", Set.of()));
+    restarted.close();
+
+    var state = new FileCrawlStateStore(properties).find(CRAWL_ID).orElseThrow();
+    assertEquals(200, state.getResponses().get("/").getHttpStatus(), "line appended after the torn one is kept");
+  }
+
+  @Test
+  void shouldResumeCrawlFetchingOnlyWhatRemains() {
+    var graph = Map.of("/", Set.of("/a", "/b"), "/a", Set.of("/aa"), "/b", Set.of("/bb"));
+    Map<String, AtomicInteger> fetchCounts = new ConcurrentHashMap<>();
+    CrawlFrontier.Fetcher fetcher = (uri, needsLinks) -> {
+      fetchCounts.computeIfAbsent(uri, key -> new AtomicInteger()).incrementAndGet();
+      return Mono.just(new PageResponse(uri, 200, "OK", graph.getOrDefault(uri, Set.of())));
+    };
+
+    // a crawl interrupted after fetching / and /a, with /b and /aa discovered but not fetched
+    var store = new FileCrawlStateStore(properties);
+    store.open(CRAWL_ID, "/", 2);
+    store.discovered(CRAWL_ID, "/", 0);
+    store.discovered(CRAWL_ID, "/a", 1);
+    store.discovered(CRAWL_ID, "/b", 1);
+    store.fetched(CRAWL_ID, new PageResponse("/", 200, "OK", graph.get("/")));
+    store.discovered(CRAWL_ID, "/aa", 2);
+    store.fetched(CRAWL_ID, new PageResponse("/a", 200, "OK", graph.get("/a")));
+    store.close();
+
+    var restarted = new FileCrawlStateStore(properties);
+    var state = restarted.open(CRAWL_ID, "/", 2);
+    var listener = new CrawlListener() {
+      @Override
+      public void discovered(String uri, int depth) {
+        restarted.discovered(CRAWL_ID, uri, depth);
+      }
+
+      @Override
+      public void fetched(PageResponse response) {
+        restarted.fetched(CRAWL_ID, response);
+      }
+    };
+    StepVerifier.create(new CrawlFrontier(2, fetcher, listener).crawl(Set.of("/"), state).count())
+        .expectNext(5L)
+        .verifyComplete();
+
+    assertEquals(Set.of("/b", "/aa", "/bb"), fetchCounts.keySet(), "pages already fetched are not fetched again");
+    assertEquals(5, restarted.find(CRAWL_ID).orElseThrow().getResponses().size());
+  }
+}
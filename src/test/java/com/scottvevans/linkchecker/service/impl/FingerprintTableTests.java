@@ -0,0 +1,32 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class FingerprintTableTests {
+
+  @Test
+  void shouldAddAndReplaceStatesAcrossResizes() {
+    var table = new FingerprintTable();
+    for (int i = 0; i < 10_000; i++) {
+      table.put(FingerprintTable.fingerprint("https://www.acme.com/page/" + i), (byte) (i % 100));
+    }
+    table.put(FingerprintTable.fingerprint("https://www.acme.com/page/42"), (byte) 7);
+
+    assertEquals(10_000, table.size());
+    assertEquals(7, table.get(FingerprintTable.fingerprint("https://www.acme.com/page/42")));
+    assertEquals(99, table.get(FingerprintTable.fingerprint("https://www.acme.com/page/9999")));
+    assertEquals(FingerprintTable.ABSENT, table.get(FingerprintTable.fingerprint("https://www.acme.com/page/")));
+  }
+
+  @Test
+  void shouldFingerprintSimilarUrisDifferently() {
+    assertNotEquals(FingerprintTable.fingerprint("https://www.acme.com/a"),
+        FingerprintTable.fingerprint("https://www.acme.com/b"));
+    assertNotEquals(0, FingerprintTable.fingerprint(""));
+    assertEquals(FingerprintTable.fingerprint("https://www.acme.com/a"),
+        FingerprintTable.fingerprint(new StringBuilder("https://www.acme.com/a")));
+  }
+}
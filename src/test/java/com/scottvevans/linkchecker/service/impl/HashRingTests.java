@@ -0,0 +1,56 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HashRingTests {
+  private static final List<String> NODES = List.of("http://localhost:8081", "http://localhost:8082",
+      "http://localhost:8083");
+
+  private static String host(int i) {
+    return "site" + i + ".example.com";
+  }
+
+  @Test
+  void shouldAssignHostsTheSameWhateverTheOrderOfNodes() {
+    var ring = new HashRing(NODES, 128);
+    var reversed = new HashRing(List.of(NODES.get(2), NODES.get(1), NODES.get(0)), 128);
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(ring.nodeFor(host(i)), reversed.nodeFor(host(i)));
+    }
+  }
+
+  @Test
+  void shouldSpreadHostsEvenly() {
+    var ring = new HashRing(NODES, 128);
+    Map<String, Integer> counts = new HashMap<>();
+    for (int i = 0; i < 3000; i++) {
+      counts.merge(ring.nodeFor(host(i)), 1, Integer::sum);
+    }
+    assertEquals(3, counts.size());
+    counts.forEach((node, count) -> assertTrue(count > 700 && count < 1300, node + " owns " + count));
+  }
+
+  @Test
+  void shouldOnlyMoveHostsToAddedNode() {
+    var ring = new HashRing(NODES, 128);
+    var added = "http://localhost:8084";
+    var grown = new HashRing(List.of(NODES.get(0), NODES.get(1), NODES.get(2), added), 128);
+    int moved = 0;
+    for (int i = 0; i < 3000; i++) {
+      var before = ring.nodeFor(host(i));
+      var after = grown.nodeFor(host(i));
+      if (!before.equals(after)) {
+        assertEquals(added, after);
+        moved++;
+      }
+    }
+    assertTrue(moved > 450 && moved < 1100, "moved " + moved);
+  }
+}
@@ -0,0 +1,185 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HostSchedulerTests {
+
+  private static HostScheduler scheduler(int perHost, Duration minDelay, int maxInFlight) {
+    var properties = new LinkCheckerProperties();
+    properties.getFetch().setPerHostConcurrency(perHost);
+    properties.getFetch().setPerHostMinDelay(minDelay);
+    properties.getFetch().setMaxInFlight(maxInFlight);
+    return new HostScheduler(properties, new SimpleMeterRegistry());
+  }
+
+  /** Tracks the highest number of tasks running at once */
+  private static class ConcurrencyProbe {
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger max = new AtomicInteger();
+
+    Mono<Integer> task(int value) {
+      return Mono.defer(() -> {
+        max.accumulateAndGet(running.incrementAndGet(), Math::max);
+        return Mono.delay(Duration.ofMillis(30)).thenReturn(value);
+      }).doFinally(signal -> running.decrementAndGet());
+    }
+  }
+
+  @Test
+  void shouldLimitConcurrencyPerHostAndOverall() {
+    var scheduler = scheduler(2, Duration.ZERO, 3);
+    var hostA = new ConcurrencyProbe();
+    var all = new ConcurrencyProbe();
+
+    var tasks = Flux.range(0, 20).flatMap(i -> i % 2 == 0
+        ? scheduler.schedule("a", () -> hostA.task(i).flatMap(all::task))
+        : scheduler.schedule("b", () -> all.task(i)));
+
+    StepVerifier.create(tasks.count()).expectNext(20L).verifyComplete();
+    assertTrue(hostA.max.get() <= 2, "at most 2 concurrent requests to host a, was " + hostA.max.get());
+    assertTrue(all.max.get() <= 3, "at most 3 concurrent requests overall, was " + all.max.get());
+    assertEquals(0, scheduler.getInFlight());
+    assertEquals(Map.of(), scheduler.getQueueDepths());
+  }
+
+  @Test
+  void shouldSpaceOutRequestsToTheSameHost() {
+    var scheduler = scheduler(4, Duration.ofMillis(100), 256);
+    List<Long> startTimes = new CopyOnWriteArrayList<>();
+
+    var tasks = Flux.range(0, 3).flatMap(i -> scheduler.schedule("a", () -> Mono.fromCallable(() -> {
+      startTimes.add(System.nanoTime());
+      return i;
+    })));
+
+    StepVerifier.create(tasks.count()).expectNext(3L).verifyComplete();
+    for (int i = 1; i < startTimes.size(); i++) {
+      var gap = Duration.ofNanos(startTimes.get(i) - startTimes.get(i - 1));
+      assertTrue(gap.toMillis() >= 90, "requests to the same host are at least the minimum delay apart, was " + gap);
+    }
+  }
+
+  @Test
+  void shouldSpaceOutRequestsByTheDelayAHostAsksFor() {
+    var scheduler = scheduler(4, Duration.ZERO, 256);
+    List<Long> startTimes = new CopyOnWriteArrayList<>();
+
+    var tasks = Flux.range(0, 3).flatMap(i -> scheduler.schedule("a", Duration.ofMillis(100),
+        () -> Mono.fromCallable(() -> {
+          startTimes.add(System.nanoTime());
+          return i;
+        })));
+
+    StepVerifier.create(tasks.count()).expectNext(3L).verifyComplete();
+    for (int i = 1; i < startTimes.size(); i++) {
+      var gap = Duration.ofNanos(startTimes.get(i) - startTimes.get(i - 1));
+      assertTrue(gap.toMillis() >= 90, "requests to the host are at least its crawl delay apart, was " + gap);
+    }
+  }
+
+  @Test
+  void shouldAdaptConcurrencyToOverload() {
+    var properties = new LinkCheckerProperties();
+    properties.getFetch().setPerHostConcurrency(8);
+    properties.getAdaptiveConcurrency().setEnabled(true);
+    var registry = new SimpleMeterRegistry();
+    var scheduler = new HostScheduler(properties, registry);
+    var hostA = new ConcurrencyProbe();
+
+    // every result of host a shows it overloaded, cutting its limit down to one request at a time
+    var overloaded = Flux.range(0, 8).concatMap(i -> scheduler.schedule("a", Duration.ZERO,
+        () -> hostA.task(i), result -> true));
+    StepVerifier.create(overloaded.count()).expectNext(8L).verifyComplete();
+
+    var tasks = Flux.range(0, 6).flatMap(i -> scheduler.schedule("a", () -> hostA.task(i)));
+    hostA.max.set(0);
+    StepVerifier.create(tasks.count()).expectNext(6L).verifyComplete();
+    assertEquals(1, hostA.max.get(), "host a is limited to one request at a time");
+    assertTrue(registry.get(HostScheduler.CONCURRENCY_LIMIT_METRIC).tag("host", "a").gauge().value() < 2);
+  }
+
+  @Test
+  void shouldCutConcurrencyWhenRequestsTimeOut() {
+    var properties = new LinkCheckerProperties();
+    properties.getFetch().setPerHostConcurrency(8);
+    properties.getAdaptiveConcurrency().setEnabled(true);
+    var registry = new SimpleMeterRegistry();
+    var scheduler = new HostScheduler(properties, registry);
+
+    // netty's read timeout, unchecked, as the timeout handlers of the http client fail requests with
+    var timedOut = Flux.range(0, 4).concatMap(i -> scheduler.schedule("a", Duration.ZERO,
+        () -> Mono.<Integer>error(ReadTimeoutException.INSTANCE), result -> false).onErrorReturn(-1));
+    StepVerifier.create(timedOut.count()).expectNext(4L).verifyComplete();
+
+    assertTrue(registry.get(HostScheduler.CONCURRENCY_LIMIT_METRIC).tag("host", "a").gauge().value() <= 1,
+        "each timeout cuts the limit of host a");
+  }
+
+  @Test
+  void shouldKeepAdaptiveConcurrencyWithinTheConnectionsPerHost() {
+    var properties = new LinkCheckerProperties();
+    properties.getFetch().setPerHostConcurrency(8);
+    properties.getAdaptiveConcurrency().setEnabled(true);
+    properties.getHttp().setMaxConnectionsPerHost(2);
+    var registry = new SimpleMeterRegistry();
+    var scheduler = new HostScheduler(properties, registry);
+    var hostA = new ConcurrencyProbe();
+
+    var tasks = Flux.range(0, 20).flatMap(i -> scheduler.schedule("a", () -> hostA.task(i)));
+    StepVerifier.create(tasks.count()).expectNext(20L).verifyComplete();
+    assertTrue(hostA.max.get() <= 2, "at most 2 concurrent requests to host a, was " + hostA.max.get());
+    assertEquals(2, registry.get(HostScheduler.CONCURRENCY_LIMIT_METRIC).tag("host", "a").gauge().value());
+  }
+
+  @Test
+  void shouldNotTakeTimeBeforeARequestIsSentForLatency() {
+    var properties = new LinkCheckerProperties();
+    properties.getFetch().setPerHostConcurrency(4);
+    properties.getAdaptiveConcurrency().setEnabled(true);
+    var registry = new SimpleMeterRegistry();
+    var scheduler = new HostScheduler(properties, registry);
+
+    // requests answered in 20ms, the later ones after waiting 200ms for a connection; one at a time, so the limit
+    // neither grows nor would shrink unless the wait were taken for the host slowing down
+    var tasks = Flux.range(0, 12).concatMap(i -> scheduler.schedule("a", () -> Mono
+        .delay(Duration.ofMillis(i < 4 ? 0 : 200))
+        .then(Mono.subscriberContext())
+        .doOnNext(HostScheduler::startSample)
+        .then(Mono.delay(Duration.ofMillis(20)))));
+    StepVerifier.create(tasks.count()).expectNext(12L).verifyComplete();
+    assertEquals(4, registry.get(HostScheduler.CONCURRENCY_LIMIT_METRIC).tag("host", "a").gauge().value());
+  }
+
+  @Test
+  void shouldReleaseQueuedAndRunningTasksOnCancel() {
+    var scheduler = scheduler(1, Duration.ZERO, 256);
+
+    var running = scheduler.schedule("a", Mono::never).subscribe();
+    var queued = scheduler.schedule("a", () -> Mono.just(1)).subscribe();
+    assertEquals(Map.of("a", 1), scheduler.getQueueDepths());
+    assertEquals(1, scheduler.getInFlight());
+
+    queued.dispose();
+    assertEquals(Map.of(), scheduler.getQueueDepths());
+
+    running.dispose();
+    assertEquals(0, scheduler.getInFlight());
+
+    StepVerifier.create(scheduler.schedule("a", () -> Mono.just(2))).expectNext(2).verifyComplete();
+  }
+}
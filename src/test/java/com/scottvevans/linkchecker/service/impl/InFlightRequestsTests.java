@@ -0,0 +1,94 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.model.PageResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+public class InFlightRequestsTests {
+  private static final String URI = "https://www.acme.com/company/?b=2&a=1";
+
+  private SimpleMeterRegistry registry;
+  private InFlightRequests inFlight;
+  private AtomicInteger fetches;
+
+  @BeforeEach
+  void init() {
+    registry = new SimpleMeterRegistry();
+    inFlight = new InFlightRequests(registry);
+    fetches = new AtomicInteger();
+  }
+
+  private Mono<PageResponse> slowFetch(String uri) {
+    return Mono.fromCallable(() -> {
+      fetches.incrementAndGet();
+      return new PageResponse(uri, 200, "OK", Set.of());
+    }).delayElement(Duration.ofMillis(100));
+  }
+
+  @Test
+  void shouldShareConcurrentFetchesOfEquivalentUris() {
+    var equivalent = "https://www.acme.com/company/?a=1&b=2#top";
+    var first = inFlight.execute(URI, () -> slowFetch(URI));
+    var second = inFlight.execute(equivalent, () -> slowFetch(equivalent));
+
+    StepVerifier.create(first.zipWith(second))
+        .assertNext(responses -> {
+          assertEquals(URI, responses.getT1().getUri());
+          assertEquals(equivalent, responses.getT2().getUri(), "reported under the uri that was asked for");
+        })
+        .verifyComplete();
+
+    assertEquals(1, fetches.get(), "one fetch shared by both requests");
+    assertEquals(1.0, registry.get(InFlightRequests.DEDUPLICATED_METRIC).counter().count());
+    assertEquals(2.0, registry.get(InFlightRequests.REQUESTS_METRIC).counter().count());
+    assertEquals(0, inFlight.size(), "entry removed once the fetch completes");
+  }
+
+  @Test
+  void shouldFetchAgainAfterPreviousFetchCompleted() {
+    StepVerifier.create(inFlight.execute(URI, () -> slowFetch(URI))).expectNextCount(1).verifyComplete();
+    StepVerifier.create(inFlight.execute(URI, () -> slowFetch(URI))).expectNextCount(1).verifyComplete();
+    assertEquals(2, fetches.get());
+  }
+
+  @Test
+  void shouldReplayTheResponseToRequestsJoiningAsTheFetchCompletes() {
+    var sink = new AtomicReference<MonoSink<PageResponse>>();
+    var late = new AtomicReference<PageResponse>();
+    // joins from within the shared fetch's onNext, before its onComplete
+    inFlight.execute(URI, () -> Mono.create(sink::set))
+        .doOnNext(response -> inFlight.execute(URI, () -> slowFetch(URI)).subscribe(late::set))
+        .subscribe();
+
+    sink.get().success(new PageResponse(URI, 200, "OK", Set.of()));
+
+    assertNotNull(late.get(), "the late request was answered rather than completing empty");
+    assertEquals(200, late.get().getHttpStatus());
+    assertEquals(0, fetches.get(), "joined the fetch in progress rather than starting another");
+  }
+
+  @Test
+  void shouldFinishAFetchEverySubscriberCancelled() {
+    var first = inFlight.execute(URI, () -> slowFetch(URI)).subscribe();
+    var second = inFlight.execute(URI, () -> slowFetch(URI)).subscribe();
+    first.dispose();
+    second.dispose();
+    assertEquals(1, inFlight.size(), "left to complete, so a cancelled fetch is never taken for its response");
+
+    StepVerifier.create(inFlight.execute(URI, () -> slowFetch(URI))).expectNextCount(1).verifyComplete();
+    assertEquals(1, fetches.get());
+    assertEquals(0, inFlight.size());
+  }
+}
@@ -0,0 +1,86 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import com.scottvevans.linkchecker.model.PageResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LinkStatusCacheTests {
+  private static final String URI = "https://www.acme.com/company/?b=2&a=1";
+
+  private final AtomicLong nanos = new AtomicLong();
+  private LinkCheckerProperties properties;
+  private SimpleMeterRegistry registry;
+
+  @BeforeEach
+  void init() {
+    properties = new LinkCheckerProperties();
+    registry = new SimpleMeterRegistry();
+  }
+
+  private LinkStatusCache cache() {
+    return new LinkStatusCache(properties, registry, nanos::get);
+  }
+
+  private void advance(Duration duration) {
+    nanos.addAndGet(duration.toNanos());
+  }
+
+  @Test
+  void shouldReturnCachedResponseForEquivalentUri() {
+    var cache = cache();
+    var response = new PageResponse(URI, 200, "OK", Set.of("https://www.acme.com/"));
+    assertEquals(Optional.empty(), cache.get(URI));
+
+    cache.put(response);
+    assertEquals(Optional.of(response), cache.get(URI));
+
+    var equivalent = "https://www.acme.com/company/?a=1&b=2#top";
+    var expected = new PageResponse(equivalent, 200, "OK", Set.of("https://www.acme.com/"));
+    assertEquals(Optional.of(expected), cache.get(equivalent), "reported under the uri that was asked for");
+
+    assertEquals(2, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+    assertEquals(2.0, registry.get("cache.gets").tag("cache", LinkStatusCache.CACHE_NAME)
+        .tag("result", "hit").functionCounter().count());
+  }
+
+  @Test
+  void shouldExpireEachClassOfStatusAfterItsOwnTimeToLive() {
+    var cache = cache();
+    cache.put(new PageResponse("https://www.acme.com/ok", 200, "OK", Set.of()));
+    cache.put(new PageResponse("https://www.acme.com/moved", 301, "Moved Permanently", Set.of()));
+    cache.put(new PageResponse("https://www.acme.com/missing", 404, "Not Found", Set.of()));
+    cache.put(new PageResponse("https://www.acme.com/down", -1, "ERROR: timeout", Set.of()));
+
+    advance(properties.getCache().getFailureTtl().plusSeconds(1));
+    assertTrue(cache.get("https://www.acme.com/down").isEmpty(), "failures expire first");
+    assertTrue(cache.get("https://www.acme.com/missing").isPresent());
+
+    advance(properties.getCache().getErrorTtl());
+    assertTrue(cache.get("https://www.acme.com/missing").isEmpty(), "4xx expire after the error ttl");
+    assertTrue(cache.get("https://www.acme.com/ok").isPresent());
+    assertTrue(cache.get("https://www.acme.com/moved").isPresent());
+
+    advance(properties.getCache().getSuccessTtl());
+    assertTrue(cache.get("https://www.acme.com/ok").isEmpty());
+    assertTrue(cache.get("https://www.acme.com/moved").isEmpty());
+  }
+
+  @Test
+  void shouldNotCacheWhenDisabled() {
+    properties.getCache().setEnabled(false);
+    var cache = cache();
+    cache.put(new PageResponse(URI, 200, "OK", Set.of()));
+    assertEquals(Optional.empty(), cache.get(URI));
+  }
+}
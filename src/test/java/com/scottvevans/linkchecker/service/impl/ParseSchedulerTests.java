@@ -0,0 +1,108 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParseSchedulerTests {
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  private ParseScheduler scheduler(boolean dedicated, int threads, int queueCapacity) {
+    var properties = new LinkCheckerProperties();
+    properties.getParse().setDedicatedScheduler(dedicated);
+    properties.getParse().setThreads(threads);
+    properties.getParse().setQueueCapacity(queueCapacity);
+    return new ParseScheduler(properties, registry);
+  }
+
+  private static Flux<DataBuffer> body(String... chunks) {
+    var factory = new DefaultDataBufferFactory();
+    return Flux.fromArray(chunks).map(chunk -> factory.wrap(chunk.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  /** Parse recording the threads it ran on and answering the number of bytes it read */
+  private static Mono<Integer> parse(Flux<DataBuffer> body, Set<String> threads) {
+    return body
+        .doOnNext(buffer -> threads.add(Thread.currentThread().getName()))
+        .map(DataBuffer::readableByteCount)
+        .reduce(0, Integer::sum);
+  }
+
+  @Test
+  void shouldParseOnThePool() {
+    var scheduler = scheduler(true, 2, 8);
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+
+    StepVerifier.create(scheduler.parse(body("<a href=", "\"x\">", "x</a>"), buffers -> parse(buffers, threads)))
+        .expectNext(17)
+        .verifyComplete();
+    assertFalse(threads.isEmpty());
+    assertTrue(threads.stream().allMatch(thread -> thread.startsWith("parse-")), threads.toString());
+    assertEquals(1, registry.get(ParseScheduler.ADMISSION_WAIT_METRIC).timer().count());
+    assertTrue(registry.get(ParseScheduler.QUEUE_WAIT_METRIC).timer().count() > 0);
+    assertTrue(registry.get(ParseScheduler.TASK_METRIC).timer().count() > 0);
+    scheduler.close();
+  }
+
+  @Test
+  void shouldParseInPlaceWhenDisabled() {
+    var scheduler = scheduler(false, 2, 8);
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+
+    StepVerifier.create(scheduler.parse(body("<p>", "</p>"), buffers -> parse(buffers, threads)))
+        .expectNext(7)
+        .verifyComplete();
+    assertEquals(Set.of(Thread.currentThread().getName()), threads);
+    assertEquals(0, registry.get(ParseScheduler.ADMISSION_WAIT_METRIC).timer().count());
+    scheduler.close();
+  }
+
+  @Test
+  void shouldAdmitNoMorePagesThanTheQueueHolds() {
+    var scheduler = scheduler(true, 1, 2);
+    var parsing = new AtomicInteger();
+    var max = new AtomicInteger();
+
+    var pages = Flux.range(0, 10).flatMap(i -> scheduler.parse(body("<p>", "</p>"), buffers -> Mono.defer(() -> {
+      max.accumulateAndGet(parsing.incrementAndGet(), Math::max);
+      return buffers.then(Mono.delay(Duration.ofMillis(20))).thenReturn(i);
+    }).doFinally(signal -> parsing.decrementAndGet())));
+
+    StepVerifier.create(pages.count()).expectNext(10L).verifyComplete();
+    assertTrue(max.get() <= 2, "at most 2 pages parsed at once, was " + max.get());
+    assertEquals(10, registry.get(ParseScheduler.ADMISSION_WAIT_METRIC).timer().count());
+    scheduler.close();
+  }
+
+  @Test
+  void shouldAdmitTheNextPageWhenOneIsCancelled() {
+    var scheduler = scheduler(true, 1, 1);
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+
+    var stuck = scheduler.parse(Flux.never(), buffers -> parse(buffers, threads)).subscribe();
+    var waiting = scheduler.parse(body("<p>"), buffers -> parse(buffers, threads)).subscribe();
+    waiting.dispose();
+    stuck.dispose();
+
+    StepVerifier.create(scheduler.parse(body("<p>", "</p>"), buffers -> parse(buffers, threads)))
+        .expectNext(7)
+        .expectComplete()
+        .verify(Duration.ofSeconds(5));
+    scheduler.close();
+  }
+}
@@ -0,0 +1,43 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import com.scottvevans.linkchecker.model.RedirectHop;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RedirectMapTests {
+  private final AtomicLong nanos = new AtomicLong();
+
+  private RedirectMap redirects(boolean follow) {
+    var properties = new LinkCheckerProperties();
+    properties.getRedirects().setFollow(follow);
+    return new RedirectMap(properties, new SimpleMeterRegistry(), nanos::get);
+  }
+
+  @Test
+  void shouldRememberChainsByNormalizedURIUntilExpired() {
+    var redirects = redirects(true);
+    var hops = List.of(new RedirectHop("https://acme.com/", 301));
+    redirects.put("https://acme.com/", hops, "https://www.acme.com/");
+
+    var chain = redirects.get("https://acme.com/#top").orElseThrow();
+    assertEquals(hops, chain.getHops());
+    assertEquals("https://www.acme.com/", chain.getTarget());
+
+    nanos.addAndGet(new LinkCheckerProperties().getRedirects().getTtl().plusSeconds(1).toNanos());
+    assertEquals(Optional.empty(), redirects.get("https://acme.com/"));
+  }
+
+  @Test
+  void shouldRememberNothingWhenNotFollowing() {
+    var redirects = redirects(false);
+    redirects.put("https://acme.com/", List.of(new RedirectHop("https://acme.com/", 301)), "https://www.acme.com/");
+    assertEquals(Optional.empty(), redirects.get("https://acme.com/"));
+  }
+}
@@ -0,0 +1,104 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import com.scottvevans.linkchecker.model.PageResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ReportAggregatorTests {
+
+  private static PageResponse response(String uri, int status, long fetchTimeInMillis) {
+    var response = new PageResponse(uri, status, "", Set.of());
+    response.setFetchTimeInMillis(fetchTimeInMillis);
+    return response;
+  }
+
+  private static ReportAggregator aggregator(LinkCheckerProperties.Report.Responses responses, int maxResponses) {
+    var settings = new LinkCheckerProperties.Report();
+    settings.setResponses(responses);
+    settings.setMaxResponses(maxResponses);
+    return new ReportAggregator(settings);
+  }
+
+  private static void reportSite(ReportAggregator aggregator) {
+    aggregator.reported(response("https://acme.com/", 200, 40), 0);
+    aggregator.reported(response("https://acme.com/a", 200, 300), 1);
+    aggregator.reported(response("https://acme.com/b", 404, 8), 1);
+    aggregator.reported(response("https://other.org/", -1, 15_000), 1);
+    aggregator.reported(response("https://acme.com/a/c", 304, 3), 2);
+  }
+
+  private static List<String> uris(List<PageResponse> responses) {
+    return responses.stream().map(PageResponse::getUri).collect(toList());
+  }
+
+  @Test
+  void shouldCountByStatusHostAndDepth() {
+    var aggregator = aggregator(LinkCheckerProperties.Report.Responses.ALL, 0);
+    reportSite(aggregator);
+
+    var report = aggregator.toReport("https://acme.com/", 2, 123);
+    assertEquals(5, report.getTotalPagesCrawled());
+    assertEquals(123, report.getElaspedTimeInMillis());
+    assertEquals(Map.of(-1, 1, 200, 2, 304, 1, 404, 1), report.getStatusCounts());
+    assertEquals(Map.of("acme.com", 4, "other.org", 1), report.getHostCounts());
+    assertEquals(Map.of(0, 1, 1, 3, 2, 1), report.getDepthCounts());
+    assertEquals(List.of("https://acme.com/", "https://acme.com/a", "https://acme.com/b", "https://other.org/",
+        "https://acme.com/a/c"), uris(report.getResponses()), "all responses kept in the order reported");
+    assertEquals(0, report.getResponsesOmitted());
+  }
+
+  @Test
+  void shouldSummarizeFetchTimesInHistogram() {
+    var aggregator = aggregator(LinkCheckerProperties.Report.Responses.ALL, 0);
+    reportSite(aggregator);
+
+    var latency = aggregator.toReport("https://acme.com/", 2, 0).getLatency();
+    assertEquals(5, latency.getCount());
+    assertEquals((40 + 300 + 8 + 15_000 + 3) / 5, latency.getMeanMillis());
+    assertEquals(15_000, latency.getMaxMillis());
+    assertEquals(50, latency.getP50Millis(), "the third fastest fetch is in the bucket up to 50ms");
+    assertEquals(15_000, latency.getP90Millis(), "capped at the slowest fetch");
+    assertEquals(latency.getBucketBoundsMillis().size() + 1, latency.getBucketCounts().size());
+    assertEquals(5, latency.getBucketCounts().stream().mapToLong(Long::longValue).sum());
+  }
+
+  @Test
+  void shouldKeepOnlyResponsesNotOk() {
+    var aggregator = aggregator(LinkCheckerProperties.Report.Responses.NOT_OK, 0);
+    reportSite(aggregator);
+
+    var report = aggregator.toReport("https://acme.com/", 2, 0);
+    assertEquals(List.of("https://acme.com/b", "https://other.org/"), uris(report.getResponses()));
+    assertEquals(3, report.getResponsesOmitted());
+    assertEquals(5, report.getTotalPagesCrawled(), "statistics still count every response");
+  }
+
+  @Test
+  void shouldKeepResponsesNotOkThenSlowestUpToLimit() {
+    var aggregator = aggregator(LinkCheckerProperties.Report.Responses.ALL, 3);
+    reportSite(aggregator);
+
+    var report = aggregator.toReport("https://acme.com/", 2, 0);
+    assertEquals(List.of("https://other.org/", "https://acme.com/b", "https://acme.com/a"),
+        uris(report.getResponses()));
+    assertEquals(2, report.getResponsesOmitted());
+  }
+
+  @Test
+  void shouldKeepNoResponses() {
+    var aggregator = aggregator(LinkCheckerProperties.Report.Responses.NONE, 0);
+    reportSite(aggregator);
+
+    var report = aggregator.toReport("https://acme.com/", 2, 0);
+    assertEquals(List.of(), report.getResponses());
+    assertEquals(5, report.getResponsesOmitted());
+    assertEquals(Map.of(-1, 1, 200, 2, 304, 1, 404, 1), aggregator.statusCounts());
+  }
+}
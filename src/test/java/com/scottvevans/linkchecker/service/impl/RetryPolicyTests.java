@@ -0,0 +1,98 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import com.scottvevans.linkchecker.model.PageResponse;
+import io.netty.handler.timeout.ReadTimeoutException;
+import io.netty.handler.timeout.WriteTimeoutException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.UnknownHostException;
+import java.nio.channels.UnresolvedAddressException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RetryPolicyTests {
+  private static final Clock CLOCK = Clock.fixed(Instant.parse("2020-05-01T12:00:00Z"), ZoneOffset.UTC);
+
+  private static RetryPolicy policy(double random) {
+    var properties = new LinkCheckerProperties.Retry();
+    properties.setMaxAttempts(4);
+    properties.setInitialBackoff(Duration.ofMillis(100));
+    properties.setMultiplier(2);
+    properties.setMaxBackoff(Duration.ofMillis(300));
+    properties.setJitter(0.5);
+    properties.setMaxRetryAfter(Duration.ofSeconds(10));
+    return new RetryPolicy(properties, () -> random, CLOCK);
+  }
+
+  private static PageResponse failed(int status, Duration retryAfter) {
+    var response = new PageResponse("https://acme.com/", status, "", Set.of());
+    response.setRetryAfter(retryAfter);
+    return response;
+  }
+
+  @Test
+  void shouldBackOffExponentiallyUpToMax() {
+    var policy = policy(0);
+    assertEquals(Duration.ofMillis(100), policy.backoff(0));
+    assertEquals(Duration.ofMillis(200), policy.backoff(1));
+    assertEquals(Duration.ofMillis(300), policy.backoff(2));
+    assertEquals(Duration.ofMillis(300), policy.backoff(10));
+  }
+
+  @Test
+  void shouldReduceBackoffByJitter() {
+    assertEquals(Duration.ofMillis(50), policy(1).backoff(0));
+    assertEquals(Duration.ofMillis(150), policy(0.5).backoff(1));
+  }
+
+  @Test
+  void shouldRetryOnlyTransientFailuresUpToMaxAttempts() {
+    var policy = policy(0);
+    assertEquals(Optional.empty(), policy.delayBeforeRetry(failed(404, null), 0));
+    assertEquals(Optional.of(Duration.ofMillis(100)), policy.delayBeforeRetry(failed(503, Duration.ZERO), 0));
+    assertEquals(Optional.of(Duration.ofMillis(300)), policy.delayBeforeRetry(failed(503, Duration.ZERO), 2));
+    assertEquals(Optional.empty(), policy.delayBeforeRetry(failed(503, Duration.ZERO), 3), "4 attempts made");
+  }
+
+  @Test
+  void shouldWaitAtLeastRetryAfterUnlessTooLong() {
+    var policy = policy(0);
+    assertEquals(Optional.of(Duration.ofSeconds(5)), policy.delayBeforeRetry(failed(429, Duration.ofSeconds(5)), 0));
+    assertEquals(Optional.empty(), policy.delayBeforeRetry(failed(429, Duration.ofSeconds(60)), 0));
+  }
+
+  @Test
+  void shouldParseRetryAfterSecondsOrDate() {
+    var policy = policy(0);
+    assertEquals(Duration.ofSeconds(120), policy.parseRetryAfter("120"));
+    assertEquals(Duration.ofSeconds(90), policy.parseRetryAfter("Fri, 01 May 2020 12:01:30 GMT"));
+    assertEquals(Duration.ZERO, policy.parseRetryAfter("Fri, 01 May 2020 11:00:00 GMT"), "in the past");
+    assertEquals(Duration.ZERO, policy.parseRetryAfter("soon"));
+    assertEquals(Duration.ZERO, policy.parseRetryAfter(null));
+  }
+
+  @Test
+  void shouldTreatTimeoutsAndConnectionFailuresAsTransient() {
+    var policy = policy(0);
+    assertTrue(policy.isRetryable(503));
+    assertFalse(policy.isRetryable(500));
+    assertTrue(RetryPolicy.isTransient(new TimeoutException()));
+    assertTrue(RetryPolicy.isTransient(ReadTimeoutException.INSTANCE));
+    assertTrue(RetryPolicy.isTransient(new IllegalStateException(WriteTimeoutException.INSTANCE)));
+    assertTrue(RetryPolicy.isTransient(new IllegalStateException(new IOException("Connection reset"))));
+    assertFalse(RetryPolicy.isTransient(new IOException(new UnknownHostException("nowhere.invalid"))));
+    assertFalse(RetryPolicy.isTransient(new IOException(new UnresolvedAddressException())));
+    assertFalse(RetryPolicy.isTransient(new IllegalArgumentException()));
+  }
+}
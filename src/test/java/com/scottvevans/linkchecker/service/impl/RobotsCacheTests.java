@@ -0,0 +1,74 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.config.LinkCheckerProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class RobotsCacheTests {
+  private static final String ORIGIN = "https://www.acme.com";
+
+  private final AtomicLong nanos = new AtomicLong();
+  private final AtomicInteger loads = new AtomicInteger();
+  private LinkCheckerProperties properties;
+
+  @BeforeEach
+  void init() {
+    properties = new LinkCheckerProperties();
+  }
+
+  private RobotsCache cache() {
+    return new RobotsCache(properties, new SimpleMeterRegistry(), nanos::get);
+  }
+
+  private Mono<RobotsRules> load(RobotsRules rules) {
+    return Mono.fromSupplier(() -> {
+      loads.incrementAndGet();
+      return rules;
+    });
+  }
+
+  @Test
+  void shouldLoadRulesOncePerTimeToLive() {
+    var cache = cache();
+    var rules = RobotsRules.parse("User-agent: *\nDisallow: /private/", "linkchecker");
+
+    assertSame(rules, cache.get(ORIGIN, origin -> load(rules)).block());
+    assertSame(rules, cache.get(ORIGIN, origin -> load(rules)).block());
+    assertEquals(1, loads.get());
+
+    nanos.addAndGet(properties.getRobots().getTtl().plusSeconds(1).toNanos());
+    cache.get(ORIGIN, origin -> load(rules)).block();
+    assertEquals(2, loads.get(), "loaded again once expired");
+  }
+
+  @Test
+  void shouldShareALoadInProgress() {
+    var cache = cache();
+    var slow = load(RobotsRules.ALLOW_ALL).delaySubscription(Duration.ofMillis(100));
+
+    var first = cache.get(ORIGIN, origin -> slow);
+    var second = cache.get(ORIGIN, origin -> slow);
+    StepVerifier.create(Mono.zip(first, second)).expectNextCount(1).verifyComplete();
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void shouldRetryOriginsThatFailedSooner() {
+    var cache = cache();
+    cache.get(ORIGIN, origin -> load(RobotsRules.UNREACHABLE)).block();
+
+    nanos.addAndGet(properties.getRobots().getErrorTtl().plusSeconds(1).toNanos());
+    cache.get(ORIGIN, origin -> load(RobotsRules.UNREACHABLE)).block();
+    assertEquals(2, loads.get());
+  }
+}
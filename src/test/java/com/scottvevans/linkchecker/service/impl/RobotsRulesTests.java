@@ -0,0 +1,74 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RobotsRulesTests {
+  private static final String ROBOTS_TXT = String.join("\n",
+      "# rules for everyone",
+      "User-agent: *",
+      "Disallow: /private/",
+      "Allow: /private/public",
+      "Disallow: /*.pdf$",
+      "Disallow: /search*q=",
+      "Crawl-delay: 2.5",
+      "",
+      "User-agent: BadBot",
+      "User-agent: OtherBot",
+      "Disallow: /");
+
+  @Test
+  void testLongestMatchingRuleWins() {
+    var rules = RobotsRules.parse(ROBOTS_TXT, "linkchecker");
+    assertTrue(rules.isAllowed("/"));
+    assertTrue(rules.isAllowed("/about.html"));
+    assertFalse(rules.isAllowed("/private/plans.html"));
+    assertTrue(rules.isAllowed("/private/public/index.html"), "the longer allow wins");
+  }
+
+  @Test
+  void testWildcardsAndEndAnchors() {
+    var rules = RobotsRules.parse(ROBOTS_TXT, "linkchecker");
+    assertFalse(rules.isAllowed("/docs/manual.pdf"));
+    assertTrue(rules.isAllowed("/docs/manual.pdf?download=true"), "$ anchors the rule to the end of the path");
+    assertFalse(rules.isAllowed("/search?page=2&q=links"));
+    assertTrue(rules.isAllowed("/search?page=2"));
+  }
+
+  @Test
+  void testAllowWinsTieAndAnchoredRuleOnlyMatchesWholePath() {
+    var rules = RobotsRules.parse("User-agent: *\nDisallow: /fish\nAllow: /fish$\nDisallow: /*\nAllow: /p\n", "a");
+    assertTrue(rules.isAllowed("/fish"));
+    assertFalse(rules.isAllowed("/fish.html"));
+    assertTrue(rules.isAllowed("/page"), "allow wins a tie between rules of the same length");
+    assertFalse(rules.isAllowed("/x"));
+  }
+
+  @Test
+  void testGroupOfTheUserAgentReplacesTheWildcardGroup() {
+    var rules = RobotsRules.parse("User-agent: *\nDisallow: /\n\nUser-agent: LinkChecker\nDisallow:\n", "linkchecker");
+    assertTrue(rules.isAllowed("/anything"), "an empty disallow allows everything");
+    assertEquals(Duration.ZERO, rules.getCrawlDelay());
+
+    var others = RobotsRules.parse(ROBOTS_TXT, "otherbot");
+    assertFalse(others.isAllowed("/"), "groups may name several agents");
+  }
+
+  @Test
+  void testCrawlDelay() {
+    assertEquals(Duration.ofMillis(2500), RobotsRules.parse(ROBOTS_TXT, "linkchecker").getCrawlDelay());
+    assertEquals(Duration.ZERO, RobotsRules.parse("User-agent: *\nCrawl-delay: soon\n", "a").getCrawlDelay());
+  }
+
+  @Test
+  void testDefaults() {
+    assertTrue(RobotsRules.ALLOW_ALL.isAllowed("/private/"));
+    assertTrue(RobotsRules.UNREACHABLE.isAllowed("/"), "pages of a site without reachable rules are fetched");
+    assertTrue(RobotsRules.parse("", "linkchecker").isAllowed("/"), "an empty robots.txt allows everything");
+  }
+}
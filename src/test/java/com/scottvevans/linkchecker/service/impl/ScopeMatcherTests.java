@@ -0,0 +1,91 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.model.CrawlScope;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.PatternSyntaxException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ScopeMatcherTests {
+  private static final String ROOT = "https://www.acme.co.uk/docs/guide/index.html";
+
+  private static ScopeMatcher matcher(CrawlScope.Mode mode, List<String> include, List<String> exclude) {
+    return ScopeMatcher.of(ROOT, new CrawlScope(mode, include, exclude));
+  }
+
+  @Test
+  void testHostScope() {
+    var scope = matcher(CrawlScope.Mode.HOST, List.of(), List.of());
+    assertTrue(scope.inScope("https://www.acme.co.uk/about.html"));
+    assertTrue(scope.inScope("http://WWW.ACME.CO.UK/"), "host is compared case insensitively, whatever the scheme");
+    assertFalse(scope.inScope("https://shop.acme.co.uk/"));
+    assertFalse(scope.inScope("https://www.example.com/www.acme.co.uk"));
+  }
+
+  @Test
+  void testDomainScope() {
+    var scope = matcher(CrawlScope.Mode.DOMAIN, List.of(), List.of());
+    assertTrue(scope.inScope("https://shop.acme.co.uk/"));
+    assertTrue(scope.inScope("https://acme.co.uk/"));
+    assertFalse(scope.inScope("https://www.other.co.uk/"));
+  }
+
+  @Test
+  void testPrefixScope() {
+    var scope = matcher(CrawlScope.Mode.PREFIX, List.of(), List.of());
+    assertTrue(scope.inScope("https://www.acme.co.uk/docs/guide/"));
+    assertTrue(scope.inScope("https://www.acme.co.uk/docs/guide/part-2/intro.html"));
+    assertFalse(scope.inScope("https://www.acme.co.uk/docs/"));
+    assertFalse(scope.inScope("https://www.acme.co.uk/blog/docs/guide/"));
+    assertFalse(scope.inScope("https://docs.acme.co.uk/docs/guide/"));
+  }
+
+  @Test
+  void testIncludeAndExcludePatterns() {
+    var scope = matcher(CrawlScope.Mode.HOST,
+        List.of("^https://status\\.acme\\.io/"), List.of("/private/", "\\?print"));
+    assertTrue(scope.inScope("https://status.acme.io/incidents"), "included though on another host");
+    assertFalse(scope.inScope("https://www.acme.co.uk/private/plans.html"), "excluded though on the host");
+    assertFalse(scope.inScope("https://www.acme.co.uk/about.html?print=true"));
+
+    var only = matcher(CrawlScope.Mode.NONE, List.of("/docs/"), null);
+    assertTrue(only.inScope("https://anywhere.org/docs/a.html"));
+    assertFalse(only.inScope("https://www.acme.co.uk/about.html"));
+
+    var all = matcher(CrawlScope.Mode.ALL, null, List.of("\\.pdf$"));
+    assertTrue(all.inScope("https://anywhere.org/"));
+    assertFalse(all.inScope("https://www.acme.co.uk/manual.pdf"));
+  }
+
+  @Test
+  void testInvalidPatternFails() {
+    assertThrows(PatternSyntaxException.class, () -> matcher(CrawlScope.Mode.HOST, List.of("(unclosed"), List.of()));
+  }
+
+  @Test
+  void testTooManyOrTooLongPatternsFail() {
+    var tooMany = Collections.nCopies(CrawlScope.MAX_PATTERNS + 1, "/docs/");
+    assertThrows(IllegalArgumentException.class, () -> matcher(CrawlScope.Mode.HOST, tooMany, List.of()));
+    var tooLong = List.of("a".repeat(CrawlScope.MAX_PATTERN_LENGTH + 1));
+    assertThrows(IllegalArgumentException.class, () -> matcher(CrawlScope.Mode.HOST, List.of(), tooLong));
+  }
+
+  @Test
+  void testBacktrackingPatternGivesUpLeavingTheLinkUnexpanded() {
+    var uri = "https://www.acme.co.uk/" + "a".repeat(64) + "!";
+    var include = matcher(CrawlScope.Mode.NONE, List.of("(a+)+$"), List.of());
+    var exclude = matcher(CrawlScope.Mode.HOST, List.of(), List.of("(a+)+$"));
+    assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+      assertFalse(include.inScope(uri), "an include that gave up does not bring the link in scope");
+      assertFalse(exclude.inScope(uri), "an exclude that gave up takes the link out of scope");
+    });
+    assertTrue(exclude.inScope("https://www.acme.co.uk/about.html"), "links the pattern decides are unaffected");
+  }
+}
@@ -0,0 +1,67 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SerialWriterTests {
+
+  @Test
+  void shouldRunWritesInOrderOffTheCallingThreadAndFlushAfterThem() throws InterruptedException {
+    List<Integer> written = new ArrayList<>();
+    List<Integer> flushedAt = new ArrayList<>();
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+    var release = new CountDownLatch(1);
+    var writer = new SerialWriter(Schedulers.single(), () -> flushedAt.add(written.size()));
+
+    // the first write blocks, as on a slow disk, without holding up the caller
+    writer.execute(() -> {
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    for (int i = 0; i < 1000; i++) {
+      int value = i;
+      writer.execute(() -> {
+        threads.add(Thread.currentThread().getName());
+        written.add(value);
+      });
+    }
+    assertTrue(written.isEmpty());
+    release.countDown();
+    writer.await();
+
+    assertEquals(IntStream.range(0, 1000).boxed().collect(toList()), written);
+    assertFalse(threads.contains(Thread.currentThread().getName()));
+    assertEquals(1000, flushedAt.get(flushedAt.size() - 1), "flushed once the writes are done");
+    assertTrue(flushedAt.size() < 1000, "flushed once per run of writes rather than per write");
+  }
+
+  @Test
+  void shouldKeepWritingAfterAWriteFails() {
+    List<String> written = new ArrayList<>();
+    var writer = new SerialWriter(Schedulers.single(), () -> { });
+
+    writer.execute(() -> {
+      throw new IllegalStateException("disk full");
+    });
+    writer.execute(() -> written.add("next"));
+    writer.await();
+
+    assertEquals(List.of("next"), written);
+  }
+}
@@ -0,0 +1,134 @@
+package com.scottvevans.linkchecker.service.impl;
+
+import com.scottvevans.linkchecker.service.HtmlParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static com.scottvevans.linkchecker.service.impl.HtmlHelper.fragment;
+import static com.scottvevans.linkchecker.service.impl.HtmlHelper.page;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class StreamingHtmlParserImplTests {
+  private static final String EBAY_INC_BASE = "https://www.ebayinc.com/";
+  private static final String COMPANY = "company/";
+  private static final String COMPANY_ABS = EBAY_INC_BASE + "company/";
+  private static final String COMPANY_FRAGMENT = "company/#main-content";
+  private static final String COMPANY_QUERY_1 = "company/?a=b&c=d&y=z";
+  private static final String COMPANY_QUERY_2 = "company/?a=b&y=z&c=d";
+  private static final String COMPANY_QUERY_SORTED_ABS = EBAY_INC_BASE + "company/?a=b&c=d&y=z";
+  private static final String GOOGLE_ABOUT_US = "https://about.google/stories";
+
+  private static final String TRICKY_PAGE = "<!DOCTYPE html><html><head>"
+      + "<title>not a <a href=\"title.html\">link</a></title>"
+      + "<script>var s = '<a href=\"script.html\">'; if (a</b) {}</script>"
+      + "<style>a[href='style.html'] { color: red }</style>"
+      + "</head><body>"
+      + "<!-- <a href=\"commented.html\"> -->"
+      + "<A HREF='upper.html' class=x>upper</A>"
+      + "<a class=\"a > b\" href=\"quoted-gt.html\">quoted gt</a>"
+      + "<a href=unquoted.html>unquoted</a>"
+      + "<a href = \"spaced.html\" >spaced</a>"
+      + "<a href=\"first.html\" href=\"second.html\">duplicate</a>"
+      + "<a href=\"?q=1&amp;r=2&copy=3\">entities</a>"
+      + "<a href=\"&#47;numeric.html\">numeric</a>"
+      + "<a name=\"anchor\">no href</a><a href=\"\">empty</a>"
+      + "<a href=\"mailto:someone@acme.com\">mail</a>"
+      + "<a href=\"./dot.html\">dot</a><a href=\"../up.html\">up</a>"
+      + "<a href=\"//cdn.acme.com/lib.js\">protocol relative</a>"
+      + "<textarea><a href=\"textarea.html\"></textarea>"
+      + "<svg><a href=\"svg.html\"><text>svg</text></a></svg>"
+      + "<p>1 < 2 <a href=\"after-lt.html\">after</a></p>"
+      + "</body></html>";
+
+  private StreamingHtmlParserImpl parser;
+
+  @BeforeEach
+  void setup() {
+    parser = new StreamingHtmlParserImpl();
+  }
+
+  private static Flux<DataBuffer> chunks(String html, Charset charset, int chunkSize) {
+    var bytes = html.getBytes(charset);
+    List<DataBuffer> buffers = new ArrayList<>();
+    var factory = new DefaultDataBufferFactory();
+    for (int i = 0; i < bytes.length; i += chunkSize) {
+      var buffer = factory.allocateBuffer(chunkSize);
+      buffer.write(bytes, i, Math.min(chunkSize, bytes.length - i));
+      buffers.add(buffer);
+    }
+    return Flux.fromIterable(buffers);
+  }
+
+  @Test
+  void shouldFindSameLinksAsJsoupImplementation() {
+    var jsoup = new JsoupHtmlParserImpl();
+    var pages = List.of(
+        TRICKY_PAGE,
+        fragment(List.of(COMPANY, COMPANY_FRAGMENT)),
+        page(null, List.of(GOOGLE_ABOUT_US, COMPANY)),
+        page(EBAY_INC_BASE + "company/", List.of("a.html", "/b.html", GOOGLE_ABOUT_US)));
+
+    for (var html : pages) {
+      assertEquals(jsoup.findLinks(EBAY_INC_BASE + "about/", html), parser.findLinks(EBAY_INC_BASE + "about/", html),
+          html);
+    }
+  }
+
+  @Test
+  void shouldFindUniqueLinksInBodySplitAcrossBuffers() {
+    var links = List.of(COMPANY_QUERY_1, COMPANY_QUERY_2, "café/menü.html", COMPANY_FRAGMENT);
+    var html = "<p>über €</p>" + page(EBAY_INC_BASE, links);
+    var expected = new JsoupHtmlParserImpl().findUniqueLinks(EBAY_INC_BASE, html);
+
+    for (int chunkSize : new int[] { 1, 2, 3, 7, 64, 4096 }) {
+      StepVerifier.create(parser.findUniqueLinks(EBAY_INC_BASE, chunks(html, StandardCharsets.UTF_8, chunkSize),
+          StandardCharsets.UTF_8, Integer.MAX_VALUE))
+          .expectNext(expected)
+          .verifyComplete();
+    }
+    assertEquals(Set.of(COMPANY_QUERY_SORTED_ABS, EBAY_INC_BASE + "café/menü.html", COMPANY_ABS), expected);
+  }
+
+  @Test
+  void shouldFailBodyOverMaxBytes() {
+    var html = fragment(List.of(COMPANY)) + fragment(List.of(GOOGLE_ABOUT_US));
+    int firstFragmentBytes = fragment(List.of(COMPANY)).length();
+
+    StepVerifier.create(parser.findUniqueLinks(EBAY_INC_BASE, chunks(html, StandardCharsets.UTF_8, firstFragmentBytes),
+        StandardCharsets.UTF_8, firstFragmentBytes))
+        .expectError(DataBufferLimitException.class)
+        .verify();
+    StepVerifier.create(parser.findUniqueLinks(EBAY_INC_BASE, chunks(html, StandardCharsets.UTF_8, firstFragmentBytes),
+        StandardCharsets.UTF_8, html.length()))
+        .expectNext(new JsoupHtmlParserImpl().findUniqueLinks(EBAY_INC_BASE, html))
+        .verifyComplete();
+  }
+
+  @Test
+  void shouldFindNoLinksInEmptyBody() {
+    StepVerifier.create(parser.findUniqueLinks(EBAY_INC_BASE, Flux.empty(), StandardCharsets.UTF_8, 1024))
+        .expectNext(Set.of())
+        .verifyComplete();
+  }
+
+  @Test
+  void shouldThrowIllegalArgumentExceptionsForInvalidURI() {
+    HtmlParser parser = this.parser;
+    var html = fragment(List.of(COMPANY));
+    assertThrows(IllegalArgumentException.class, () -> parser.findLinks(null, html));
+    assertThrows(IllegalArgumentException.class, () -> parser.findLinks("", html));
+    assertThrows(IllegalArgumentException.class, () -> parser.findLinks("baduri.html", html));
+  }
+}
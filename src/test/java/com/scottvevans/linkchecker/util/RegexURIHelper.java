@@ -0,0 +1,53 @@
+package com.scottvevans.linkchecker.util;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.joining;
+
+/** The original regex and stream based normalization, kept as the reference for differential tests of URIHelper */
+class RegexURIHelper {
+  private static final String PARAM_REGEX = "^[a-zA-Z_][^=]*=[^&]+$";
+  private static final Predicate<String> IS_VALID_PARAM = Pattern.compile(PARAM_REGEX).asMatchPredicate();
+
+  static String normalizeURI(final String uri) {
+    String normalizedURI = URIHelper.removeFragment(uri);
+    final int queryStringIndex = normalizedURI.indexOf('?');
+
+    if (queryStringIndex != -1) {
+      if (queryStringIndex + 1 == normalizedURI.length()) {
+        normalizedURI = normalizedURI.substring(0, queryStringIndex);
+      } else {
+        String queryString = normalizedURI.substring(queryStringIndex + 1);
+        Optional<String> sortedQueryStringMaybe = getSortedQueryString(queryString);
+
+        if (sortedQueryStringMaybe.isEmpty()) {
+          normalizedURI = normalizedURI.substring(0, queryStringIndex);
+        } else {
+          normalizedURI = normalizedURI.substring(0, queryStringIndex + 1) + sortedQueryStringMaybe.get();
+        }
+      }
+    }
+
+    return normalizedURI;
+  }
+
+  static Optional<String> getSortedQueryString(final String queryString) {
+    Optional<String> sortedQueryStringMaybe = Optional.empty();
+
+    if (queryString != null && !queryString.equals("")) {
+      final String[] paramPairs = queryString.split("&");
+      final Stream<String> validParamsSorted = Arrays.stream(paramPairs).filter(IS_VALID_PARAM).sorted();
+      final String sortedQueryString = validParamsSorted.collect(joining("&"));
+
+      if (sortedQueryString.length() > 0) {
+        sortedQueryStringMaybe = Optional.of(sortedQueryString);
+      }
+    }
+
+    return sortedQueryStringMaybe;
+  }
+}
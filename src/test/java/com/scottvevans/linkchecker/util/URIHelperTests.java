@@ -2,9 +2,12 @@ package com.scottvevans.linkchecker.util;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 public class URIHelperTests {
 
@@ -16,6 +19,17 @@ public class URIHelperTests {
     assertEquals(expected, URIHelper.removeFragment(expected), "no fragment");
   }
 
+  @Test
+  void testGetRegistrableDomain() {
+    assertEquals("ebayinc.com", URIHelper.getRegistrableDomain("www.ebayinc.com"));
+    assertEquals("ebayinc.com", URIHelper.getRegistrableDomain("ebayinc.com"));
+    assertEquals("acme.co.uk", URIHelper.getRegistrableDomain("docs.acme.co.uk"));
+    assertEquals("acme.de", URIHelper.getRegistrableDomain("shop.eu.acme.de"));
+    assertEquals("localhost", URIHelper.getRegistrableDomain("localhost"));
+    assertEquals("127.0.0.1", URIHelper.getRegistrableDomain("127.0.0.1"));
+    assertEquals("[::1]", URIHelper.getRegistrableDomain("[::1]"));
+  }
+
   @Test
   void testRemoveFragmentWithQueryString() {
     var url = "https://www.ebayinc.com/company/?a=b#main-content";
@@ -44,6 +58,54 @@ public class URIHelperTests {
     assertEquals(expected2, URIHelper.normalizeURI(uriWithBoth), "normalized url with fragment and query string");
   }
 
+  @Test
+  void testNormalizeURIReturnsSameInstanceWhenNothingToNormalize() {
+    var plain = "https://www.ebayinc.com/company/";
+    var sorted = "https://www.ebayinc.com/company/?a=b&c=d";
+    assertSame(plain, URIHelper.normalizeURI(plain), "no query string or fragment");
+    assertSame(sorted, URIHelper.normalizeURI(sorted), "already sorted valid query string");
+  }
+
+  @Test
+  void testNormalizeURIMatchesRegexImplementation() {
+    var edgeCases = List.of("", "?", "#", "?#", "a?", "a?&", "a?&&", "a?=b", "a?a=", "a?a==", "a?a=b=c", "a?_=x",
+        "a?1=b", "a?a=b&", "a?&a=b", "a?b=1&a=2&b=0", "a#?b=1&a=2", "a?b=1#&a=2", "a?a=b?c=d", "a?A=b&a=b&_=b",
+        "a?a=b&a=b", "a?ab=1&a=1&a=12&aa=", "a?\u00e9=1&e=1", "a?a=\n&a=\r\n");
+    for (var uri : edgeCases) {
+      assertEquals(RegexURIHelper.normalizeURI(uri), URIHelper.normalizeURI(uri), "normalized " + uri);
+    }
+
+    var random = new Random(42);
+    var alphabet = "aAbZ_1=&?#/.-%\u00e9";
+    for (int i = 0; i < 20_000; i++) {
+      var uri = new StringBuilder("https://www.acme.com/");
+      for (int length = random.nextInt(40); length > 0; length--) {
+        uri.append(alphabet.charAt(random.nextInt(alphabet.length())));
+      }
+      var value = uri.toString();
+      assertEquals(RegexURIHelper.normalizeURI(value), URIHelper.normalizeURI(value), "normalized " + value);
+    }
+  }
+
+  @Test
+  void testGetSortedQueryStringMatchesRegexImplementation() {
+    var random = new Random(7);
+    var names = List.of("a", "b", "A", "_", "aa", "ab", "1", "", "a=", "b-c");
+    var values = List.of("", "1", "2", "=", "x=y", "10");
+    for (int i = 0; i < 20_000; i++) {
+      var queryString = new StringBuilder();
+      for (int params = random.nextInt(40); params > 0; params--) {
+        if (queryString.length() > 0 || random.nextInt(10) == 0) queryString.append('&');
+        queryString.append(names.get(random.nextInt(names.size())));
+        if (random.nextInt(8) != 0) queryString.append('=');
+        queryString.append(values.get(random.nextInt(values.size())));
+      }
+      var value = queryString.toString();
+      assertEquals(RegexURIHelper.getSortedQueryString(value), URIHelper.getSortedQueryString(value), value);
+    }
+    assertEquals(Optional.empty(), URIHelper.getSortedQueryString(null));
+  }
+
   @Test
   void testResolveRedirectURI() {
     var originalURI = "https://www.ebayinc.com/company";
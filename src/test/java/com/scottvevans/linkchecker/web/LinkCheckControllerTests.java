@@ -1,5 +1,10 @@
 package com.scottvevans.linkchecker.web;
 
+import com.scottvevans.linkchecker.model.BatchReport;
+import com.scottvevans.linkchecker.model.BatchRequest;
+import com.scottvevans.linkchecker.model.BrokenLink;
+import com.scottvevans.linkchecker.model.CrawlRequest;
+import com.scottvevans.linkchecker.model.CrawlScope;
 import com.scottvevans.linkchecker.model.CrawlerReport;
 import com.scottvevans.linkchecker.model.PageResponse;
 import com.scottvevans.linkchecker.service.Crawler;
@@ -15,12 +20,16 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.reactive.server.EntityExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 @Slf4j
 @ExtendWith(SpringExtension.class)
 @WebFluxTest(controllers = LinkCheckerController.class)
@@ -58,6 +67,100 @@ public class LinkCheckControllerTests {
         .expectBody(CrawlerReport.class).isEqualTo(expectedCrawlerReport);
   }
 
+  @Test
+  void testPassesScopeToCrawler() {
+    var uri = "https://www.acme.com";
+    var crawlerReport = new CrawlerReport(uri, 2, 1, 0, Map.of(), List.of());
+    var scope = new CrawlScope(CrawlScope.Mode.DOMAIN, null, List.of("/private/", "\\.pdf$"));
+    Mockito.when(crawler.crawl(2, uri, scope)).thenReturn(Mono.just(crawlerReport));
+
+    webTestClient.get().uri(builder -> builder.path("/check")
+        .queryParam("depth", 2)
+        .queryParam("uri", uri)
+        .queryParam("scope", "DOMAIN")
+        .queryParam("exclude", "/private/", "{pdf}")
+        .build("\\.pdf$"))
+        .accept(MediaType.APPLICATION_JSON)
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(CrawlerReport.class).isEqualTo(crawlerReport);
+  }
+
+  @Test
+  void testStreamsPageResponsesThenSummaryAsNdjson() {
+    var uri = "https://www.acme.com";
+    Mockito.when(crawler.stream(1, uri)).thenReturn(Flux.just(
+        new PageResponse(uri, 200, "OK", Set.of(uri + "/a.html")),
+        new PageResponse(uri + "/a.html", 404, "Not Found", Set.of())));
+
+    var body = webTestClient.get().uri("/check/stream?depth=1&uri=" + uri)
+        .accept(StreamingCodecConfig.APPLICATION_NDJSON)
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().contentTypeCompatibleWith(StreamingCodecConfig.APPLICATION_NDJSON)
+        .expectBody(String.class).returnResult().getResponseBody();
+
+    var lines = body.split("\n");
+    assertEquals(3, lines.length, "one line per page response plus the summary");
+    assertTrue(lines[0].contains("\"httpStatus\":200"));
+    assertTrue(lines[1].contains("\"httpStatus\":404"));
+    assertTrue(lines[2].contains("\"statusCounts\":{\"200\":1,\"404\":1}"));
+    assertTrue(lines[2].contains("\"totalPagesCrawled\":2"));
+  }
+
+  @Test
+  void testStreamsPageAndSummaryServerSentEvents() {
+    var uri = "https://www.acme.com";
+    Mockito.when(crawler.stream(1, uri)).thenReturn(Flux.just(new PageResponse(uri, 200, "OK", Set.of())));
+
+    var body = webTestClient.get().uri("/check/stream?depth=1&uri=" + uri)
+        .accept(MediaType.TEXT_EVENT_STREAM)
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(String.class).returnResult().getResponseBody();
+
+    assertTrue(body.indexOf("event:page") < body.indexOf("event:summary"), "page event precedes summary event");
+    assertTrue(body.contains("\"statusCounts\":{\"200\":1}"));
+  }
+
+  @Test
+  void testBatchCallsCrawlerWithEveryRoot() {
+    var roots = List.of(new CrawlRequest("https://www.acme.com", 2), new CrawlRequest("https://docs.acme.com", 1));
+    var brokenLink = new BrokenLink("https://www.acme.com/gone.html", 404, "Not Found",
+        Set.of("https://www.acme.com", "https://docs.acme.com"));
+    var batchReport = new BatchReport(1, 3, List.of(), List.of(brokenLink));
+    Mockito.when(crawler.crawl(roots)).thenReturn(Mono.just(batchReport));
+
+    webTestClient.post().uri("/check/batch")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(new BatchRequest(roots))
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(BatchReport.class).isEqualTo(batchReport);
+  }
+
+  @Test
+  void testBatchRejectsEmptyRootsAndBadDepths() {
+    webTestClient.post().uri("/check/batch")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(new BatchRequest(List.of()))
+        .exchange()
+        .expectStatus().isBadRequest();
+
+    webTestClient.post().uri("/check/batch")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(new BatchRequest(List.of(new CrawlRequest("https://www.acme.com", 6))))
+        .exchange()
+        .expectStatus().isBadRequest();
+
+    var tooLong = List.of("a".repeat(CrawlScope.MAX_PATTERN_LENGTH + 1));
+    webTestClient.post().uri("/check/batch")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(new BatchRequest(List.of(new CrawlRequest("https://www.acme.com", 1,
+            new CrawlScope(CrawlScope.Mode.HOST, List.of(), tooLong)))))
+        .exchange()
+        .expectStatus().isBadRequest();
+  }
 
   @Test
   void testValidationFailures() {